@@ -0,0 +1,39 @@
+package com.mhkb;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the Boggle benchmarks with the GC profiler, which adds the allocation
+ * rate (<code>gc.alloc.rate.norm</code>, bytes per operation) to every
+ * result.
+ *
+ * <p>
+ * The benchmarks are in the bench source folder and need JMH (jmh-core and
+ * jmh-generator-annprocess) on the class path, with dictionary.txt on the
+ * class path next to the Dictionary class as for the tests. Arguments are
+ * regular expressions selecting the benchmarks to run; with no arguments every
+ * benchmark is run. For example:
+ *
+ * <pre>
+ * java com.mhkb.Benchmarks Dictionary.lookUp BoggleBenchmark.solve
+ * </pre>
+ *
+ */
+public class Benchmarks {
+
+	public static void main(String[] args) throws RunnerException {
+		OptionsBuilder options = new OptionsBuilder();
+		if (args.length == 0) {
+			options.include("com\\.mhkb\\..*Benchmark");
+		}
+		for (String arg : args) {
+			options.include(arg);
+		}
+		Options opt = options.addProfiler(GCProfiler.class).build();
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,386 @@
+package com.mhkb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for shuffling and solving whole boards. The solver benchmarks
+ * cycle through a fixed set of seeded boards so that every run measures the
+ * same work.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoggleBenchmark {
+
+	private static final int BOARDS = 256;
+	// threads submitting to one round in the shared round benchmarks
+	private static final int GROUP_THREADS = 4;
+
+	private Boggle boggle;
+	private BoggleSolver solver;
+	private Board[] boards;
+	private List<List<String>> submissions;
+	private Dictionary dictionary;
+	private WordValidator validator;
+	private SolutionCache cache;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Dictionary dictionary = new Dictionary();
+		this.boggle = new Boggle(dictionary);
+		this.solver = new BoggleSolver(dictionary.getLexicon(), Boggle.MIN_WORD_LENGTH);
+		this.dictionary = dictionary;
+		this.validator = new WordValidator(dictionary.getLexicon(), Boggle.MIN_WORD_LENGTH);
+		this.cache = new SolutionCache(dictionary, BOARDS);
+		this.boards = new Board[BOARDS];
+		this.submissions = new ArrayList<>();
+		for (int i = 0; i < BOARDS; i++) {
+			this.boards[i] = Boggle.boardOf(Boggle.seededCode(i));
+			// a player's list: the words on the board and as many near misses
+			List<String> words = new ArrayList<>();
+			for (WordPath w : this.solver.solve(this.boards[i])) {
+				words.add(w.getWord());
+				words.add(w.getWord() + "s");
+			}
+			this.submissions.add(words);
+		}
+	}
+
+	private Board nextBoard() {
+		this.next = (this.next + 1) % BOARDS;
+		return this.boards[this.next];
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Boggle shuffleAndRoll() {
+		this.boggle.shuffleAndRoll();
+		return this.boggle;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public BoardCode seededCode() {
+		return Boggle.seededCode(this.next++);
+	}
+
+	@Benchmark
+	public List<WordPath> solve() {
+		return this.solver.solve(this.nextBoard());
+	}
+
+	@Benchmark
+	public int streamAll(Orders o) {
+		WordStream words = this.solver.stream(this.nextBoard(), o.order);
+		int n = 0;
+		while (words.hasNext()) {
+			words.next();
+			n++;
+		}
+		return n;
+	}
+
+	@Benchmark
+	public int[] solveIds() {
+		return this.solver.solveIds(this.nextBoard());
+	}
+
+	@Benchmark
+	public WordPath streamFirst(Orders o) {
+		WordStream words = this.solver.stream(this.nextBoard(), o.order);
+		return words.hasNext() ? words.next() : null;
+	}
+
+	/**
+	 * A round on one board where every player submits every word on the board
+	 * and a near miss for each, starting at a different word. The submissions
+	 * are made one after another on one thread, so nothing contends; see
+	 * <code>SharedRoom</code> for the same round played by several threads.
+	 */
+	@State(Scope.Thread)
+	public static class Room {
+
+		@Param({ "16", "256" })
+		public int players;
+
+		private Lexicon lexicon;
+		private List<WordPath> words;
+		private int[] ids;
+		private List<String> submissions;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			this.lexicon = new Dictionary().getLexicon();
+			this.words = new BoggleSolver(this.lexicon, Boggle.MIN_WORD_LENGTH)
+					.solve(Boggle.boardOf(Boggle.seededCode(22)));
+			this.ids = new BoggleSolver(this.lexicon, Boggle.MIN_WORD_LENGTH)
+					.solveIds(Boggle.boardOf(Boggle.seededCode(22)));
+			this.submissions = new ArrayList<>();
+			for (WordPath w : this.words) {
+				this.submissions.add(w.getWord());
+				this.submissions.add(w.getWord() + "s");
+			}
+		}
+	}
+
+	@Benchmark
+	public int[] scoreRound(Room r) {
+		RoundScorer scorer = new RoundScorer(r.lexicon, Boggle.MIN_WORD_LENGTH, r.ids, r.players);
+		int n = r.submissions.size();
+		for (int p = 0; p < r.players; p++) {
+			for (int i = 0; i < n; i++) {
+				scorer.submit(p, r.submissions.get((p + i) % n));
+			}
+		}
+		return scorer.close();
+	}
+
+	/**
+	 * The same round as <code>scoreRound</code>, scored with one lock and a map
+	 * from each word to the players who found it.
+	 */
+	@Benchmark
+	public int[] scoreRoundLocked(Room r) {
+		Map<String, Set<Integer>> finders = new HashMap<>();
+		int n = r.submissions.size();
+		for (int p = 0; p < r.players; p++) {
+			for (int i = 0; i < n; i++) {
+				String word = r.submissions.get((p + i) % n).toLowerCase();
+				synchronized (finders) {
+					if (r.lexicon.contains(word) && onBoard(r.words, word)) {
+						finders.computeIfAbsent(word, k -> new HashSet<>()).add(p);
+					}
+				}
+			}
+		}
+		int[] scores = new int[r.players];
+		for (Map.Entry<String, Set<Integer>> e : finders.entrySet()) {
+			if (e.getValue().size() == 1) {
+				scores[e.getValue().iterator().next()] += Boggle.score(e.getKey());
+			}
+		}
+		return scores;
+	}
+
+	/**
+	 * A round shared by the threads of a group, which submit words for
+	 * different players at the same time. Thread <code>t</code> plays players
+	 * <code>t</code>, <code>t + GROUP_THREADS</code> and so on in turn, each
+	 * submitting the words of <code>Room</code> from its own start, so the
+	 * submissions of the threads interleave on one scorer. The round starts
+	 * afresh every iteration; after the first pass most submissions are
+	 * duplicates, which still walk the lexicon and are counted in and out.
+	 */
+	@State(Scope.Group)
+	public static class SharedRoom {
+
+		@Param({ "16", "256" })
+		public int players;
+
+		private final Room room = new Room();
+		private final AtomicInteger threads = new AtomicInteger();
+		private RoundScorer scorer;
+		private Map<String, Set<Integer>> finders;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			this.room.players = this.players;
+			this.room.setUp();
+		}
+
+		@Setup(Level.Iteration)
+		public void startRound() {
+			this.scorer = new RoundScorer(this.room.lexicon, Boggle.MIN_WORD_LENGTH, this.room.ids, this.players);
+			this.finders = new HashMap<>();
+		}
+	}
+
+	/**
+	 * The players one thread of a group plays, and how far each has got.
+	 */
+	@State(Scope.Thread)
+	public static class Seat {
+
+		private int thread;
+		private int seats;
+		private int turn;
+		private int player;
+		private int submission;
+
+		@Setup(Level.Trial)
+		public void setUp(SharedRoom r) {
+			this.thread = r.threads.getAndIncrement() % GROUP_THREADS;
+			this.seats = Math.max(1, (r.players - this.thread + GROUP_THREADS - 1) / GROUP_THREADS);
+		}
+
+		/**
+		 * Moves on to the next player of this thread and the next word for it.
+		 */
+		String next(SharedRoom r) {
+			int k = this.turn++ & Integer.MAX_VALUE;
+			List<String> submissions = r.room.submissions;
+			this.player = Math.min(this.thread + GROUP_THREADS * (k % this.seats), r.players - 1);
+			this.submission = (this.player + k / this.seats) % submissions.size();
+			return submissions.get(this.submission);
+		}
+	}
+
+	@Benchmark
+	@Group("sharedRound")
+	@GroupThreads(GROUP_THREADS)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public WordVerdict submitShared(SharedRoom r, Seat s) {
+		String word = s.next(r);
+		return r.scorer.submit(s.player, word);
+	}
+
+	/**
+	 * The same submissions as <code>submitShared</code>, recorded under one
+	 * lock in a map from each word to the players who found it, as
+	 * <code>scoreRoundLocked</code> does.
+	 */
+	@Benchmark
+	@Group("sharedRoundLocked")
+	@GroupThreads(GROUP_THREADS)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public boolean submitSharedLocked(SharedRoom r, Seat s) {
+		String word = s.next(r).toLowerCase();
+		Map<String, Set<Integer>> finders = r.finders;
+		synchronized (finders) {
+			if (r.room.lexicon.contains(word) && onBoard(r.room.words, word)) {
+				return finders.computeIfAbsent(word, k -> new HashSet<>()).add(s.player);
+			}
+		}
+		return false;
+	}
+
+	private static boolean onBoard(List<WordPath> words, String word) {
+		int lo = 0;
+		int hi = words.size() - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int c = words.get(mid).getWord().compareTo(word);
+			if (c == 0) {
+				return true;
+			} else if (c < 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The orders a stream of words can be asked for in.
+	 */
+	@State(Scope.Thread)
+	public static class Orders {
+
+		@Param({ "FOUND", "LONGEST_FIRST", "SHORTEST_FIRST" })
+		public WordStream.Order order;
+	}
+
+	/**
+	 * Random boards of one of the dice sets, to show how the solve time grows
+	 * with the size of the board.
+	 */
+	@State(Scope.Thread)
+	public static class Sized {
+
+		@Param({ "CLASSIC", "BIG", "SUPER_BIG" })
+		public DiceSet diceSet;
+
+		private BoggleSolver solver;
+		private Board[] boards;
+		private int next;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			this.solver = new BoggleSolver(new Dictionary().getLexicon(), this.diceSet.getMinWordLength());
+			SplittableRandom rng = new SplittableRandom(2020);
+			this.boards = new Board[BOARDS];
+			for (int i = 0; i < BOARDS; i++) {
+				this.boards[i] = Boggle.randomBoard(this.diceSet, rng);
+			}
+		}
+	}
+
+	@Benchmark
+	public List<WordPath> solveBySize(Sized s) {
+		s.next = (s.next + 1) % BOARDS;
+		return s.solver.solve(s.boards[s.next]);
+	}
+
+	/**
+	 * Solves the same boards as <code>solve</code> through a cache big enough to
+	 * hold them all, so after the first pass every call is a hit.
+	 */
+	@Benchmark
+	public List<WordPath> solveCached() {
+		return this.cache.solve(this.nextBoard());
+	}
+
+	@Benchmark
+	public List<WordPath> solveCurrentBoard() {
+		return this.boggle.solve();
+	}
+
+	@Benchmark
+	public List<WordVerdict> checkWords() {
+		Board board = this.nextBoard();
+		return this.validator.validate(board, this.submissions.get(this.next));
+	}
+
+	/**
+	 * Checks the same lists as <code>checkWords</code> one word at a time, with
+	 * a dictionary look up and a path search for every word.
+	 */
+	@Benchmark
+	public List<WordVerdict> checkWordsOneByOne() {
+		Board board = this.nextBoard();
+		List<String> words = this.submissions.get(this.next);
+		List<WordVerdict> result = new ArrayList<>(words.size());
+		Set<String> seen = new HashSet<>();
+		for (String word : words) {
+			if (!seen.add(word)) {
+				result.add(WordVerdict.DUPLICATE);
+			} else if (word.length() < Boggle.MIN_WORD_LENGTH) {
+				result.add(WordVerdict.TOO_SHORT);
+			} else if (!this.dictionary.lookUp(word)) {
+				result.add(WordVerdict.NOT_IN_DICTIONARY);
+			} else {
+				result.add(board.findPath(word) == null ? WordVerdict.NOT_ON_BOARD : WordVerdict.VALID);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,225 @@
+package com.mhkb;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A load client for <code>BoggleServer</code>. Every session opens a
+ * keep-alive connection, starts a round, submits words to it one at a time,
+ * and then ends the round; all of the sessions run at the same time. The
+ * client reports the throughput and the latency percentiles of the word
+ * submissions.
+ *
+ * <p>
+ * Half of the words a session submits are words found on its board by a
+ * local solver, and the rest are repeats and words that are not on the board,
+ * so that the server takes every path. A session pauses for a think time
+ * between words, as a player would, so that the latencies are those of a
+ * server under a steady load rather than of a queue that is never empty; the
+ * sessions start at random times within the first think time. Each session
+ * runs on its own thread, which is a virtual thread when the runtime has them.
+ * The client speaks just enough HTTP/1.1 to talk to the server, so that the
+ * measured latency is the server's and not that of a general purpose client.
+ *
+ * <p>
+ * The arguments are the number of sessions (1000 by default), the number of
+ * words each session submits (50 by default), the think time in milliseconds
+ * (500 by default; zero sends the words back to back), and the address of a
+ * server (<code>host:port</code>). With no address the client starts a server
+ * in the same JVM on a free port. For example:
+ *
+ * <pre>
+ * java com.mhkb.BoggleLoadClient 2000 100 1000 localhost:8080
+ * </pre>
+ *
+ */
+public class BoggleLoadClient {
+
+	private static final String[] NOT_ON_BOARD = { "zyzzyva", "qajaq", "xylyl", "bb", "jukebox" };
+
+	private final InetSocketAddress address;
+	private final BoggleSolver solver;
+	private final int words;
+	private final long think;
+	private final long[] latencies;
+	private final AtomicInteger count;
+	private final AtomicInteger accepted;
+	private final CountDownLatch ready;
+
+	private BoggleLoadClient(InetSocketAddress address, Dictionary dictionary, int sessions, int words, long think) {
+		this.address = address;
+		this.solver = new BoggleSolver(dictionary.getLexicon(), Boggle.MIN_WORD_LENGTH);
+		this.words = words;
+		this.think = think;
+		this.latencies = new long[sessions * words];
+		this.count = new AtomicInteger();
+		this.accepted = new AtomicInteger();
+		this.ready = new CountDownLatch(sessions);
+	}
+
+	/**
+	 * A keep-alive connection to the server.
+	 */
+	private static final class Connection implements AutoCloseable {
+		private final Socket socket;
+		private final OutputStream out;
+		private final InputStream in;
+
+		Connection(InetSocketAddress address) throws IOException {
+			this.socket = new Socket(address.getHostString(), address.getPort());
+			this.socket.setTcpNoDelay(true);
+			this.out = this.socket.getOutputStream();
+			this.in = new BufferedInputStream(this.socket.getInputStream());
+		}
+
+		/**
+		 * Sends a request and returns the body of the response.
+		 */
+		String send(String method, String path, String body) throws IOException {
+			String request = method + " " + path + " HTTP/1.1\r\nHost: boggle\r\nContent-Length: " + body.length()
+					+ "\r\n\r\n" + body;
+			this.out.write(request.getBytes(StandardCharsets.US_ASCII));
+			this.out.flush();
+			int length = 0;
+			for (String line = this.readLine(); !line.isEmpty(); line = this.readLine()) {
+				if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+					length = Integer.parseInt(line.substring(15).trim());
+				}
+			}
+			return new String(this.in.readNBytes(length), StandardCharsets.US_ASCII).trim();
+		}
+
+		private String readLine() throws IOException {
+			StringBuilder line = new StringBuilder();
+			for (int c = this.in.read(); c != '\n'; c = this.in.read()) {
+				if (c < 0) {
+					throw new IOException("connection closed by the server");
+				}
+				if (c != '\r') {
+					line.append((char) c);
+				}
+			}
+			return line.toString();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.socket.close();
+		}
+	}
+
+	/**
+	 * Returns the words that a session submits to a round with the specified
+	 * board. The solver is not thread-safe, so sessions are set up one at a
+	 * time.
+	 */
+	private synchronized List<String> wordsFor(BoardCode code) {
+		List<WordPath> solution = this.solver.solve(Boggle.boardOf(code));
+		List<String> result = new ArrayList<>(this.words);
+		for (int i = 0; result.size() < this.words; i++) {
+			if (i % 2 == 0 && i / 2 < solution.size()) {
+				result.add(solution.get(i / 2).getWord());
+			} else if (i % 4 == 1 && !solution.isEmpty()) {
+				result.add(solution.get(0).getWord());
+			} else {
+				result.add(NOT_ON_BOARD[i % NOT_ON_BOARD.length]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Runs one session: starts a round, waits until every session has started
+	 * one, submits the words one after another, and ends the round.
+	 */
+	private void session() {
+		try (Connection c = new Connection(this.address)) {
+			String[] reply = c.send("POST", BoggleServer.CONTEXT, "").split(" ");
+			String round = BoggleServer.CONTEXT + "/" + reply[0];
+			List<String> words = this.wordsFor(BoardCode.parse(reply[1]));
+			this.ready.countDown();
+			this.ready.await();
+			if (this.think > 0) {
+				Thread.sleep(ThreadLocalRandom.current().nextLong(this.think));
+			}
+			for (String word : words) {
+				if (this.think > 0) {
+					Thread.sleep(this.think);
+				}
+				long begin = System.nanoTime();
+				String verdict = c.send("POST", round + "/words", word);
+				this.latencies[this.count.getAndIncrement()] = System.nanoTime() - begin;
+				if (verdict.startsWith("ACCEPTED")) {
+					this.accepted.incrementAndGet();
+				}
+			}
+			c.send("DELETE", round, "");
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static long percentile(long[] sorted, double p) {
+		int i = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(i, sorted.length - 1))];
+	}
+
+	public static void main(String[] args) throws Exception {
+		int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int words = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		long think = args.length > 2 ? Long.parseLong(args[2]) : 500;
+		Dictionary dictionary = new Dictionary();
+		BoggleServer server = null;
+		InetSocketAddress address;
+		if (args.length > 3) {
+			String[] hostPort = args[3].split(":");
+			address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+		} else {
+			server = new BoggleServer(dictionary, new InetSocketAddress("localhost", 0),
+					Math.max(sessions, BoggleServer.DEFAULT_MAX_ROUNDS), BoggleServer.DEFAULT_IDLE_TIMEOUT);
+			server.start();
+			address = new InetSocketAddress("localhost", server.getPort());
+		}
+		BoggleLoadClient load = new BoggleLoadClient(address, dictionary, sessions, words, think);
+
+		ExecutorService executor = BoggleServer.newExecutor();
+		List<Future<?>> all = new ArrayList<>(sessions);
+		for (int i = 0; i < sessions; i++) {
+			all.add(executor.submit(load::session));
+		}
+		load.ready.await();
+		long begin = System.nanoTime();
+		for (Future<?> f : all) {
+			f.get();
+		}
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		executor.shutdown();
+		if (server != null) {
+			server.stop(0);
+		}
+
+		long[] sorted = Arrays.copyOf(load.latencies, load.count.get());
+		Arrays.sort(sorted);
+		System.out.printf("%d sessions, %d submissions (%d accepted) in %.2f s: %.0f submissions/s%n", sessions,
+				sorted.length, load.accepted.get(), seconds, sorted.length / seconds);
+		System.out.printf("submit latency us: p50 %.0f  p90 %.0f  p99 %.0f  p99.9 %.0f  max %.0f%n",
+				percentile(sorted, 50) / 1e3, percentile(sorted, 90) / 1e3, percentile(sorted, 99) / 1e3,
+				percentile(sorted, 99.9) / 1e3, sorted[sorted.length - 1] / 1e3);
+	}
+}
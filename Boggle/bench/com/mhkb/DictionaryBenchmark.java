@@ -0,0 +1,352 @@
+package com.mhkb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for building and querying the dictionary.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DictionaryBenchmark {
+
+	private static final int QUERIES = 1024;
+
+	private Dictionary dictionary;
+	private String[] hits;
+	private String[] misses;
+	private String[] prefixes;
+	private String[] randoms;
+	private char[][] letters;
+	private final StringBuilder builder = new StringBuilder();
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.dictionary = new Dictionary();
+		List<String> words = new ArrayList<>(this.dictionary.wordsStartingWith(""));
+		Random rng = new Random(2030);
+		this.hits = new String[QUERIES];
+		this.misses = new String[QUERIES];
+		this.prefixes = new String[QUERIES];
+		this.letters = new char[QUERIES][];
+		this.randoms = new String[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			String word = words.get(rng.nextInt(words.size()));
+			this.hits[i] = i % 2 == 0 ? word : word.toUpperCase();
+			this.misses[i] = i % 2 == 0 ? word + "qz" : (word + "xq").toUpperCase();
+			this.prefixes[i] = word.substring(0, Math.min(word.length(), 2 + rng.nextInt(3)));
+			this.letters[i] = this.hits[i].toCharArray();
+			char[] random = new char[4 + rng.nextInt(5)];
+			for (int j = 0; j < random.length; j++) {
+				random[j] = (char) ('a' + rng.nextInt(26));
+			}
+			this.randoms[i] = new String(random);
+		}
+	}
+
+	private int nextIndex() {
+		this.next = (this.next + 1) & (QUERIES - 1);
+		return this.next;
+	}
+
+	@Benchmark
+	public int idOf() {
+		return this.dictionary.idOf(this.hits[this.nextIndex()]);
+	}
+
+	@Benchmark
+	public String wordOf() {
+		return this.dictionary.wordOf((this.nextIndex() * 361) % this.dictionary.size());
+	}
+
+	/**
+	 * Words with one letter replaced, as a player might mistype them.
+	 */
+	@State(Scope.Thread)
+	public static class Typos {
+
+		private String[] typos;
+		private String[] words;
+		private int next;
+
+		@Setup(Level.Trial)
+		public void setUp(DictionaryBenchmark b) {
+			Random rng = new Random(2040);
+			this.words = b.dictionary.wordsStartingWith("").toArray(new String[0]);
+			this.typos = new String[QUERIES];
+			for (int i = 0; i < QUERIES; i++) {
+				char[] w = b.hits[i].toLowerCase().toCharArray();
+				w[rng.nextInt(w.length)] = (char) ('a' + rng.nextInt(26));
+				this.typos[i] = new String(w);
+			}
+		}
+
+		String next() {
+			this.next = (this.next + 1) & (QUERIES - 1);
+			return this.typos[this.next];
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public List<String> suggest(Typos t) {
+		return this.dictionary.suggest(t.next(), 2, 5);
+	}
+
+	/**
+	 * The same query as <code>suggest</code>, answered by computing the edit
+	 * distance to every word of the dictionary.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int suggestByScan(Typos t) {
+		String s = t.next();
+		int found = 0;
+		int[] prev = new int[64];
+		int[] row = new int[64];
+		for (String w : t.words) {
+			if (Math.abs(w.length() - s.length()) > 2) {
+				continue;
+			}
+			for (int j = 0; j <= w.length(); j++) {
+				prev[j] = j;
+			}
+			for (int i = 1; i <= s.length(); i++) {
+				row[0] = i;
+				for (int j = 1; j <= w.length(); j++) {
+					int cost = prev[j - 1] + (s.charAt(i - 1) == w.charAt(j - 1) ? 0 : 1);
+					row[j] = Math.min(cost, Math.min(prev[j], row[j - 1]) + 1);
+				}
+				int[] tmp = prev;
+				prev = row;
+				row = tmp;
+			}
+			if (prev[w.length()] <= 2) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Pattern and letter queries of the kind used to write puzzles.
+	 */
+	@State(Scope.Thread)
+	public static class Queries {
+
+		@Param({ "c?t*", "*qu*/8", "letters:retains", "?a*e/letters:abcde??" })
+		public String spec;
+
+		private WordQuery query;
+		private String[] words;
+
+		@Setup(Level.Trial)
+		public void setUp(DictionaryBenchmark b) {
+			WordQuery q = WordQuery.any();
+			for (String part : this.spec.split("/")) {
+				if (part.startsWith("letters:")) {
+					q = q.usingLetters(part.substring("letters:".length()));
+				} else if (Character.isDigit(part.charAt(0))) {
+					q = q.withLength(Integer.parseInt(part));
+				} else {
+					q = WordQuery.matching(part);
+				}
+			}
+			this.query = q;
+			this.words = b.dictionary.wordsStartingWith("").toArray(new String[0]);
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public long query(Queries q) {
+		return this.dictionary.query(q.query).count();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public String queryFirst(Queries q) {
+		return this.dictionary.query(q.query).findFirst().orElse(null);
+	}
+
+	/**
+	 * The same queries as <code>query</code>, answered by testing every word of
+	 * the dictionary.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public long queryByScan(Queries q) {
+		long found = 0;
+		for (String w : q.words) {
+			if (q.query.matches(w)) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Loads the default dictionary, from the snapshot if one is up to date or
+	 * from the text file otherwise.
+	 */
+	@State(Scope.Thread)
+	public static class Construction {
+
+		@Param({ "snapshot", "text" })
+		public String source;
+
+		private String saved;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			this.saved = System.getProperty(Dictionary.SNAPSHOT_PROPERTY);
+			if (this.source.equals("text")) {
+				System.setProperty(Dictionary.SNAPSHOT_PROPERTY, "");
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			if (this.saved == null) {
+				System.clearProperty(Dictionary.SNAPSHOT_PROPERTY);
+			} else {
+				System.setProperty(Dictionary.SNAPSHOT_PROPERTY, this.saved);
+			}
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Dictionary construct(Construction c) {
+		return new Dictionary();
+	}
+
+	/**
+	 * The same dictionary with its edges on the heap or off it.
+	 */
+	@State(Scope.Thread)
+	public static class Storage {
+
+		@Param({ "heap", "offHeap" })
+		public String where;
+
+		private Dictionary dictionary;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			Dawg dawg = Dawg.build(new Dictionary().wordsStartingWith(""));
+			this.dictionary = new Dictionary(this.where.equals("heap") ? dawg : dawg.offHeap());
+		}
+	}
+
+	@Benchmark
+	public boolean lookUpStorage(Storage s) {
+		return s.dictionary.lookUp(this.hits[this.nextIndex()]);
+	}
+
+	/**
+	 * The default dictionary with or without Bloom filters in front of it.
+	 */
+	@State(Scope.Thread)
+	public static class Filtering {
+
+		@Param({ "none", "0.01" })
+		public String falsePositiveRate;
+
+		private Dictionary dictionary;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			Dictionary d = new Dictionary();
+			this.dictionary = this.falsePositiveRate.equals("none") ? d
+					: d.withBloomFilters(Double.parseDouble(this.falsePositiveRate));
+		}
+	}
+
+	@Benchmark
+	public boolean lookUpHitFiltered(Filtering f) {
+		return f.dictionary.lookUp(this.hits[this.nextIndex()]);
+	}
+
+	/**
+	 * Looks up a word with two letters appended: a miss found only at the end.
+	 */
+	@Benchmark
+	public boolean lookUpMissFiltered(Filtering f) {
+		return f.dictionary.lookUp(this.misses[this.nextIndex()]);
+	}
+
+	/**
+	 * Looks up 4 to 8 random letters, like the strings players type by mistake.
+	 */
+	@Benchmark
+	public boolean lookUpRandomFiltered(Filtering f) {
+		return f.dictionary.lookUp(this.randoms[this.nextIndex()]);
+	}
+
+	@Benchmark
+	public boolean hasWordsStartingWithFiltered(Filtering f) {
+		return f.dictionary.hasWordsStartingWith(this.misses[this.nextIndex()]);
+	}
+
+	@Benchmark
+	public boolean lookUpHit() {
+		return this.dictionary.lookUp(this.hits[this.nextIndex()]);
+	}
+
+	@Benchmark
+	public boolean lookUpMiss() {
+		return this.dictionary.lookUp(this.misses[this.nextIndex()]);
+	}
+
+	/**
+	 * Looks up a word held in a reused <code>StringBuilder</code>, the way the
+	 * view and the solver build words one face at a time.
+	 */
+	@Benchmark
+	public boolean lookUpBuilder() {
+		this.builder.setLength(0);
+		this.builder.append(this.hits[this.nextIndex()]);
+		return this.dictionary.lookUp(this.builder);
+	}
+
+	@Benchmark
+	public boolean lookUpCharArray() {
+		char[] word = this.letters[this.nextIndex()];
+		return this.dictionary.lookUp(word, 0, word.length);
+	}
+
+	@Benchmark
+	public boolean hasWordsStartingWith() {
+		return this.dictionary.hasWordsStartingWith(this.prefixes[this.nextIndex()]);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public SortedSet<String> wordsStartingWith() {
+		return this.dictionary.wordsStartingWith(this.prefixes[this.nextIndex()]);
+	}
+}
@@ -0,0 +1,48 @@
+package com.mhkb;
+
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for rolling a die and reading its faces.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DieBenchmark {
+
+	private static final String[] FACES = { "U", "H", "I", "M", "N", "QU" };
+
+	private final Die threadLocal = new Die(FACES);
+	private final Die seeded = new Die(FACES, new SplittableRandom(2030));
+
+	@Benchmark
+	public String roll() {
+		return this.threadLocal.roll();
+	}
+
+	@Benchmark
+	public String rollSeeded() {
+		return this.seeded.roll();
+	}
+
+	@Benchmark
+	public SortedMap<Integer, String> getValueMap() {
+		return this.threadLocal.getValueMap();
+	}
+}
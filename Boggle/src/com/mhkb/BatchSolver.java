@@ -0,0 +1,139 @@
+package com.mhkb;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Solves large batches of Boggle boards on every core and gathers
+ * <code>BoardStatistics</code> about them.
+ *
+ * <p>
+ * Implementation Details: the boards are solved by a parallel stream running
+ * in a <code>ForkJoinPool</code>. Every piece of the stream gets its own
+ * <code>BoggleSolver</code> and its own statistics, and the pieces are merged
+ * when they finish, so the workers share nothing but the dictionary, which is
+ * immutable.
+ *
+ */
+public final class BatchSolver {
+
+	/**
+	 * The per-task state: a solver and the statistics of the boards it solved.
+	 */
+	private static final class Partial {
+		final BoggleSolver solver;
+		final BoardStatistics stats = new BoardStatistics();
+
+		Partial(Lexicon lexicon, int minLength) {
+			this.solver = new BoggleSolver(lexicon, minLength);
+		}
+
+		void add(Board board) {
+			this.stats.add(board, this.solver.solve(board));
+		}
+
+		Partial combine(Partial other) {
+			this.stats.combine(other.stats);
+			return this;
+		}
+	}
+
+	private final Lexicon lexicon;
+	private final int minLength;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Initializes a batch solver that uses the specified dictionary, the minimum
+	 * word length of the standard game and the common fork-join pool.
+	 *
+	 * @param dictionary the dictionary of legal words
+	 */
+	public BatchSolver(Dictionary dictionary) {
+		this(dictionary, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Initializes a batch solver that uses the specified dictionary and the
+	 * minimum word length of the standard game, and runs in the specified pool.
+	 * The parallelism of the pool is the number of boards solved at the same
+	 * time.
+	 *
+	 * @param dictionary the dictionary of legal words
+	 * @param pool       the pool to solve the boards in
+	 */
+	public BatchSolver(Dictionary dictionary, ForkJoinPool pool) {
+		this(dictionary, DiceSet.CLASSIC, pool);
+	}
+
+	/**
+	 * Initializes a batch solver for boards rolled with the specified dice: it
+	 * uses the specified dictionary and the minimum word length of the dice,
+	 * and runs in the specified pool.
+	 *
+	 * @param dictionary the dictionary of legal words
+	 * @param diceSet    the dice the boards are rolled with
+	 * @param pool       the pool to solve the boards in
+	 */
+	public BatchSolver(Dictionary dictionary, DiceSet diceSet, ForkJoinPool pool) {
+		this.lexicon = dictionary.getLexicon();
+		this.minLength = diceSet.getMinWordLength();
+		this.pool = pool;
+	}
+
+	/**
+	 * Solves every board in the specified stream and returns statistics about
+	 * them. The stream is consumed in parallel.
+	 *
+	 * @param boards the boards to solve
+	 * @return the statistics of the boards
+	 */
+	public BoardStatistics solve(Stream<Board> boards) {
+		Stream<Board> parallel = boards.parallel().unordered();
+		Partial result = this.pool.submit(() -> parallel.collect(() -> new Partial(this.lexicon, this.minLength), Partial::add,
+				Partial::combine)).join();
+		return result.stats;
+	}
+
+	/**
+	 * Solves every board returned by the specified iterator and returns
+	 * statistics about them. The iterator is read by one thread at a time, in
+	 * batches, while the boards already read are solved in parallel.
+	 *
+	 * @param boards the boards to solve
+	 * @return the statistics of the boards
+	 */
+	public BoardStatistics solve(Iterator<Board> boards) {
+		Spliterator<Board> s = Spliterators.spliteratorUnknownSize(boards, Spliterator.NONNULL);
+		return this.solve(StreamSupport.stream(s, true));
+	}
+
+	/**
+	 * Returns a parallel stream of the specified number of boards, each made by
+	 * shuffling and rolling the 16 standard dice.
+	 *
+	 * @param count the number of boards
+	 * @return a stream of random boards
+	 */
+	public static Stream<Board> randomBoards(long count) {
+		return randomBoards(DiceSet.CLASSIC, count);
+	}
+
+	/**
+	 * Returns a parallel stream of the specified number of boards, each made by
+	 * shuffling and rolling the specified dice.
+	 *
+	 * @param diceSet the dice to roll
+	 * @param count   the number of boards
+	 * @return a stream of random boards
+	 */
+	public static Stream<Board> randomBoards(DiceSet diceSet, long count) {
+		return LongStream.range(0, count).parallel()
+				.mapToObj(i -> Boggle.randomBoard(diceSet, ThreadLocalRandom.current()));
+	}
+}
@@ -0,0 +1,349 @@
+package com.mhkb;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A blocked Bloom filter of words, used to reject most of the strings that
+ * are not in a lexicon without walking the lexicon. A filter may say that a
+ * string is present when it is not (a false positive), but never the
+ * opposite. As with the lexicon, the case of the letters is not important,
+ * and a string that contains anything other than a letter is always rejected.
+ *
+ * <p>
+ * A filter counts the queries it answers, the queries it rejects, and the
+ * false positives reported back to it by its owner, so that the rate it was
+ * built for can be checked against a real workload. Once built, a filter may
+ * be queried by many threads at once.
+ *
+ * <p>
+ * Implementation Details: the bits are split into blocks of 512 bits, the
+ * size of a cache line. The hash of a key picks one block and then sets or
+ * tests all <code>k</code> bits inside that block, so a query touches one
+ * cache line at most. Confining the bits of a key to one block makes the
+ * false-positive rate a little higher than that of a classic Bloom filter of
+ * the same size; the difference is small at the rates this filter is meant
+ * for (about 1%), and the query is several times cheaper. The hash is 64-bit
+ * FNV-1a over the letter indexes followed by the finalizer of MurmurHash3;
+ * the high half of it picks the block and the bits are derived from the low
+ * half by double hashing.
+ *
+ */
+public final class BloomFilter {
+
+	private static final int BLOCK_BITS = 512;
+	private static final int BLOCK_LONGS = BLOCK_BITS / Long.SIZE;
+	private static final int MAX_HASHES = 16;
+
+	// hash values are never negative, so a negative value can mark a bad key
+	private static final long INVALID = -1L;
+
+	private final long[] bits;
+	private final int blocks;
+	private final int hashes;
+	private final double falsePositiveRate;
+
+	private final LongAdder queries = new LongAdder();
+	private final LongAdder rejects = new LongAdder();
+	private final LongAdder falsePositives = new LongAdder();
+
+	/**
+	 * Initializes an empty filter sized for the specified number of keys and
+	 * false-positive rate.
+	 *
+	 * @param expectedKeys      the number of keys that will be added
+	 * @param falsePositiveRate the fraction of absent keys that may be let
+	 *                          through
+	 * @throws IllegalArgumentException if <code>expectedKeys</code> is negative
+	 *                                  or <code>falsePositiveRate</code> is not
+	 *                                  strictly between 0 and 1
+	 */
+	public BloomFilter(int expectedKeys, double falsePositiveRate) {
+		if (expectedKeys < 0) {
+			throw new IllegalArgumentException("negative number of keys: " + expectedKeys);
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("false-positive rate must be between 0 and 1: " + falsePositiveRate);
+		}
+		int n = Math.max(1, expectedKeys);
+		double m = -n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+		this.blocks = (int) Math.min(Integer.MAX_VALUE / BLOCK_LONGS, (long) Math.ceil(m / BLOCK_BITS));
+		this.bits = new long[this.blocks * BLOCK_LONGS];
+		this.hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(m / n * Math.log(2))));
+		this.falsePositiveRate = falsePositiveRate;
+	}
+
+	/**
+	 * Returns a filter of the words of the specified lexicon.
+	 *
+	 * @param lexicon           a lexicon
+	 * @param falsePositiveRate the fraction of absent words that may be let
+	 *                          through
+	 * @return a filter holding every word of the lexicon
+	 */
+	public static BloomFilter ofWords(Lexicon lexicon, double falsePositiveRate) {
+		BloomFilter filter = new BloomFilter(lexicon.size(), falsePositiveRate);
+		filter.addAll(lexicon, lexicon.root(), new char[16], 0, false);
+		return filter;
+	}
+
+	/**
+	 * Returns a filter of the non-empty prefixes of the words of the specified
+	 * lexicon, including the words themselves.
+	 *
+	 * @param lexicon           a lexicon
+	 * @param falsePositiveRate the fraction of absent prefixes that may be let
+	 *                          through
+	 * @return a filter holding every prefix of every word of the lexicon
+	 */
+	public static BloomFilter ofPrefixes(Lexicon lexicon, double falsePositiveRate) {
+		BloomFilter filter = new BloomFilter(countPrefixes(lexicon, lexicon.root()), falsePositiveRate);
+		filter.addAll(lexicon, lexicon.root(), new char[16], 0, true);
+		return filter;
+	}
+
+	private static int countPrefixes(Lexicon lexicon, int node) {
+		int count = 0;
+		for (int e = lexicon.firstEdge(node); e != Lexicon.NONE; e = lexicon.nextEdge(e)) {
+			count += 1 + countPrefixes(lexicon, lexicon.edgeTarget(e));
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the words (or every prefix) below the specified node, whose path is
+	 * the first <code>length</code> letters of <code>path</code>.
+	 */
+	private void addAll(Lexicon lexicon, int node, char[] path, int length, boolean prefixes) {
+		if (length > 0 && (prefixes || lexicon.isWord(node))) {
+			this.add(path, 0, length);
+		}
+		if (length == path.length) {
+			path = Arrays.copyOf(path, length * 2);
+		}
+		for (int e = lexicon.firstEdge(node); e != Lexicon.NONE; e = lexicon.nextEdge(e)) {
+			path[length] = lexicon.edgeLetter(e);
+			this.addAll(lexicon, lexicon.edgeTarget(e), path, length + 1, prefixes);
+		}
+	}
+
+	/**
+	 * Adds the specified key to the filter. A key that contains anything other
+	 * than a letter is ignored. Keys must not be added while other threads query
+	 * the filter.
+	 *
+	 * @param key a word
+	 */
+	public void add(CharSequence key) {
+		long h = hash(key);
+		if (h != INVALID) {
+			this.set(h);
+		}
+	}
+
+	/**
+	 * Adds the key made of the specified slice of an array to the filter.
+	 *
+	 * @param key    an array holding the letters of a word
+	 * @param offset the index of the first letter
+	 * @param length the number of letters
+	 */
+	public void add(char[] key, int offset, int length) {
+		long h = hash(key, offset, length);
+		if (h != INVALID) {
+			this.set(h);
+		}
+	}
+
+	/**
+	 * Returns false if the specified key is certainly not in the filter, and
+	 * true if it may be.
+	 *
+	 * @param key a word
+	 * @return false if the key was never added, and true if it may have been
+	 */
+	public boolean mightContain(CharSequence key) {
+		return this.count(this.test(hash(key)));
+	}
+
+	/**
+	 * Returns false if the key made of the specified slice of an array is
+	 * certainly not in the filter, and true if it may be.
+	 *
+	 * @param key    an array holding the letters of a word
+	 * @param offset the index of the first letter
+	 * @param length the number of letters
+	 * @return false if the key was never added, and true if it may have been
+	 */
+	public boolean mightContain(char[] key, int offset, int length) {
+		return this.count(this.test(hash(key, offset, length)));
+	}
+
+	private boolean count(boolean passed) {
+		this.queries.increment();
+		if (!passed) {
+			this.rejects.increment();
+		}
+		return passed;
+	}
+
+	/**
+	 * Records that a key let through by the filter turned out to be absent.
+	 */
+	void recordFalsePositive() {
+		this.falsePositives.increment();
+	}
+
+	private static long hash(CharSequence key) {
+		long h = 0xCBF29CE484222325L;
+		for (int i = 0, n = key.length(); i < n; i++) {
+			int l = Dawg.letterIndex(key.charAt(i));
+			if (l < 0) {
+				return INVALID;
+			}
+			h = (h ^ (l + 1)) * 0x100000001B3L;
+		}
+		return mix(h);
+	}
+
+	private static long hash(char[] key, int offset, int length) {
+		long h = 0xCBF29CE484222325L;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			int l = Dawg.letterIndex(key[i]);
+			if (l < 0) {
+				return INVALID;
+			}
+			h = (h ^ (l + 1)) * 0x100000001B3L;
+		}
+		return mix(h);
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h >>> 1;
+	}
+
+	private void set(long h) {
+		int base = (int) (((h >>> 31) * this.blocks) >>> 32) * BLOCK_LONGS;
+		int h1 = (int) h;
+		int h2 = (int) ((h * 0x9E3779B97F4A7C15L) >>> 32) | 1;
+		for (int i = 0; i < this.hashes; i++) {
+			int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+			this.bits[base + (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	private boolean test(long h) {
+		if (h == INVALID) {
+			return false;
+		}
+		int base = (int) (((h >>> 31) * this.blocks) >>> 32) * BLOCK_LONGS;
+		int h1 = (int) h;
+		int h2 = (int) ((h * 0x9E3779B97F4A7C15L) >>> 32) | 1;
+		for (int i = 0; i < this.hashes; i++) {
+			int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+			if ((this.bits[base + (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the false-positive rate this filter was sized for.
+	 *
+	 * @return the target false-positive rate
+	 */
+	public double getFalsePositiveRate() {
+		return this.falsePositiveRate;
+	}
+
+	/**
+	 * Returns the number of bits in the filter.
+	 *
+	 * @return the size of the filter in bits
+	 */
+	public long getBitCount() {
+		return (long) this.bits.length * Long.SIZE;
+	}
+
+	/**
+	 * Returns the number of bits set or tested for each key.
+	 *
+	 * @return the number of hash functions
+	 */
+	public int getHashCount() {
+		return this.hashes;
+	}
+
+	/**
+	 * Returns the number of queries answered so far.
+	 *
+	 * @return the number of queries
+	 */
+	public long getQueries() {
+		return this.queries.sum();
+	}
+
+	/**
+	 * Returns the number of queries answered with false so far.
+	 *
+	 * @return the number of rejected queries
+	 */
+	public long getRejects() {
+		return this.rejects.sum();
+	}
+
+	/**
+	 * Returns the number of queries let through that turned out to be absent.
+	 *
+	 * @return the number of false positives
+	 */
+	public long getFalsePositives() {
+		return this.falsePositives.sum();
+	}
+
+	/**
+	 * Returns the fraction of queries let through, or 0 if there have been no
+	 * queries.
+	 *
+	 * @return the fraction of queries answered with true
+	 */
+	public double getHitRate() {
+		long q = this.getQueries();
+		return q == 0 ? 0 : (q - this.getRejects()) / (double) q;
+	}
+
+	/**
+	 * Returns the fraction of queries rejected, or 0 if there have been no
+	 * queries.
+	 *
+	 * @return the fraction of queries answered with false
+	 */
+	public double getRejectRate() {
+		long q = this.getQueries();
+		return q == 0 ? 0 : this.getRejects() / (double) q;
+	}
+
+	/**
+	 * Returns the fraction of absent keys that were let through, or 0 if no
+	 * absent key has been queried.
+	 *
+	 * @return the measured false-positive rate
+	 */
+	public double getObservedFalsePositiveRate() {
+		long f = this.getFalsePositives();
+		long absent = f + this.getRejects();
+		return absent == 0 ? 0 : f / (double) absent;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BloomFilter[bits=%d, hashes=%d, queries=%d, rejects=%d, falsePositives=%d]",
+				this.getBitCount(), this.hashes, this.getQueries(), this.getRejects(), this.getFalsePositives());
+	}
+}
@@ -0,0 +1,351 @@
+package com.mhkb;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable square Boggle board: the strings on the upturned faces of the
+ * dice, in row-major order. The standard board is 4x4 (see <code>SIDE</code>
+ * and the static methods, which are about the standard board); Big Boggle is
+ * 5x5, Super Big Boggle is 6x6, and any side up to <code>MAX_SIDE</code> is
+ * allowed. A board knows nothing about how it is drawn; the solver, path
+ * validation and the view all share the same adjacency rules from this class.
+ *
+ * <p>
+ * Implementation Details: the letters of the faces are stored in a single
+ * <code>char</code> array with <code>MAX_FACE_LENGTH</code> slots per die.
+ * Sets of dice, such as the neighbors of a die or the dice already used by a
+ * path, are <code>long</code> bit masks where bit i stands for die i, which
+ * is enough for an 8x8 board. The neighbor masks of every side are computed
+ * once, so finding the neighbors of a die or testing whether a die has been
+ * used does not create any objects.
+ *
+ */
+public final class Board {
+
+	/**
+	 * The number of dice in a row or column of the standard board.
+	 */
+	public static final int SIDE = 4;
+
+	/**
+	 * The number of dice on the standard board.
+	 */
+	public static final int SIZE = SIDE * SIDE;
+
+	/**
+	 * The largest number of dice in a row or column of any board, so that a set
+	 * of dice fits in a <code>long</code>.
+	 */
+	public static final int MAX_SIDE = 8;
+
+	/**
+	 * The largest number of letters on a face (the "QU" face has two).
+	 */
+	public static final int MAX_FACE_LENGTH = 2;
+
+	/**
+	 * NEIGHBORS[side][i] is the bit mask of the dice surrounding die i
+	 * horizontally, vertically and diagonally on a board with the given side.
+	 */
+	private static final long[][] NEIGHBORS = new long[MAX_SIDE + 1][];
+
+	static {
+		for (int side = 1; side <= MAX_SIDE; side++) {
+			final int size = side * side;
+			NEIGHBORS[side] = new long[size];
+			for (int idx = 0; idx < size; idx++) {
+				final int row = idx / side;
+				final int col = idx % side;
+				final int minRow = Math.max(0, row - 1);
+				final int maxRow = Math.min(side - 1, row + 1);
+				final int minCol = Math.max(0, col - 1);
+				final int maxCol = Math.min(side - 1, col + 1);
+				long mask = 0;
+				for (int i = minRow; i <= maxRow; i++) {
+					for (int j = minCol; j <= maxCol; j++) {
+						int n = i * side + j;
+						if (n != idx) {
+							mask |= 1L << n;
+						}
+					}
+				}
+				NEIGHBORS[side][idx] = mask;
+			}
+		}
+	}
+
+	private final int side;
+	private final long[] neighbors;
+	private final String[] faces;
+	private final char[] letters;
+	private final byte[] faceLength;
+
+	/**
+	 * Initializes a board with the specified face strings in row-major order.
+	 * The number of faces is the square of the side of the board.
+	 *
+	 * @param faces the strings on the upturned faces of the dice
+	 * @throws IllegalArgumentException if the number of faces is not the square
+	 *                                  of a side from 1 to
+	 *                                  <code>MAX_SIDE</code>, or a face is
+	 *                                  empty, too long, or not made of letters
+	 */
+	public Board(String[] faces) {
+		this.side = (int) Math.round(Math.sqrt(faces.length));
+		if (this.side < 1 || this.side > MAX_SIDE || this.side * this.side != faces.length) {
+			throw new IllegalArgumentException("a board is a square of at most " + MAX_SIDE * MAX_SIDE + " dice");
+		}
+		final int size = faces.length;
+		this.neighbors = NEIGHBORS[this.side];
+		this.faces = faces.clone();
+		this.letters = new char[size * MAX_FACE_LENGTH];
+		this.faceLength = new byte[size];
+		for (int i = 0; i < size; i++) {
+			String face = faces[i];
+			if (face.isEmpty() || face.length() > MAX_FACE_LENGTH) {
+				throw new IllegalArgumentException("bad face: " + face);
+			}
+			for (int j = 0; j < face.length(); j++) {
+				if (Dawg.letterIndex(face.charAt(j)) < 0) {
+					throw new IllegalArgumentException("bad face: " + face);
+				}
+				this.letters[i * MAX_FACE_LENGTH + j] = Character.toLowerCase(face.charAt(j));
+			}
+			this.faceLength[i] = (byte) face.length();
+		}
+	}
+
+	/**
+	 * Returns the board formed by the current values of the specified dice.
+	 *
+	 * @pre. <code>dice.size()</code> is the square of a side from 1 to
+	 *       <code>MAX_SIDE</code>
+	 *
+	 * @param dice the dice in row-major order
+	 * @return the board showing the current values of the dice
+	 */
+	public static Board of(List<Die> dice) {
+		String[] faces = new String[dice.size()];
+		for (int i = 0; i < faces.length; i++) {
+			faces[i] = dice.get(i).getValue();
+		}
+		return new Board(faces);
+	}
+
+	/**
+	 * Returns the bit mask of the dice surrounding the specified die on the
+	 * standard 4x4 board.
+	 *
+	 * @param die the index of a die
+	 * @return the bit mask of the neighbors of the die
+	 */
+	public static int neighbors(int die) {
+		return (int) NEIGHBORS[SIDE][die];
+	}
+
+	/**
+	 * Returns the bit mask of the dice surrounding the specified die on a board
+	 * with the specified side.
+	 *
+	 * @param side the number of dice in a row of the board
+	 * @param die  the index of a die
+	 * @return the bit mask of the neighbors of the die
+	 */
+	public static long neighbors(int side, int die) {
+		return NEIGHBORS[side][die];
+	}
+
+	/**
+	 * Returns true if the two specified dice are next to each other on the
+	 * standard 4x4 board.
+	 *
+	 * @param a the index of a die
+	 * @param b the index of another die
+	 * @return true if the dice are adjacent, and false otherwise
+	 */
+	public static boolean isAdjacent(int a, int b) {
+		return (neighbors(a) & (1 << b)) != 0;
+	}
+
+	/**
+	 * Returns the number of dice in a row or column of this board.
+	 *
+	 * @return the side of this board
+	 */
+	public int getSide() {
+		return this.side;
+	}
+
+	/**
+	 * Returns the number of dice on this board.
+	 *
+	 * @return the number of dice
+	 */
+	public int size() {
+		return this.faces.length;
+	}
+
+	/**
+	 * Returns the bit mask of the dice surrounding the specified die on this
+	 * board.
+	 *
+	 * @param die the index of a die
+	 * @return the bit mask of the neighbors of the die
+	 */
+	public long getNeighbors(int die) {
+		return this.neighbors[die];
+	}
+
+	/**
+	 * Returns the string on the upturned face of the specified die.
+	 *
+	 * @param die the index of a die
+	 * @return the face string of the die
+	 */
+	public String getFace(int die) {
+		return this.faces[die];
+	}
+
+	/**
+	 * Returns the number of letters on the upturned face of the specified die.
+	 *
+	 * @param die the index of a die
+	 * @return the number of letters on the face
+	 */
+	public int faceLength(int die) {
+		return this.faceLength[die];
+	}
+
+	/**
+	 * Returns a letter, in lower case, on the upturned face of the specified
+	 * die.
+	 *
+	 * @param die the index of a die
+	 * @param i   the position of the letter on the face
+	 * @return the letter in lower case
+	 */
+	public char letter(int die, int i) {
+		return this.letters[die * MAX_FACE_LENGTH + i];
+	}
+
+	/**
+	 * Returns true if the specified dice indexes form a legal path on the
+	 * standard 4x4 board: every die is on the board, each die is next to the one
+	 * before it, and no die is used more than once.
+	 *
+	 * @param path a sequence of dice indexes
+	 * @return true if the path is legal, and false otherwise
+	 */
+	public static boolean isPath(int[] path) {
+		return isPath(SIDE, path);
+	}
+
+	/**
+	 * Returns true if the specified dice indexes form a legal path on this
+	 * board.
+	 *
+	 * @param path a sequence of dice indexes
+	 * @return true if the path is legal, and false otherwise
+	 * @see #isPath(int[])
+	 */
+	public boolean hasPath(int[] path) {
+		return isPath(this.side, path);
+	}
+
+	private static boolean isPath(int side, int[] path) {
+		long[] adjacent = NEIGHBORS[side];
+		long visited = 0;
+		for (int i = 0; i < path.length; i++) {
+			int die = path[i];
+			if (die < 0 || die >= adjacent.length || (visited & (1L << die)) != 0) {
+				return false;
+			}
+			if (i > 0 && (adjacent[path[i - 1]] & (1L << die)) == 0) {
+				return false;
+			}
+			visited |= 1L << die;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the word, in lower case, spelled by the specified path.
+	 *
+	 * @param path a sequence of dice indexes
+	 * @return the letters of the faces along the path
+	 */
+	public String spell(int[] path) {
+		StringBuilder b = new StringBuilder();
+		for (int die : path) {
+			b.append(this.letters, die * MAX_FACE_LENGTH, this.faceLength[die]);
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Returns a path of dice that spells the specified word, or
+	 * <code>null</code> if the word cannot be traced on this board. The case of
+	 * the word is not important.
+	 *
+	 * @param word a word
+	 * @return the dice indexes that spell the word, or <code>null</code>
+	 */
+	public int[] findPath(CharSequence word) {
+		int[] path = new int[this.size()];
+		for (int die = 0; die < path.length; die++) {
+			int depth = this.trace(word, 0, die, 0, path);
+			if (depth > 0) {
+				return Arrays.copyOf(path, depth);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Tries to spell the rest of a word starting at the specified die.
+	 *
+	 * @param word    the word being traced
+	 * @param pos     the number of letters already spelled
+	 * @param die     the next die on the path
+	 * @param visited the bit mask of the dice already on the path
+	 * @param path    the dice on the path so far
+	 * @return the length of the completed path, or 0 if the word cannot be
+	 *         finished from this die
+	 */
+	private int trace(CharSequence word, int pos, int die, long visited, int[] path) {
+		int n = this.faceLength[die];
+		if (pos + n > word.length()) {
+			return 0;
+		}
+		for (int i = 0; i < n; i++) {
+			if (Character.toLowerCase(word.charAt(pos + i)) != this.letters[die * MAX_FACE_LENGTH + i]) {
+				return 0;
+			}
+		}
+		int depth = Long.bitCount(visited);
+		path[depth] = die;
+		pos += n;
+		visited |= 1L << die;
+		if (pos == word.length()) {
+			return depth + 1;
+		}
+		for (long m = this.neighbors[die] & ~visited; m != 0; m &= m - 1) {
+			int result = this.trace(word, pos, Long.numberOfTrailingZeros(m), visited, path);
+			if (result > 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		for (int i = 0, n = this.size(); i < n; i++) {
+			b.append(this.faces[i]);
+			b.append(i % this.side == this.side - 1 ? (i == n - 1 ? "" : "\n") : " ");
+		}
+		return b.toString();
+	}
+}
@@ -0,0 +1,148 @@
+package com.mhkb;
+
+/**
+ * A rolled Boggle board packed into 128 bits. For each of the 16 positions on
+ * the board, a board code records which of the standard dice is there and
+ * which face of that die is showing. Codes are immutable values, so they can
+ * be cached, compared, logged and sent over the wire in place of a list of
+ * dice.
+ *
+ * <p>
+ * Implementation Details: the high word holds 16 four-bit die numbers and the
+ * low word holds 16 three-bit face indexes; position i of the board uses bits
+ * 4i to 4i+3 of the high word and bits 3i to 3i+2 of the low word. Die numbers
+ * are indexes into the standard Boggle dice and face indexes count from 0.
+ *
+ */
+public final class BoardCode {
+
+	private static final int DIE_BITS = 4;
+	private static final int FACE_BITS = 3;
+
+	/**
+	 * The largest number of faces a die in a board code can have.
+	 */
+	public static final int MAX_FACES = 1 << FACE_BITS;
+
+	private final long high;
+	private final long low;
+
+	/**
+	 * Initializes a board code from its two words.
+	 *
+	 * @param high the die numbers
+	 * @param low  the face indexes
+	 */
+	public BoardCode(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * Returns the board code of the specified dice and faces.
+	 *
+	 * @pre. <code>dice.length == 16</code> and <code>faces.length == 16</code>
+	 *
+	 * @param dice  the die number at each position on the board
+	 * @param faces the face index of the die at each position on the board
+	 * @return the board code
+	 * @throws IllegalArgumentException if a die number or face index is too large
+	 *                                  to encode
+	 */
+	public static BoardCode of(int[] dice, int[] faces) {
+		long high = 0;
+		long low = 0;
+		for (int i = 0; i < Board.SIZE; i++) {
+			if (dice[i] < 0 || dice[i] >= 1 << DIE_BITS || faces[i] < 0 || faces[i] >= MAX_FACES) {
+				throw new IllegalArgumentException("cannot encode die " + dice[i] + " face " + faces[i]);
+			}
+			high |= (long) dice[i] << (DIE_BITS * i);
+			low |= (long) faces[i] << (FACE_BITS * i);
+		}
+		return new BoardCode(high, low);
+	}
+
+	/**
+	 * Returns the board code written by <code>toString</code>.
+	 *
+	 * @param s 32 hexadecimal digits
+	 * @return the board code
+	 * @throws IllegalArgumentException if the string is not 32 hexadecimal digits
+	 */
+	public static BoardCode parse(String s) {
+		if (s.length() != 32) {
+			throw new IllegalArgumentException("not a board code: " + s);
+		}
+		try {
+			return new BoardCode(Long.parseUnsignedLong(s.substring(0, 16), 16),
+					Long.parseUnsignedLong(s.substring(16), 16));
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("not a board code: " + s, ex);
+		}
+	}
+
+	/**
+	 * Returns the high word of the code, which holds the die numbers.
+	 *
+	 * @return the high word of the code
+	 */
+	public long getHigh() {
+		return this.high;
+	}
+
+	/**
+	 * Returns the low word of the code, which holds the face indexes.
+	 *
+	 * @return the low word of the code
+	 */
+	public long getLow() {
+		return this.low;
+	}
+
+	/**
+	 * Returns the number of the die at the specified position.
+	 *
+	 * @param position a position on the board, in row-major order
+	 * @return the number of the die at the position
+	 */
+	public int dieAt(int position) {
+		return (int) (this.high >>> (DIE_BITS * position)) & ((1 << DIE_BITS) - 1);
+	}
+
+	/**
+	 * Returns the index of the face showing at the specified position.
+	 *
+	 * @param position a position on the board, in row-major order
+	 * @return the index of the face showing at the position
+	 */
+	public int faceAt(int position) {
+		return (int) (this.low >>> (FACE_BITS * position)) & (MAX_FACES - 1);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(this.high * 31 + this.low);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BoardCode other = (BoardCode) obj;
+		return this.high == other.high && this.low == other.low;
+	}
+
+	/**
+	 * Returns the code as 32 hexadecimal digits, high word first.
+	 *
+	 * @return the code as 32 hexadecimal digits
+	 */
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", this.high, this.low);
+	}
+}
@@ -0,0 +1,259 @@
+package com.mhkb;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Searches for boards of the standard dice whose solutions fall in a range,
+ * such as boards with at least 150 words for a tournament or boards with 20
+ * to 40 words for beginners.
+ *
+ * <p>
+ * A search is a stream of board codes. The stream is infinite and parallel:
+ * use <code>limit</code> to take as many boards as are needed, and
+ * <code>sequential</code> to search on the calling thread only. The same
+ * board may be found more than once.
+ *
+ * <p>
+ * Implementation Details: each thread of the stream runs its own simulated
+ * annealing over the arrangement of the dice, with the solver as the fitness
+ * function. A step either swaps two dice or turns one die to another face,
+ * and the energy of a board is how far its solution is from the range. A
+ * worse board is accepted with a probability that falls as the temperature
+ * cools, and a walk that has not reached the range after
+ * <code>MAX_STEPS</code> steps starts again from a random board. When a board
+ * in the range is found it is emitted and the walk carries on from it, so
+ * boards that are close to each other tend to come out in runs. Every board
+ * evaluated is counted, which gives the rate of the search.
+ *
+ */
+public final class BoardOptimizer {
+
+	/**
+	 * The most steps a walk takes before it starts again from a random board.
+	 */
+	static final int MAX_STEPS = 2000;
+
+	private static final double START_TEMPERATURE = 8.0;
+	private static final double COOLING = 0.997;
+
+	private final Lexicon lexicon;
+	private final SplittableRandom seeds;
+	private final LongAdder evaluations;
+	private final long created;
+
+	/**
+	 * Initializes an optimizer that solves boards with the specified dictionary
+	 * and the specified random seed.
+	 *
+	 * @param dictionary the dictionary of legal words
+	 * @param seed       the seed of the random walks
+	 */
+	public BoardOptimizer(Dictionary dictionary, long seed) {
+		this.lexicon = dictionary.getLexicon();
+		this.seeds = new SplittableRandom(seed);
+		this.evaluations = new LongAdder();
+		this.created = System.nanoTime();
+	}
+
+	/**
+	 * Returns a stream of boards with at least <code>min</code> and at most
+	 * <code>max</code> words.
+	 *
+	 * @param min the fewest words a board may have
+	 * @param max the most words a board may have
+	 * @return an infinite parallel stream of boards in the range
+	 */
+	public Stream<BoardCode> withWords(int min, int max) {
+		return this.search(List::size, min, max);
+	}
+
+	/**
+	 * Returns a stream of boards worth at least <code>min</code> and at most
+	 * <code>max</code> points.
+	 *
+	 * @param min the fewest points a board may be worth
+	 * @param max the most points a board may be worth
+	 * @return an infinite parallel stream of boards in the range
+	 */
+	public Stream<BoardCode> withPoints(int min, int max) {
+		return this.search(BoardOptimizer::points, min, max);
+	}
+
+	/**
+	 * Returns a stream of boards for which the specified measure of the solution
+	 * is at least <code>min</code> and at most <code>max</code>. The measure
+	 * should change gradually as the board changes for the search to work well.
+	 *
+	 * @param measure a function of the words on a board
+	 * @param min     the smallest value of the measure
+	 * @param max     the largest value of the measure
+	 * @return an infinite parallel stream of boards in the range
+	 * @throws IllegalArgumentException if <code>min &gt; max</code>
+	 */
+	public Stream<BoardCode> search(ToIntFunction<List<WordPath>> measure, int min, int max) {
+		if (min > max) {
+			throw new IllegalArgumentException("empty range: " + min + " to " + max);
+		}
+		ThreadLocal<Walk> walks = ThreadLocal.withInitial(() -> new Walk(measure, min, max, this.split()));
+		return Stream.generate(() -> walks.get().next()).parallel();
+	}
+
+	private synchronized SplittableRandom split() {
+		return this.seeds.split();
+	}
+
+	private static int points(List<WordPath> words) {
+		int points = 0;
+		for (WordPath w : words) {
+			points += Boggle.score(w.getWord());
+		}
+		return points;
+	}
+
+	/**
+	 * Returns the number of boards solved by all of the searches so far.
+	 *
+	 * @return the number of boards evaluated
+	 */
+	public long getEvaluations() {
+		return this.evaluations.sum();
+	}
+
+	/**
+	 * Returns the number of boards solved per second since this optimizer was
+	 * created.
+	 *
+	 * @return the rate at which boards are evaluated
+	 */
+	public double getEvaluationsPerSecond() {
+		double seconds = (System.nanoTime() - this.created) / 1e9;
+		return this.getEvaluations() / seconds;
+	}
+
+	/**
+	 * One thread's random walk over the arrangements of the dice.
+	 */
+	private final class Walk {
+		private final ToIntFunction<List<WordPath>> measure;
+		private final int min;
+		private final int max;
+		private final SplittableRandom rng;
+		private final BoggleSolver solver;
+		private final int[] dice = new int[Board.SIZE];
+		private final int[] faces = new int[Board.SIZE];
+		private double temperature;
+		private int energy;
+		private int steps;
+
+		Walk(ToIntFunction<List<WordPath>> measure, int min, int max, SplittableRandom rng) {
+			this.measure = measure;
+			this.min = min;
+			this.max = max;
+			this.rng = rng;
+			this.solver = new BoggleSolver(BoardOptimizer.this.lexicon, Boggle.MIN_WORD_LENGTH);
+			this.restart();
+		}
+
+		private void restart() {
+			BoardCode code = Boggle.randomCode(this.rng);
+			for (int i = 0; i < Board.SIZE; i++) {
+				this.dice[i] = code.dieAt(i);
+				this.faces[i] = code.faceAt(i);
+			}
+			this.temperature = START_TEMPERATURE;
+			this.steps = 0;
+			this.energy = this.evaluate();
+		}
+
+		/**
+		 * Returns how far the solution of the current board is from the range.
+		 */
+		private int evaluate() {
+			BoardOptimizer.this.evaluations.increment();
+			Board board = Boggle.boardOf(BoardCode.of(this.dice, this.faces));
+			int value = this.measure.applyAsInt(this.solver.solve(board));
+			return value < this.min ? this.min - value : value > this.max ? value - this.max : 0;
+		}
+
+		/**
+		 * Walks until the current board is in the range and returns its code.
+		 */
+		BoardCode next() {
+			// move at least once, to leave the board that was returned last time
+			boolean moved = false;
+			do {
+				moved |= this.step();
+			} while (this.energy > 0 || !moved);
+			return BoardCode.of(this.dice, this.faces);
+		}
+
+		/**
+		 * Tries one step and returns true if the board changed.
+		 */
+		private boolean step() {
+			if (this.steps++ == MAX_STEPS) {
+				this.restart();
+				return true;
+			}
+			int a = this.rng.nextInt(Board.SIZE);
+			int b = a;
+			int face = this.faces[a];
+			if (this.rng.nextBoolean()) {
+				b = (a + 1 + this.rng.nextInt(Board.SIZE - 1)) % Board.SIZE;
+				this.swap(a, b);
+			} else {
+				int n = Boggle.numberOfFaces(this.dice[a]);
+				this.faces[a] = (face + 1 + this.rng.nextInt(n - 1)) % n;
+			}
+			int next = this.evaluate();
+			int delta = next - this.energy;
+			this.temperature *= COOLING;
+			if (delta <= 0 || this.rng.nextDouble() < Math.exp(-delta / this.temperature)) {
+				this.energy = next;
+				return true;
+			}
+			if (a != b) {
+				this.swap(a, b);
+			} else {
+				this.faces[a] = face;
+			}
+			return false;
+		}
+
+		private void swap(int a, int b) {
+			int die = this.dice[a];
+			this.dice[a] = this.dice[b];
+			this.dice[b] = die;
+			int face = this.faces[a];
+			this.faces[a] = this.faces[b];
+			this.faces[b] = face;
+		}
+	}
+
+	/**
+	 * Searches for boards and prints their codes, their numbers of words and
+	 * points, and the rate of the search. The arguments are the smallest and
+	 * largest number of words (150 and 10000 by default), and the number of
+	 * boards to find (10 by default).
+	 *
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+		int min = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+		int max = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int count = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		Dictionary dictionary = new Dictionary();
+		BoardOptimizer optimizer = new BoardOptimizer(dictionary, System.nanoTime());
+		optimizer.withWords(min, max).limit(count).forEach(code -> {
+			BoggleSolver solver = new BoggleSolver(dictionary.getLexicon(), Boggle.MIN_WORD_LENGTH);
+			List<WordPath> words = solver.solve(Boggle.boardOf(code));
+			System.out.println(code + " " + words.size() + " words " + points(words) + " points");
+		});
+		System.out.printf("%d boards evaluated, %.0f per second%n", optimizer.getEvaluations(),
+				optimizer.getEvaluationsPerSecond());
+	}
+}
@@ -0,0 +1,176 @@
+package com.mhkb;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Totals gathered over a batch of solved Boggle boards: how many boards were
+ * solved, how many words and points they held, how often each letter was
+ * showing, and histograms of words and points per board.
+ *
+ * <p>
+ * A statistics object is filled in by a single thread. Batches solved in
+ * parallel each fill their own object and are merged with
+ * <code>combine</code> at the end, so no counter is ever shared between
+ * threads.
+ *
+ */
+public final class BoardStatistics {
+
+	/**
+	 * Boards with this many words or points or more are counted in the last
+	 * bucket of the histograms.
+	 */
+	public static final int HISTOGRAM_SIZE = 1024;
+
+	private long boards;
+	private long words;
+	private long points;
+	private int maxWords;
+	private int maxPoints;
+	private final long[] letterCounts = new long[26];
+	private final long[] wordHistogram = new long[HISTOGRAM_SIZE];
+	private final long[] pointHistogram = new long[HISTOGRAM_SIZE];
+
+	/**
+	 * Adds one solved board to the totals.
+	 *
+	 * @param board the board
+	 * @param found the words found on the board
+	 */
+	public void add(Board board, List<WordPath> found) {
+		int score = 0;
+		for (WordPath w : found) {
+			score += Boggle.score(w.getWord());
+		}
+		for (int i = 0, n = board.size(); i < n; i++) {
+			this.letterCounts[board.letter(i, 0) - 'a']++;
+		}
+		this.boards++;
+		this.words += found.size();
+		this.points += score;
+		this.maxWords = Math.max(this.maxWords, found.size());
+		this.maxPoints = Math.max(this.maxPoints, score);
+		this.wordHistogram[Math.min(found.size(), HISTOGRAM_SIZE - 1)]++;
+		this.pointHistogram[Math.min(score, HISTOGRAM_SIZE - 1)]++;
+	}
+
+	/**
+	 * Adds the totals of another statistics object to this one.
+	 *
+	 * @param other the statistics to add
+	 */
+	public void combine(BoardStatistics other) {
+		this.boards += other.boards;
+		this.words += other.words;
+		this.points += other.points;
+		this.maxWords = Math.max(this.maxWords, other.maxWords);
+		this.maxPoints = Math.max(this.maxPoints, other.maxPoints);
+		for (int i = 0; i < this.letterCounts.length; i++) {
+			this.letterCounts[i] += other.letterCounts[i];
+		}
+		for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+			this.wordHistogram[i] += other.wordHistogram[i];
+			this.pointHistogram[i] += other.pointHistogram[i];
+		}
+	}
+
+	/**
+	 * Returns the number of boards solved.
+	 *
+	 * @return the number of boards solved
+	 */
+	public long getBoards() {
+		return this.boards;
+	}
+
+	/**
+	 * Returns the total number of words found on all boards.
+	 *
+	 * @return the total number of words found
+	 */
+	public long getWords() {
+		return this.words;
+	}
+
+	/**
+	 * Returns the total number of points on all boards.
+	 *
+	 * @return the total number of points
+	 */
+	public long getPoints() {
+		return this.points;
+	}
+
+	/**
+	 * Returns the largest number of words found on one board.
+	 *
+	 * @return the largest number of words on one board
+	 */
+	public int getMaxWords() {
+		return this.maxWords;
+	}
+
+	/**
+	 * Returns the largest number of points on one board.
+	 *
+	 * @return the largest number of points on one board
+	 */
+	public int getMaxPoints() {
+		return this.maxPoints;
+	}
+
+	/**
+	 * Returns the average number of words per board.
+	 *
+	 * @return the average number of words per board, or 0 if no boards were
+	 *         solved
+	 */
+	public double getAverageWords() {
+		return this.boards == 0 ? 0 : (double) this.words / this.boards;
+	}
+
+	/**
+	 * Returns how many times the specified letter was showing on a die. A face
+	 * of two letters, such as "QU", counts as its first letter.
+	 *
+	 * @param letter a letter in either case
+	 * @return the number of times the letter was showing
+	 * @throws IllegalArgumentException if <code>letter</code> is not a letter
+	 */
+	public long getLetterCount(char letter) {
+		int l = Dawg.letterIndex(letter);
+		if (l < 0) {
+			throw new IllegalArgumentException("not a letter: " + letter);
+		}
+		return this.letterCounts[l];
+	}
+
+	/**
+	 * Returns a new array where element i is the number of boards holding
+	 * exactly i words. The last element counts every board with at least that
+	 * many words.
+	 *
+	 * @return the histogram of words per board
+	 */
+	public long[] getWordHistogram() {
+		return this.wordHistogram.clone();
+	}
+
+	/**
+	 * Returns a new array where element i is the number of boards worth exactly
+	 * i points. The last element counts every board worth at least that many
+	 * points.
+	 *
+	 * @return the histogram of points per board
+	 */
+	public long[] getPointHistogram() {
+		return this.pointHistogram.clone();
+	}
+
+	@Override
+	public String toString() {
+		return "BoardStatistics [boards=" + boards + ", words=" + words + ", points=" + points + ", maxWords="
+				+ maxWords + ", maxPoints=" + maxPoints + ", letterCounts=" + Arrays.toString(letterCounts) + "]";
+	}
+}
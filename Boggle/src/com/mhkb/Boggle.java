@@ -1,108 +1,636 @@
 package com.mhkb;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
 
 /**
  * A class that models how the game of Boggle is played. A Boggle object is a
- * composition of a Dictionary and a composition of a List of 16 Die objects.
+ * composition of a Dictionary and a composition of a List of Die objects: the
+ * 16 standard dice by default, or the dice of another <code>DiceSet</code>
+ * such as the 25 dice of Big Boggle.
  *
  */
 public class Boggle {
 
 	/**
-	 * The letters on the 16 boggle dice (strings for one die on each line).
+	 * The number of dice in the standard set.
 	 */
-	private static final String[][] LETTERS = { { "A", "A", "E", "E", "G", "N" }, { "E", "L", "R", "T", "T", "Y" },
-			{ "W", "A", "O", "O", "T", "T" }, { "A", "B", "B", "J", "O", "O" }, { "E", "H", "R", "T", "V", "W" },
-			{ "C", "I", "M", "O", "T", "U" }, { "D", "I", "S", "T", "T", "Y" }, { "E", "I", "O", "S", "S", "T" },
-			{ "Y", "D", "E", "L", "R", "V" }, { "A", "C", "H", "O", "P", "S" }, { "U", "H", "I", "M", "N", "QU" },
-			{ "E", "E", "I", "N", "S", "U" }, { "E", "E", "G", "H", "N", "W" }, { "A", "F", "F", "K", "P", "S" },
-			{ "H", "L", "N", "N", "R", "Z" }, { "X", "D", "E", "I", "L", "R" } };
 	public static int NUMBER_OF_DICE = 16;
 
 	/**
-	 * The 16 boggle dice.
+	 * The minimum number of letters in a legal Boggle word with the standard
+	 * dice.
+	 */
+	public static final int MIN_WORD_LENGTH = 3;
+
+	/**
+	 * The default dictionary, read from the dictionary file the first time a
+	 * Boggle game is created. A dictionary is immutable, so every game can
+	 * share it.
+	 */
+	private static final class DefaultDictionary {
+		static final Dictionary INSTANCE = new Dictionary();
+	}
+
+	/**
+	 * The set of dice this game is played with.
+	 */
+	private DiceSet diceSet;
+
+	/**
+	 * The boggle dice, in the same order as in the dice set; the index of a die
+	 * in this list is its die number.
 	 */
 	private List<Die> dice;
 
 	/**
-	 * The dictionary.
+	 * The die number of the die at each position on the board.
+	 */
+	private int[] order;
+
+	/**
+	 * The dictionary of the current round.
 	 */
 	private Dictionary dictionary;
+	private SolutionCache cache;
+
+	/**
+	 * The registry and name the dictionary is looked up by at the start of every
+	 * round, or null if the dictionary never changes.
+	 */
+	private DictionaryRegistry registry;
+	private String dictionaryName;
 
 	/**
 	 * Initializes a Boggle game by creating the 16 standard boggle dice and a
 	 * dictionary.
-	 * 
+	 *
 	 */
 	public Boggle() {
-		for (int i = 0; i < Boggle.NUMBER_OF_DICE; i++) {
-			String[] faces = Boggle.LETTERS[i];
-			dice.get(i);
+		this(DefaultDictionary.INSTANCE);
+	}
+
+	/**
+	 * Initializes a Boggle game by creating the 16 standard boggle dice and
+	 * using the specified dictionary.
+	 *
+	 * @param dictionary the dictionary of legal words
+	 */
+	public Boggle(Dictionary dictionary) {
+		this(DiceSet.CLASSIC, dictionary);
+	}
+
+	/**
+	 * Initializes a Boggle game by creating the dice of the specified set and
+	 * using the specified dictionary.
+	 *
+	 * @param diceSet    the dice to play with
+	 * @param dictionary the dictionary of legal words
+	 */
+	public Boggle(DiceSet diceSet, Dictionary dictionary) {
+		this.diceSet = diceSet;
+		this.dictionary = dictionary;
+		this.dice = new ArrayList<>();
+		for (int i = 0; i < diceSet.getNumberOfDice(); i++) {
+			this.dice.add(new Die(diceSet.getFaces(i)));
+		}
+		this.order = new int[diceSet.getNumberOfDice()];
+		for (int i = 0; i < this.order.length; i++) {
+			this.order[i] = i;
 		}
 	}
 
 	/**
-	 * Returns a new list of the 16 dice in their current state. The order of dice
+	 * Initializes a Boggle game by creating the 16 standard boggle dice and
+	 * using the dictionary registered under the specified name. The dictionary
+	 * is looked up again every time the dice are rolled or set, so a game picks
+	 * up a replaced word list at the start of its next round and keeps the same
+	 * dictionary for the whole of a round.
+	 *
+	 * @param registry a registry of dictionaries
+	 * @param name     the name of the dictionary of legal words
+	 * @throws java.util.NoSuchElementException if no dictionary has the name
+	 */
+	public Boggle(DictionaryRegistry registry, String name) {
+		this(DiceSet.CLASSIC, registry, name);
+	}
+
+	/**
+	 * Initializes a Boggle game with the dice of the specified set and the
+	 * dictionary registered under the specified name, which is looked up again
+	 * at the start of every round.
+	 *
+	 * @param diceSet  the dice to play with
+	 * @param registry a registry of dictionaries
+	 * @param name     the name of the dictionary of legal words
+	 * @throws java.util.NoSuchElementException if no dictionary has the name
+	 * @see #Boggle(DictionaryRegistry, String)
+	 */
+	public Boggle(DiceSet diceSet, DictionaryRegistry registry, String name) {
+		this(diceSet, registry.get(name));
+		this.registry = registry;
+		this.dictionaryName = name;
+	}
+
+	/**
+	 * Returns the set of dice this game is played with.
+	 *
+	 * @return the dice set of this game
+	 */
+	public DiceSet getDiceSet() {
+		return this.diceSet;
+	}
+
+	/**
+	 * Returns the minimum number of letters in a legal word in this game, which
+	 * depends on the dice set.
+	 *
+	 * @return the shortest legal word length
+	 */
+	public int getMinWordLength() {
+		return this.diceSet.getMinWordLength();
+	}
+
+	/**
+	 * Returns the dictionary of the current round.
+	 *
+	 * @return the dictionary that words are checked against
+	 */
+	public Dictionary getDictionary() {
+		return this.dictionary;
+	}
+
+	/**
+	 * Returns a new list of the dice in their current state. The order of dice
 	 * is guaranteed to be stable between calls to <code>shuffleAndRoll</code>; in
 	 * other words, all lists returned by this method are equal between calls to
 	 * <code>shuffleAndRoll</code> (assuming that the returned lists and the dice in
 	 * the lists are not modified).
-	 * 
+	 *
 	 * <p>
 	 * Clients are unable to modify the game dice using the returned list; i.e.,
 	 * modifying the returned list has no effect on the dice held by the Boggle
 	 * object, and modifying the dice in the returned list has no effect on the dice
 	 * held by the Boggle object.
-	 * 
-	 * @return a list of the 16 dice in their current state; modifying the list or
+	 *
+	 * @return a list of the dice in their current state; modifying the list or
 	 *         the dice in the list does not modify the state of the Boggle dice
 	 */
 	public List<Die> getDice() {
-		return this.dice;
-
+		List<Die> result = new ArrayList<>();
+		for (int n : this.order) {
+			result.add(new Die(this.dice.get(n)));
+		}
+		return result;
 	}
 
 	/**
 	 * Randomly shuffles the order of the dice and rolls all of dice. This simulates
 	 * the shaking of the dice in the physical version of the game.
-	 * 
-	 * <p>
-	 * Note to students: You can randomly shuffle the list of dice by using the
-	 * method <code>Collections.shuffle</code>. You should then roll each die in the
-	 * list.
+	 *
+	 * @throws java.util.NoSuchElementException if the game uses a registry and
+	 *                                          its dictionary has been removed;
+	 *                                          the dice are not changed
 	 */
 	public void shuffleAndRoll() {
-		SortedMap<Integer, String> valueMap = null;
-		Collections.shuffle(dice);
-		List keys = new ArrayList(valueMap.keySet());
-		Collections.shuffle(keys);
-		for (Object o : keys) {
-			valueMap.get(o);
+		this.shuffleAndRoll(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Shuffles and rolls the dice into the board determined by the specified
+	 * seed. Every game, on every machine, shuffles and rolls the same seed into
+	 * the same board, which is also the board returned by
+	 * <code>seededCode(seed)</code>.
+	 *
+	 * @param seed the seed of the board
+	 * @throws java.util.NoSuchElementException if the game uses a registry and
+	 *                                          its dictionary has been removed;
+	 *                                          the dice are not changed
+	 */
+	public void shuffleAndRoll(long seed) {
+		this.shuffleAndRoll(new SplittableRandom(seed));
+	}
+
+	private void shuffleAndRoll(RandomGenerator rng) {
+		int[] order = new int[this.order.length];
+		int[] faces = new int[order.length];
+		Boggle.shuffleAndRoll(this.diceSet, rng, order, faces);
+		// the round may fail to start; the dice only move once it has
+		this.startRound();
+		for (int i = 0; i < order.length; i++) {
+			this.order[i] = order[i];
+			this.dice.get(order[i]).setFaceIndex(faces[i]);
+		}
+	}
+
+	/**
+	 * Starts a new round: a game that uses a registry takes the latest version
+	 * of its word list.
+	 */
+	private void startRound() {
+		if (this.registry != null) {
+			this.dictionary = this.registry.get(this.dictionaryName);
+		}
+	}
+
+	/**
+	 * Returns the code of the board formed by the dice in their current state.
+	 * Board codes cover the standard dice only.
+	 *
+	 * @return the code of the current board
+	 * @throws UnsupportedOperationException if the game is not played with the
+	 *                                       standard dice
+	 */
+	public BoardCode encode() {
+		this.checkClassic();
+		int[] faces = new int[this.order.length];
+		for (int i = 0; i < faces.length; i++) {
+			faces[i] = this.dice.get(this.order[i]).getFaceIndex();
 		}
+		return BoardCode.of(this.order, faces);
+	}
 
+	/**
+	 * Arranges and turns the dice to form the board with the specified code.
+	 *
+	 * @param code the code of a board of the standard dice
+	 * @throws IllegalArgumentException if the code does not use each standard die
+	 *                                  once, or names a face a die does not have
+	 * @throws UnsupportedOperationException   if the game is not played with
+	 *                                          the standard dice
+	 * @throws java.util.NoSuchElementException if the game uses a registry and
+	 *                                          its dictionary has been removed
+	 */
+	public void setBoard(BoardCode code) {
+		this.checkClassic();
+		Boggle.checkCode(code);
+		this.startRound();
+		for (int i = 0; i < this.order.length; i++) {
+			this.order[i] = code.dieAt(i);
+			this.dice.get(this.order[i]).setFaceIndex(code.faceAt(i));
+		}
+	}
+
+	private void checkClassic() {
+		if (this.diceSet != DiceSet.CLASSIC) {
+			throw new UnsupportedOperationException("board codes are for the standard dice only");
+		}
 	}
 
 	/**
 	 * Returns true if the specified string is a legal Boggle word, and false
-	 * otherwise. A legal Boggle word is at least 3 letters long and can be found in
-	 * the dictionary.
-	 * 
+	 * otherwise. A legal Boggle word is at least as long as the minimum word
+	 * length of the dice set (3 letters for the standard dice) and can be found
+	 * in the dictionary.
+	 *
 	 * @param s a string
 	 * @return true if the specified string is a legal Boggle word, and false
 	 *         otherwise
 	 */
 	public boolean isABoggleWord(String s) {
-		if (s.length() < 3) {
+		if (s.length() < this.getMinWordLength()) {
 			return false;
 		}
-		if (dictionary.lookUp(s) == true) {
-			return true;
+		return this.dictionary.lookUp(s);
+	}
+
+	/**
+	 * Returns true if the specified character sequence is a legal Boggle word,
+	 * and false otherwise. This method reads the letters directly from the
+	 * sequence and does not create any objects.
+	 *
+	 * @param s a character sequence
+	 * @return true if the sequence is a legal Boggle word, and false otherwise
+	 */
+	public boolean isABoggleWord(CharSequence s) {
+		if (s.length() < this.getMinWordLength()) {
+			return false;
 		}
-		return false;
+		return this.dictionary.lookUp(s);
+	}
+
+	/**
+	 * Returns up to <code>limit</code> legal Boggle words within the specified
+	 * edit distance of the specified string that can be traced on the dice in
+	 * their current state, closest first. This is meant for a word that a
+	 * player submitted and that was rejected.
+	 *
+	 * @param s           a string
+	 * @param maxDistance the largest number of letters inserted, deleted or
+	 *                    replaced, usually 1 or 2
+	 * @param limit       the largest number of suggestions
+	 * @return the words on the board close to the string, closest first
+	 */
+	public List<String> suggest(CharSequence s, int maxDistance, int limit) {
+		Board board = this.getBoard();
+		int minLength = this.getMinWordLength();
+		return this.dictionary.suggest(s, maxDistance, limit,
+				w -> w.length() >= minLength && board.findPath(w) != null);
+	}
 
+	/**
+	 * Returns an empty word cursor on the dice in their current state. The dice
+	 * are indexed in the order returned by <code>getDice</code>. The cursor does
+	 * not follow later rolls; get a new one after <code>shuffleAndRoll</code>.
+	 *
+	 * @return a cursor for spelling a word one die at a time
+	 */
+	public WordCursor newWordCursor() {
+		return new WordCursor(this.dictionary.getLexicon(), this.getBoard(), this.getMinWordLength());
+	}
+
+	/**
+	 * Returns a verdict for each word in a batch of submitted words, such as the
+	 * list of words a player wrote down during a round, checked against the dice
+	 * in their current state. The verdicts are in the same order as the words.
+	 * The case of the words is not important, and a word that appears earlier in
+	 * the batch is a <code>DUPLICATE</code>.
+	 *
+	 * @param words the submitted words
+	 * @return the verdicts, in the order of the words
+	 * @see WordValidator
+	 */
+	public List<WordVerdict> checkWords(List<? extends CharSequence> words) {
+		WordValidator validator = new WordValidator(this.dictionary.getLexicon(), this.getMinWordLength());
+		return validator.validate(this.getBoard(), words);
+	}
+
+	/**
+	 * Returns a scorer for a round played on the dice in their current state by
+	 * the specified number of players. Words may be submitted to the scorer by
+	 * many threads at once, and a word found by more than one player scores
+	 * nothing.
+	 *
+	 * @param players the number of players
+	 * @return a scorer for the round
+	 */
+	public RoundScorer newRoundScorer(int players) {
+		Lexicon lexicon = this.dictionary.getLexicon();
+		int[] words = new BoggleSolver(lexicon, this.getMinWordLength()).solveIds(this.getBoard());
+		return new RoundScorer(lexicon, this.getMinWordLength(), words, players);
+	}
+
+	/**
+	 * Returns the number of points that the specified word is worth under the
+	 * standard Boggle rules: 1 point for 3 or 4 letters, 2 for 5 letters, 3 for
+	 * 6 letters, 5 for 7 letters, and 11 for 8 or more letters. Words shorter
+	 * than 3 letters are worth nothing.
+	 *
+	 * @param word a word
+	 * @return the number of points the word is worth
+	 */
+	public static int score(String word) {
+		int n = word.length();
+		if (n < Boggle.MIN_WORD_LENGTH) {
+			return 0;
+		} else if (n <= 4) {
+			return 1;
+		} else if (n == 5) {
+			return 2;
+		} else if (n == 6) {
+			return 3;
+		} else if (n == 7) {
+			return 5;
+		}
+		return 11;
+	}
+
+	/**
+	 * Returns a board made by shuffling and rolling the 16 standard dice with the
+	 * specified source of randomness. This is the same as creating a game and
+	 * calling <code>shuffleAndRoll</code>, without creating any dice.
+	 *
+	 * @param rng the source of randomness
+	 * @return a random board
+	 */
+	public static Board randomBoard(RandomGenerator rng) {
+		return Boggle.boardOf(Boggle.randomCode(rng));
+	}
+
+	/**
+	 * Returns the code of a board made by shuffling and rolling the 16 standard
+	 * dice with the specified source of randomness.
+	 *
+	 * @param rng the source of randomness
+	 * @return the code of a random board
+	 */
+	public static BoardCode randomCode(RandomGenerator rng) {
+		int[] order = new int[Boggle.NUMBER_OF_DICE];
+		int[] faces = new int[order.length];
+		Boggle.shuffleAndRoll(DiceSet.CLASSIC, rng, order, faces);
+		return BoardCode.of(order, faces);
+	}
+
+	/**
+	 * Returns a board made by shuffling and rolling the dice of the specified
+	 * set with the specified source of randomness.
+	 *
+	 * @param diceSet the dice to roll
+	 * @param rng     the source of randomness
+	 * @return a random board of the size of the dice set
+	 */
+	public static Board randomBoard(DiceSet diceSet, RandomGenerator rng) {
+		int[] order = new int[diceSet.getNumberOfDice()];
+		int[] faces = new int[order.length];
+		Boggle.shuffleAndRoll(diceSet, rng, order, faces);
+		String[] letters = new String[order.length];
+		for (int i = 0; i < letters.length; i++) {
+			letters[i] = diceSet.getFace(order[i], faces[i]);
+		}
+		return new Board(letters);
+	}
+
+	/**
+	 * Fills <code>order</code> with a random permutation of the dice of the
+	 * specified set and <code>faces</code> with a random face of each die.
+	 */
+	private static void shuffleAndRoll(DiceSet diceSet, RandomGenerator rng, int[] order, int[] faces) {
+		for (int i = 0; i < order.length; i++) {
+			int j = rng.nextInt(i + 1);
+			order[i] = order[j];
+			order[j] = i;
+		}
+		for (int i = 0; i < faces.length; i++) {
+			faces[i] = rng.nextInt(diceSet.numberOfFaces(order[i]));
+		}
+	}
+
+	/**
+	 * Returns the code of the board determined by the specified seed. The same
+	 * seed always gives the same board.
+	 *
+	 * @param seed the seed of the board
+	 * @return the code of the board
+	 */
+	public static BoardCode seededCode(long seed) {
+		return Boggle.randomCode(new SplittableRandom(seed));
+	}
+
+	/**
+	 * Returns the board with the specified code.
+	 *
+	 * @param code the code of a board of the standard dice
+	 * @return the board with the specified code
+	 * @throws IllegalArgumentException if the code does not use each standard die
+	 *                                  once, or names a face a die does not have
+	 */
+	public static Board boardOf(BoardCode code) {
+		Boggle.checkCode(code);
+		String[] faces = new String[Boggle.NUMBER_OF_DICE];
+		for (int i = 0; i < faces.length; i++) {
+			faces[i] = DiceSet.CLASSIC.getFace(code.dieAt(i), code.faceAt(i));
+		}
+		return new Board(faces);
+	}
+
+	/**
+	 * Returns the number of faces of the specified standard die.
+	 *
+	 * @param die a die number from 0 to 15
+	 * @return the number of faces of the die
+	 */
+	static int numberOfFaces(int die) {
+		return DiceSet.CLASSIC.numberOfFaces(die);
+	}
+
+	/**
+	 * Checks that the specified code uses each standard die exactly once and
+	 * names only faces that the dice have.
+	 *
+	 * @param code a board code
+	 * @throws IllegalArgumentException if the code is not a board of the standard
+	 *                                  dice
+	 */
+	private static void checkCode(BoardCode code) {
+		int used = 0;
+		for (int i = 0; i < Boggle.NUMBER_OF_DICE; i++) {
+			int n = code.dieAt(i);
+			if ((used & (1 << n)) != 0 || code.faceAt(i) >= Boggle.numberOfFaces(n)) {
+				throw new IllegalArgumentException("not a board of the standard dice: " + code);
+			}
+			used |= 1 << n;
+		}
+	}
+
+	/**
+	 * Returns the board formed by the dice in their current state, in the order
+	 * returned by <code>getDice</code>.
+	 *
+	 * @return the current board
+	 */
+	public Board getBoard() {
+		String[] faces = new String[this.order.length];
+		for (int i = 0; i < faces.length; i++) {
+			faces[i] = this.dice.get(this.order[i]).getValue();
+		}
+		return new Board(faces);
+	}
+
+	/**
+	 * Sets the cache that <code>solve</code> looks boards up in, or turns caching
+	 * off if <code>cache</code> is null. A cache may be shared by many games.
+	 *
+	 * @pre. <code>cache</code> must have been created with the dictionary and
+	 *       the minimum word length of this game; if the dictionary is replaced
+	 *       through a registry, the cache is not used until it matches again
+	 *
+	 * @param cache the solution cache to use, or null for none
+	 */
+	public void setSolutionCache(SolutionCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns every legal Boggle word that can be traced on the dice in their
+	 * current state, each with a path of dice indexes that spells it. The dice
+	 * are indexed in the order returned by <code>getDice</code>, which is row-major
+	 * order on the 4x4 board. Each word appears once, in lower case, and the list
+	 * is sorted by word. If a solution cache has been set the list comes from the
+	 * cache and cannot be modified.
+	 *
+	 * @return the words on the board and their paths, sorted by word
+	 */
+	public List<WordPath> solve() {
+		if (this.cache != null && this.cache.getMinWordLength() == this.getMinWordLength()
+				&& this.cache.getLexicon() == this.dictionary.getLexicon()) {
+			return this.cache.solve(this.getBoard());
+		}
+		BoggleSolver solver = new BoggleSolver(this.dictionary.getLexicon(), this.getMinWordLength());
+		return solver.solve(this.getBoard());
+	}
+
+	/**
+	 * Returns the legal Boggle words on the dice in their current state one at a
+	 * time, in the specified order, finding each word only when it is asked for.
+	 * The stream keeps the board and dictionary of the moment it was made.
+	 *
+	 * @param order the order in which to return the words
+	 * @return the words on the board and their paths
+	 */
+	public WordStream streamWords(WordStream.Order order) {
+		return new WordStream(this.dictionary.getLexicon(), this.getMinWordLength(), this.getBoard(), order);
+	}
+
+	/**
+	 * Passes the legal Boggle words on the dice in their current state to the
+	 * specified consumer one at a time, in the specified order, until there are
+	 * no more words or the consumer returns false. No list of the words is
+	 * built.
+	 *
+	 * @param order    the order in which to pass the words
+	 * @param consumer takes each word and returns false to stop the search
+	 * @return true if every word was passed, and false if the consumer stopped
+	 *         the search
+	 */
+	public boolean solve(WordStream.Order order, Predicate<? super WordPath> consumer) {
+		WordStream words = this.streamWords(order);
+		while (words.hasNext()) {
+			if (!consumer.test(words.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if at least the specified number of legal Boggle words can be
+	 * traced on the dice in their current state. The search stops as soon as
+	 * enough words have been found.
+	 *
+	 * @param count the number of words wanted
+	 * @return true if the board has at least <code>count</code> words
+	 */
+	public boolean hasAtLeast(int count) {
+		WordStream words = this.streamWords(WordStream.Order.FOUND);
+		for (int i = 0; i < count; i++) {
+			if (!words.hasNext()) {
+				return false;
+			}
+			words.next();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a publisher of the legal Boggle words on the dice in their current
+	 * state, in the specified order. Every subscriber gets the words of the
+	 * board and dictionary of the moment this method was called, sent from
+	 * tasks on the specified executor and only as fast as it requests them.
+	 *
+	 * @param order    the order in which to publish the words
+	 * @param executor runs the searches and sends the words to subscribers
+	 * @return a publisher of the words on the board and their paths
+	 */
+	public Flow.Publisher<WordPath> publishWords(WordStream.Order order, Executor executor) {
+		Lexicon lexicon = this.dictionary.getLexicon();
+		int minLength = this.getMinWordLength();
+		Board board = this.getBoard();
+		return new WordPublisher(() -> new WordStream(lexicon, minLength, board, order), executor);
 	}
 }
\ No newline at end of file
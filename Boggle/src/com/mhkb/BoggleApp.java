@@ -1,17 +1,22 @@
 package com.mhkb;
 
+import javax.swing.SwingUtilities;
+
 /**
- * The Boggle application.
+ * The Boggle application. The window is shown at once and the dictionary is
+ * loaded in the background; the game can be played when it has been loaded.
  * 
  */
 public class BoggleApp {
 
 	public static void main(String[] args) {
 		BoggleController c = new BoggleController();
-		Boggle m = new Boggle();
-		BoggleView v = new BoggleView(c);
-		c.setModel(m);
-		c.setView(v);
-		v.setVisible(true);
+		SwingUtilities.invokeLater(() -> {
+			BoggleView v = new BoggleView(c);
+			c.setView(v);
+			v.setVisible(true);
+		});
+		// queued after the view is created, so the view is set when it finishes
+		c.loadModel(Boggle::new);
 	}
 }
@@ -2,15 +2,42 @@ package com.mhkb;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import javax.swing.SwingUtilities;
 
 /**
  * The controller for the Boggle app.
  *
+ * <p>
+ * Implementation Details: the Swing event dispatch thread never touches the
+ * model. Events arrive on the event dispatch thread, which hands the model
+ * work to a single background thread and returns at once; the results are
+ * handed back to the view with <code>SwingUtilities.invokeLater</code>. The
+ * model is used from the background thread only, one task at a time, so it
+ * needs no locking.
+ *
  */
 public class BoggleController implements ActionListener {
 
+	/**
+	 * The largest number of edits between an incorrect word and a suggestion.
+	 */
+	private static final int SUGGESTION_DISTANCE = 2;
+
+	/**
+	 * The largest number of suggestions shown for an incorrect word.
+	 */
+	private static final int SUGGESTIONS = 3;
+
 	private Boggle model;
 	private BoggleView view;
+	private final ExecutorService worker;
 
 	/**
 	 * Creates a controller with no model and no view.
@@ -18,6 +45,43 @@ public class BoggleController implements ActionListener {
 	public BoggleController() {
 		this.model = null;
 		this.view = null;
+		this.worker = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "boggle-model");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Creates the model in the background, rolls the dice, and then shows them
+	 * in the view and lets the player submit words. The view must be set, or be
+	 * set by a task already queued on the event dispatch thread, before this
+	 * method is called.
+	 *
+	 * @param factory creates the model; it is called on a background thread
+	 * @return a future that completes when the view is ready for play
+	 */
+	public CompletableFuture<Void> loadModel(Supplier<Boggle> factory) {
+		CompletableFuture<Void> ready = new CompletableFuture<>();
+		this.worker.execute(() -> {
+			try {
+				Boggle m = factory.get();
+				m.shuffleAndRoll();
+				List<Die> dice = m.getDice();
+				WordCursor cursor = m.newWordCursor();
+				SwingUtilities.invokeLater(() -> {
+					this.model = m;
+					this.view.setDice(dice);
+					this.view.setWordCursor(cursor);
+					this.view.setReady(true);
+					ready.complete(null);
+				});
+			} catch (RuntimeException | Error ex) {
+				SwingUtilities.invokeLater(() -> this.view.setLoadFailed(ex));
+				ready.completeExceptionally(ex);
+			}
+		});
+		return ready;
 	}
 
 	/**
@@ -45,7 +109,9 @@ public class BoggleController implements ActionListener {
 	/**
 	 * Responds to events from the view. This method responds to an event where the
 	 * action command is either <code>BoggleView.ROLL_COMMAND</code> or
-	 * <code>BoggleView.SUBMIT_COMMAND</code>.
+	 * <code>BoggleView.SUBMIT_COMMAND</code>. Events that arrive before the model
+	 * has been loaded are ignored. The model work is done in the background and
+	 * the view is updated when it is finished.
 	 * 
 	 * @param event an event emitted by the view
 	 *
@@ -54,13 +120,29 @@ public class BoggleController implements ActionListener {
 	@Override
 	public void actionPerformed(ActionEvent event) {
 		String command = event.getActionCommand();
+		Boggle m = this.model;
+		if (m == null) {
+			// still loading
+			return;
+		}
 		if (command.equals(BoggleView.ROLL_COMMAND)) {
-			this.model.shuffleAndRoll();
-			this.view.setDice(this.model.getDice());
+			this.worker.execute(() -> {
+				m.shuffleAndRoll();
+				List<Die> dice = m.getDice();
+				WordCursor cursor = m.newWordCursor();
+				SwingUtilities.invokeLater(() -> {
+					this.view.setDice(dice);
+					this.view.setWordCursor(cursor);
+				});
+			});
 		} else if (command.equals(BoggleView.SUBMIT_COMMAND)) {
 			String word = this.view.getWord();
-			boolean isOk = this.model.isABoggleWord(word);
-			this.view.setWordIsValid(isOk);
+			this.worker.execute(() -> {
+				boolean isOk = m.isABoggleWord(word);
+				List<String> suggestions = isOk ? Collections.emptyList()
+						: m.suggest(word, SUGGESTION_DISTANCE, SUGGESTIONS);
+				SwingUtilities.invokeLater(() -> this.view.setWordIsValid(word, isOk, suggestions));
+			});
 		}
 	}
 
@@ -0,0 +1,442 @@
+package com.mhkb;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A headless Boggle server that hosts many rounds at the same time over HTTP.
+ * Every round has its own board and its own list of found words, and all of
+ * the rounds share one dictionary.
+ *
+ * <p>
+ * The protocol is plain text. Every response body is a single line:
+ *
+ * <table>
+ * <caption>Requests</caption>
+ * <tr>
+ * <th>Request</th>
+ * <th>Response</th>
+ * </tr>
+ * <tr>
+ * <td><code>POST /games</code></td>
+ * <td><code>201</code> with the round id and the <code>BoardCode</code> of its
+ * board, separated by a space, or <code>503</code> if the server already has
+ * as many rounds as it allows</td>
+ * </tr>
+ * <tr>
+ * <td><code>GET /games/<i>id</i></code></td>
+ * <td>the board code, the score, and the number of words found</td>
+ * </tr>
+ * <tr>
+ * <td><code>POST /games/<i>id</i>/words</code> with a word as the body</td>
+ * <td><code>ACCEPTED</code> and the points scored, or <code>REJECTED</code>
+ * or <code>DUPLICATE</code> and zero</td>
+ * </tr>
+ * <tr>
+ * <td><code>DELETE /games/<i>id</i></code></td>
+ * <td>ends the round and returns its score and the number of words found</td>
+ * </tr>
+ * </table>
+ *
+ * <p>
+ * An unknown round is <code>404</code>, and an unknown request is
+ * <code>404</code> or <code>405</code>. A word is accepted if it is a legal
+ * Boggle word, it can be traced on the board, and it has not been found in
+ * the round before.
+ *
+ * <p>
+ * A round ends when it is deleted, or when no request has been made for it
+ * for longer than the idle timeout of the server; its words are then
+ * forgotten. The number of rounds in progress is capped, so a client that
+ * keeps starting rounds cannot make the server grow without bound.
+ *
+ * <p>
+ * Implementation Details: each exchange runs on its own virtual thread when
+ * the runtime has them (Java 21 and later) and on a cached thread pool
+ * otherwise. Rounds are kept in a concurrent map and a round locks only
+ * itself, so submissions to different rounds never wait for each other. A
+ * round takes a slot when it starts and gives it back when it is removed, and
+ * idle rounds are removed by a background task that runs a few times per idle
+ * timeout. <code>TCP_NODELAY</code> is turned on for every connection unless
+ * the <code>sun.net.httpserver.nodelay</code> system property says otherwise.
+ *
+ */
+public final class BoggleServer {
+
+	/**
+	 * The path that all of the requests are under.
+	 */
+	public static final String CONTEXT = "/games";
+
+	/**
+	 * The longest request body that is read; longer words are rejected.
+	 */
+	static final int MAX_BODY = 64;
+
+	/**
+	 * The default largest number of rounds in progress.
+	 */
+	public static final int DEFAULT_MAX_ROUNDS = 10_000;
+
+	/**
+	 * The default time after which a round with no requests is ended.
+	 */
+	public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+	/**
+	 * The system property that turns on <code>TCP_NODELAY</code> for the
+	 * connections of the JDK HTTP server.
+	 */
+	static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+	static {
+		// Without TCP_NODELAY a client that sends the headers and the body of a
+		// request in separate segments waits for a delayed acknowledgement, about
+		// 40 ms per word. The property is read once, when the first server is
+		// created, so it is set here unless it has been set on the command line.
+		if (System.getProperty(NODELAY_PROPERTY) == null) {
+			System.setProperty(NODELAY_PROPERTY, "true");
+		}
+	}
+
+	/**
+	 * One round of Boggle: a board and the words found on it so far.
+	 */
+	private static final class Round {
+		final Boggle model;
+		final Board board;
+		final BoardCode code;
+		private final Set<String> found = new HashSet<>();
+		private int score;
+		// System.nanoTime() of the last request for the round
+		private volatile long lastUsed;
+
+		Round(Dictionary dictionary) {
+			this.model = new Boggle(dictionary);
+			this.model.shuffleAndRoll();
+			this.board = this.model.getBoard();
+			this.code = this.model.encode();
+			this.touch();
+		}
+
+		void touch() {
+			this.lastUsed = System.nanoTime();
+		}
+
+		boolean isIdle(long now, long timeout) {
+			return now - this.lastUsed > timeout;
+		}
+
+		synchronized int submit(String word) {
+			if (!this.model.isABoggleWord(word) || this.board.findPath(word) == null) {
+				return -1;
+			}
+			if (!this.found.add(word)) {
+				return 0;
+			}
+			int points = Boggle.score(word);
+			this.score += points;
+			return points;
+		}
+
+		synchronized String summary() {
+			return this.score + " " + this.found.size();
+		}
+	}
+
+	private final Dictionary dictionary;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ConcurrentMap<Long, Round> rounds;
+	private final AtomicLong nextId;
+	private final AtomicInteger roundCount;
+	private final int maxRounds;
+	private final long idleTimeout;
+	private final ScheduledExecutorService sweeper;
+
+	/**
+	 * Initializes a server that uses the specified dictionary and listens on the
+	 * specified address, with the default limit on rounds and the default idle
+	 * timeout. The server does not accept requests until it is started.
+	 *
+	 * @param dictionary the dictionary of legal words
+	 * @param address    the address to listen on; a port of zero picks any free
+	 *                   port
+	 * @throws IOException if the server cannot be bound to the address
+	 */
+	public BoggleServer(Dictionary dictionary, InetSocketAddress address) throws IOException {
+		this(dictionary, address, DEFAULT_MAX_ROUNDS, DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 * Initializes a server that uses the specified dictionary, listens on the
+	 * specified address, holds at most the specified number of rounds at a time,
+	 * and ends rounds that have had no requests for the specified time. The
+	 * server does not accept requests until it is started.
+	 *
+	 * @param dictionary  the dictionary of legal words
+	 * @param address     the address to listen on; a port of zero picks any free
+	 *                    port
+	 * @param maxRounds   the largest number of rounds in progress
+	 * @param idleTimeout the time after which a round with no requests is ended
+	 * @throws IOException              if the server cannot be bound to the
+	 *                                  address
+	 * @throws IllegalArgumentException if <code>maxRounds</code> is less than 1
+	 *                                  or the timeout is not positive
+	 */
+	public BoggleServer(Dictionary dictionary, InetSocketAddress address, int maxRounds, Duration idleTimeout)
+			throws IOException {
+		if (maxRounds < 1 || idleTimeout.isNegative() || idleTimeout.isZero()) {
+			throw new IllegalArgumentException("bad limits: " + maxRounds + " rounds, " + idleTimeout);
+		}
+		this.dictionary = dictionary;
+		this.rounds = new ConcurrentHashMap<>();
+		this.nextId = new AtomicLong();
+		this.roundCount = new AtomicInteger();
+		this.maxRounds = maxRounds;
+		this.idleTimeout = idleTimeout.toNanos();
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "boggle-round-sweeper");
+			t.setDaemon(true);
+			return t;
+		});
+		this.executor = newExecutor();
+		this.server = HttpServer.create(address, 0);
+		this.server.createContext(CONTEXT, this::handle);
+		this.server.setExecutor(this.executor);
+	}
+
+	/**
+	 * Returns an executor that runs every task on a new virtual thread, or a
+	 * cached thread pool if the runtime does not have virtual threads.
+	 *
+	 * @return an executor for the exchanges
+	 */
+	static ExecutorService newExecutor() {
+		try {
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) m.invoke(null);
+		} catch (ReflectiveOperationException ex) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		// sweep a few times per timeout, so an idle round lives at most a quarter
+		// of the timeout longer than it should
+		long period = Math.max(this.idleTimeout / 4, TimeUnit.MILLISECONDS.toNanos(10));
+		this.sweeper.scheduleWithFixedDelay(this::removeIdleRounds, period, period, TimeUnit.NANOSECONDS);
+		this.server.start();
+	}
+
+	/**
+	 * Stops accepting requests, waits up to the specified number of seconds for
+	 * the requests in progress to finish, and ends every round.
+	 *
+	 * @param delay the most seconds to wait for requests in progress
+	 */
+	public void stop(int delay) {
+		this.server.stop(delay);
+		this.executor.shutdown();
+		this.sweeper.shutdownNow();
+		for (Long id : this.rounds.keySet()) {
+			this.removeRound(id);
+		}
+	}
+
+	/**
+	 * Returns the port that the server is listening on.
+	 *
+	 * @return the port that the server is listening on
+	 */
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Returns the number of rounds in progress.
+	 *
+	 * @return the number of rounds in progress
+	 */
+	public int getRounds() {
+		return this.roundCount.get();
+	}
+
+	/**
+	 * Returns the largest number of rounds in progress that the server allows.
+	 *
+	 * @return the largest number of rounds
+	 */
+	public int getMaxRounds() {
+		return this.maxRounds;
+	}
+
+	/**
+	 * Ends every round that has had no request for longer than the idle timeout.
+	 *
+	 * @return the number of rounds ended
+	 */
+	int removeIdleRounds() {
+		long now = System.nanoTime();
+		int removed = 0;
+		for (Map.Entry<Long, Round> e : this.rounds.entrySet()) {
+			if (e.getValue().isIdle(now, this.idleTimeout) && this.removeRound(e.getKey()) != null) {
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Takes a slot for a new round, or returns false if every slot is taken.
+	 */
+	private boolean takeSlot() {
+		int max = this.maxRounds;
+		return this.roundCount.getAndUpdate(n -> n < max ? n + 1 : n) < max;
+	}
+
+	/**
+	 * Removes the specified round and gives back its slot, or returns null if
+	 * it has already been removed.
+	 */
+	private Round removeRound(long id) {
+		Round round = this.rounds.remove(id);
+		if (round != null) {
+			this.roundCount.decrementAndGet();
+		}
+		return round;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String path = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+			if (path.isEmpty() || path.equals("/")) {
+				this.handleGames(exchange);
+			} else if (path.charAt(0) == '/') {
+				this.handleRound(exchange, path.substring(1).split("/"));
+			} else {
+				send(exchange, 404, "");
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Handles a request for <code>/games</code>, which starts a new round.
+	 */
+	private void handleGames(HttpExchange exchange) throws IOException {
+		if (!exchange.getRequestMethod().equals("POST")) {
+			send(exchange, 405, "");
+			return;
+		}
+		if (!this.takeSlot() && (this.removeIdleRounds() == 0 || !this.takeSlot())) {
+			send(exchange, 503, "");
+			return;
+		}
+		long id = this.nextId.incrementAndGet();
+		Round round = new Round(this.dictionary);
+		this.rounds.put(id, round);
+		send(exchange, 201, id + " " + round.code);
+	}
+
+	/**
+	 * Handles a request for <code>/games/<i>id</i></code> or
+	 * <code>/games/<i>id</i>/words</code>; <code>parts</code> holds the path
+	 * segments after <code>/games/</code>.
+	 */
+	private void handleRound(HttpExchange exchange, String[] parts) throws IOException {
+		String method = exchange.getRequestMethod();
+		Round round = null;
+		long id = 0;
+		try {
+			id = Long.parseLong(parts[0]);
+			round = this.rounds.get(id);
+		} catch (NumberFormatException ex) {
+			// an unknown round
+		}
+		if (round == null || parts.length > 2 || (parts.length == 2 && !parts[1].equals("words"))) {
+			send(exchange, 404, "");
+			return;
+		}
+		round.touch();
+		if (parts.length == 2) {
+			if (method.equals("POST")) {
+				int points = round.submit(readWord(exchange));
+				String verdict = points > 0 ? "ACCEPTED " : points == 0 ? "DUPLICATE " : "REJECTED ";
+				send(exchange, 200, verdict + Math.max(points, 0));
+			} else {
+				send(exchange, 405, "");
+			}
+		} else if (method.equals("GET")) {
+			send(exchange, 200, round.code + " " + round.summary());
+		} else if (method.equals("DELETE")) {
+			this.removeRound(id);
+			send(exchange, 200, round.summary());
+		} else {
+			send(exchange, 405, "");
+		}
+	}
+
+	/**
+	 * Reads the word in the body of the specified exchange. Bodies longer than
+	 * <code>MAX_BODY</code> bytes are returned as the empty string, which is
+	 * never a word.
+	 */
+	private static String readWord(HttpExchange exchange) throws IOException {
+		InputStream in = exchange.getRequestBody();
+		byte[] body = in.readNBytes(MAX_BODY + 1);
+		if (body.length > MAX_BODY) {
+			return "";
+		}
+		return new String(body, StandardCharsets.US_ASCII).trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = (body.isEmpty() ? body : body + "\n").getBytes(StandardCharsets.US_ASCII);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		if (bytes.length > 0) {
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+	}
+
+	/**
+	 * Runs a server with the default dictionary. The only argument is the port
+	 * to listen on, which is 8080 if it is not given.
+	 *
+	 * @param args the command line arguments
+	 * @throws IOException if the server cannot be started
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		BoggleServer server = new BoggleServer(new Dictionary(), new InetSocketAddress(port));
+		server.start();
+		System.out.println("Boggle server listening on port " + server.getPort());
+	}
+}
@@ -0,0 +1,169 @@
+package com.mhkb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds every word on a Boggle board.
+ *
+ * <p>
+ * Implementation Details: the solver runs a depth-first search from every die.
+ * The letters of each die on the current path are followed down the lexicon
+ * as they are added, so the search abandons a path the moment no dictionary
+ * word starts with the letters it spells. The dice on the current path are
+ * kept in a <code>long</code> bit mask, which covers boards up to 8x8, and the
+ * unused neighbors of a die are found by masking
+ * <code>Board.getNeighbors</code>, so the search itself does no allocation and
+ * no hashing. The id of the word spelled so far is carried down with the
+ * lexicon node (see <code>Lexicon.rankAfter</code>), and a word found twice is
+ * recognized by its id in a bit set, so a word's string is only created the
+ * first time it is found, and not at all by <code>solveIds</code>.
+ *
+ * <p>
+ * A solver holds only scratch space for a single search; it is not safe to use
+ * one solver from more than one thread at a time.
+ *
+ */
+public final class BoggleSolver {
+
+	private final Lexicon lexicon;
+	private final int minLength;
+
+	// scratch space for one search
+	private Board board;
+	private int[] path = new int[Board.SIZE];
+	private char[] letters = new char[Board.SIZE * Board.MAX_FACE_LENGTH];
+	private long[] seen;
+	private int[] ids = new int[64];
+	private int count;
+	private List<WordPath> found;
+
+	/**
+	 * Initializes a solver that looks for words of at least the specified length
+	 * in the specified lexicon.
+	 *
+	 * @param lexicon   the words that may be found
+	 * @param minLength the minimum length of a word
+	 */
+	public BoggleSolver(Lexicon lexicon, int minLength) {
+		this.lexicon = lexicon;
+		this.minLength = minLength;
+	}
+
+	/**
+	 * Returns every word on the specified board, each with one path of dice that
+	 * spells it. The words are in lower case and sorted, and each word appears
+	 * once even if it can be traced in more than one way.
+	 *
+	 * @param board a board
+	 * @return the words on the board and their paths, sorted by word
+	 */
+	public List<WordPath> solve(Board board) {
+		this.found = new ArrayList<>();
+		this.search(board);
+		List<WordPath> result = this.found;
+		this.found = null;
+		Collections.sort(result, Comparator.comparing(WordPath::getWord));
+		return result;
+	}
+
+	/**
+	 * Returns the ids of every word on the specified board, in ascending order,
+	 * which is also the order of the words. No strings or paths are created.
+	 *
+	 * @param board a board
+	 * @return the ids of the words on the board, sorted
+	 * @see Lexicon#wordOf(int)
+	 */
+	public int[] solveIds(Board board) {
+		this.search(board);
+		int[] result = Arrays.copyOf(this.ids, this.count);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Runs the search from every die of the specified board, recording the id
+	 * of every word found, and clears the scratch space afterwards.
+	 */
+	private void search(Board board) {
+		this.board = board;
+		this.count = 0;
+		if (this.seen == null) {
+			this.seen = new long[(this.lexicon.size() + Long.SIZE - 1) / Long.SIZE];
+		}
+		if (this.path.length < board.size()) {
+			this.path = new int[board.size()];
+			this.letters = new char[board.size() * Board.MAX_FACE_LENGTH];
+		}
+		int root = this.lexicon.root();
+		for (int i = 0; i < board.size(); i++) {
+			this.search(i, root, 0, 0, 0, 0);
+		}
+		for (int i = 0; i < this.count; i++) {
+			this.seen[this.ids[i] >>> 6] = 0;
+		}
+		this.board = null;
+	}
+
+	/**
+	 * Returns a stream of the words on the specified board that finds them only
+	 * as they are asked for, in the specified order. The stream does not use the
+	 * scratch space of this solver, so this solver may go on to solve other
+	 * boards while the stream is in use.
+	 *
+	 * @param board a board
+	 * @param order the order in which to return the words
+	 * @return the words on the board and their paths
+	 */
+	public WordStream stream(Board board, WordStream.Order order) {
+		return new WordStream(this.lexicon, this.minLength, board, order);
+	}
+
+	/**
+	 * Extends the current path with the specified die.
+	 *
+	 * @param die     the index of the die to add
+	 * @param node    the lexicon node for the letters spelled so far
+	 * @param rank    the id of the first word at or below <code>node</code>
+	 * @param depth   the number of dice on the path so far
+	 * @param length  the number of letters spelled so far
+	 * @param visited a bit mask of the dice on the path so far
+	 */
+	private void search(int die, int node, int rank, int depth, int length, long visited) {
+		Board b = this.board;
+		Lexicon lex = this.lexicon;
+		for (int i = 0, n = b.faceLength(die); i < n; i++) {
+			char c = b.letter(die, i);
+			int e = lex.findEdge(node, c);
+			if (e == Lexicon.NONE) {
+				return;
+			}
+			rank = lex.rankAfter(node, rank, e);
+			node = lex.edgeTarget(e);
+			this.letters[length++] = c;
+		}
+		this.path[depth++] = die;
+		visited |= 1L << die;
+
+		if (length >= this.minLength && lex.isWord(node) && (this.seen[rank >>> 6] & (1L << rank)) == 0) {
+			this.seen[rank >>> 6] |= 1L << rank;
+			if (this.count == this.ids.length) {
+				this.ids = Arrays.copyOf(this.ids, this.count * 2);
+			}
+			this.ids[this.count++] = rank;
+			if (this.found != null) {
+				this.found.add(new WordPath(new String(this.letters, 0, length), this.path, depth));
+			}
+		}
+		if (!lex.hasChildren(node)) {
+			return;
+		}
+		for (long m = b.getNeighbors(die) & ~visited; m != 0; m &= m - 1) {
+			this.search(Long.numberOfTrailingZeros(m), node, rank, depth, length, visited);
+		}
+	}
+}
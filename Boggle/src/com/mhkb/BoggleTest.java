@@ -2,12 +2,37 @@ package com.mhkb;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
 import org.junit.FixMethodOrder;
@@ -28,6 +53,36 @@ public class BoggleTest {
 	@Rule
 	public Timeout globalTimeout = Timeout.seconds(1);
 
+	private static Path snapshotDir;
+	private static String savedSnapshot;
+
+	/**
+	 * Keeps the dictionary snapshot of the tests out of the user's own cache, and
+	 * builds it before the first timed test.
+	 */
+	@BeforeClass
+	public static void setUpSnapshot() throws IOException {
+		snapshotDir = Files.createTempDirectory("boggle");
+		savedSnapshot = System.setProperty(Dictionary.SNAPSHOT_PROPERTY,
+				snapshotDir.resolve("dictionary.dawg").toString());
+		new Dictionary();
+	}
+
+	@AfterClass
+	public static void tearDownSnapshot() throws IOException {
+		if (savedSnapshot == null) {
+			System.clearProperty(Dictionary.SNAPSHOT_PROPERTY);
+		} else {
+			System.setProperty(Dictionary.SNAPSHOT_PROPERTY, savedSnapshot);
+		}
+		try (Stream<Path> files = Files.list(snapshotDir)) {
+			for (Path f : (Iterable<Path>) files::iterator) {
+				Files.delete(f);
+			}
+		}
+		Files.delete(snapshotDir);
+	}
+
 	@Test
 	public void test00_field() {
 		assertEquals("NUMBER_OF_DICE is incorrect", 16, Boggle.NUMBER_OF_DICE);
@@ -145,4 +200,777 @@ public class BoggleTest {
 			assertEquals(word + " is not a Boggle word", false, b.isABoggleWord(word));
 		}
 	}
+
+	@Test
+	public void test10_solve() {
+		Boggle b = new Boggle();
+		b.shuffleAndRoll();
+		List<Die> dice = b.getDice();
+		List<WordPath> words = b.solve();
+		String previous = "";
+		for (WordPath w : words) {
+			String word = w.getWord();
+			assertTrue(word + " is not a Boggle word", b.isABoggleWord(word));
+			assertTrue("words are not sorted or repeated", word.compareTo(previous) > 0);
+			previous = word;
+
+			// check that the path spells the word using adjacent dice once each
+			int[] path = w.getPath();
+			StringBuilder spelled = new StringBuilder();
+			for (int i = 0; i < path.length; i++) {
+				for (int j = 0; j < i; j++) {
+					assertNotEquals("die used twice in " + w, path[i], path[j]);
+				}
+				if (i > 0) {
+					int dr = Math.abs(path[i] / 4 - path[i - 1] / 4);
+					int dc = Math.abs(path[i] % 4 - path[i - 1] % 4);
+					assertTrue("dice are not adjacent in " + w, dr <= 1 && dc <= 1);
+				}
+				spelled.append(dice.get(path[i]).getValue().toLowerCase());
+			}
+			assertEquals("path does not spell the word", word, spelled.toString());
+		}
+	}
+
+	@Test
+	public void test11_solver() {
+		final String[] WORDS = { "ant", "anti", "quit", "quits", "tan", "tin", "unit" };
+		Dawg lexicon = Dawg.build(Arrays.asList(WORDS));
+		// A N T X
+		// X X I X
+		// X QU S X
+		// X X X X
+		final String[] FACES = { "A", "N", "T", "X", "X", "X", "I", "X", "X", "QU", "S", "X", "X", "X", "X", "X" };
+		BoggleSolver solver = new BoggleSolver(lexicon, 3);
+		List<WordPath> got = solver.solve(new Board(FACES));
+		List<String> gotWords = new ArrayList<>();
+		for (WordPath w : got) {
+			gotWords.add(w.getWord());
+		}
+		assertEquals(Arrays.asList("ant", "anti", "quit", "tin"), gotWords);
+		assertEquals(new WordPath("anti", new int[] { 0, 1, 2, 6 }), got.get(1));
+		assertEquals(new WordPath("quit", new int[] { 9, 6, 2 }), got.get(2));
+	}
+
+	@Test
+	public void test13_score() {
+		final String[] WORDS = { "ab", "cat", "cats", "catty", "cattle", "catfish", "category", "categories" };
+		final int[] EXP = { 0, 1, 1, 2, 3, 5, 11, 11 };
+		for (int i = 0; i < WORDS.length; i++) {
+			assertEquals("wrong score for " + WORDS[i], EXP[i], Boggle.score(WORDS[i]));
+		}
+	}
+
+	@Test
+	public void test14_randomBoard() {
+		Random rng = new Random();
+		for (int n = 0; n < 100; n++) {
+			Board board = Boggle.randomBoard(rng);
+			for (int i = 0; i < Board.SIZE; i++) {
+				boolean found = false;
+				for (String[] die : LETTERS) {
+					found = found || Arrays.asList(die).contains(board.getFace(i));
+				}
+				assertTrue(board.getFace(i) + " is not on any die", found);
+			}
+		}
+	}
+
+	@Test
+	public void test15_batchSolver() {
+		Dictionary d = new Dictionary(Dawg.build(Arrays.asList("ant", "anti", "quit", "tin")));
+		final String[] FACES = { "A", "N", "T", "X", "X", "X", "I", "X", "X", "QU", "S", "X", "X", "X", "X", "X" };
+		Board board = new Board(FACES);
+		List<Board> boards = Collections.nCopies(1000, board);
+		BoardStatistics stats = new BatchSolver(d).solve(boards.iterator());
+		assertEquals(1000, stats.getBoards());
+		assertEquals(4000, stats.getWords());
+		assertEquals(4000, stats.getPoints());
+		assertEquals(4, stats.getMaxWords());
+		assertEquals(1000, stats.getWordHistogram()[4]);
+		assertEquals(10000, stats.getLetterCount('x'));
+		assertEquals(1000, stats.getLetterCount('Q'));
+		for (char c : new char[] { '?', '1', '[' }) {
+			try {
+				stats.getLetterCount(c);
+				fail("getLetterCount should reject " + c);
+			} catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+
+		stats = new BatchSolver(d).solve(BatchSolver.randomBoards(1000));
+		assertEquals(1000, stats.getBoards());
+
+		// boards of other sizes count every die and use the minimum length of their dice
+		Board small = new Board(new String[] { "A", "N", "T", "X", "X", "I", "X", "X", "X" });
+		stats = new BatchSolver(d).solve(Collections.nCopies(10, small).iterator());
+		assertEquals(30, stats.getWords());
+		assertEquals(50, stats.getLetterCount('x'));
+		String[] faces = new String[25];
+		Arrays.fill(faces, "X");
+		faces[0] = "A";
+		faces[1] = "N";
+		faces[2] = "T";
+		faces[7] = "I";
+		Board big = new Board(faces);
+		BatchSolver bigSolver = new BatchSolver(d, DiceSet.BIG, ForkJoinPool.commonPool());
+		stats = bigSolver.solve(Collections.nCopies(10, big).iterator());
+		assertEquals(10, stats.getWords());
+		assertEquals(210, stats.getLetterCount('x'));
+		stats = bigSolver.solve(BatchSolver.randomBoards(DiceSet.BIG, 10));
+		assertEquals(10, stats.getBoards());
+	}
+
+	@Test
+	public void test16_seededShuffleAndRoll() {
+		Boggle b1 = new Boggle();
+		Boggle b2 = new Boggle();
+		b1.shuffleAndRoll(2030L);
+		b2.shuffleAndRoll();
+		b2.shuffleAndRoll(2030L);
+		assertEquals("the same seed gave different dice", b1.getDice(), b2.getDice());
+		assertEquals("the same seed gave different codes", b1.encode(), b2.encode());
+		assertEquals(Boggle.seededCode(2030L), b1.encode());
+		assertEquals(b1.getBoard().toString(), Boggle.boardOf(b1.encode()).toString());
+	}
+
+	@Test
+	public void test17_encode() {
+		Boggle b1 = new Boggle();
+		Boggle b2 = new Boggle();
+		for (int i = 0; i < 100; i++) {
+			b1.shuffleAndRoll();
+			BoardCode code = b1.encode();
+			assertEquals(code, BoardCode.parse(code.toString()));
+			b2.setBoard(code);
+			assertEquals("setBoard did not restore the board", b1.getDice(), b2.getDice());
+			assertEquals(code, b2.encode());
+		}
+	}
+
+	@Test
+	public void test18_badCode() {
+		Boggle b = new Boggle();
+		BoardCode code = b.encode();
+		final BoardCode[] BAD = { new BoardCode(0L, 0L), new BoardCode(code.getHigh(), 7L) };
+		for (BoardCode c : BAD) {
+			try {
+				b.setBoard(c);
+				fail("setBoard should reject " + c);
+			} catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+	}
+
+	private static String request(int port, String method, String path, String body) throws IOException {
+		HttpURLConnection c = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+		c.setRequestMethod(method);
+		if (body != null) {
+			c.setDoOutput(true);
+			try (OutputStream out = c.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.US_ASCII));
+			}
+		}
+		int status = c.getResponseCode();
+		if (status >= 400) {
+			return Integer.toString(status);
+		}
+		try (InputStream in = c.getInputStream()) {
+			return new String(in.readAllBytes(), StandardCharsets.US_ASCII).trim();
+		}
+	}
+
+	@Test
+	public void test19_server() throws Exception {
+		Dictionary d = new Dictionary();
+		BoggleServer server = new BoggleServer(d, new InetSocketAddress("localhost", 0));
+		server.start();
+		try {
+			int port = server.getPort();
+			String[] round = request(port, "POST", "/games", "").split(" ");
+			assertEquals(1, server.getRounds());
+			String path = "/games/" + round[0];
+			BoardCode code = BoardCode.parse(round[1]);
+			assertEquals(code + " 0 0", request(port, "GET", path, null));
+
+			List<WordPath> solution = new BoggleSolver(d.getLexicon(), Boggle.MIN_WORD_LENGTH)
+					.solve(Boggle.boardOf(code));
+			int score = 0;
+			if (!solution.isEmpty()) {
+				String word = solution.get(0).getWord();
+				score = Boggle.score(word);
+				assertEquals("ACCEPTED " + score, request(port, "POST", path + "/words", word.toUpperCase()));
+				assertEquals("DUPLICATE 0", request(port, "POST", path + "/words", word));
+			}
+			assertEquals("REJECTED 0", request(port, "POST", path + "/words", "zzzzzzzz"));
+			assertEquals("REJECTED 0", request(port, "POST", path + "/words", "at"));
+			assertEquals(score + " " + Math.min(solution.size(), 1), request(port, "DELETE", path, null));
+			assertEquals(0, server.getRounds());
+			assertEquals("404", request(port, "GET", path, null));
+			assertEquals("404", request(port, "GET", "/games/x", null));
+			assertEquals("405", request(port, "GET", "/games", null));
+		} finally {
+			server.stop(0);
+		}
+
+		// a full server refuses new rounds until one ends, and idle rounds end
+		BoggleServer small = new BoggleServer(d, new InetSocketAddress("localhost", 0), 2, Duration.ofMillis(150));
+		small.start();
+		try {
+			int port = small.getPort();
+			String first = request(port, "POST", "/games", "").split(" ")[0];
+			String second = request(port, "POST", "/games", "").split(" ")[0];
+			assertEquals("503", request(port, "POST", "/games", ""));
+			assertEquals(2, small.getRounds());
+			request(port, "DELETE", "/games/" + first, null);
+			String third = request(port, "POST", "/games", "").split(" ")[0];
+			assertEquals(2, small.getRounds());
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(800);
+			while (small.getRounds() > 0 && System.nanoTime() < deadline) {
+				Thread.sleep(20);
+			}
+			assertEquals(0, small.getRounds());
+			assertEquals("404", request(port, "GET", "/games/" + second, null));
+			assertEquals("404", request(port, "GET", "/games/" + third, null));
+			assertNotEquals("503", request(port, "POST", "/games", ""));
+		} finally {
+			small.stop(0);
+		}
+	}
+
+	@Test
+	public void test20_validate() {
+		Dawg dawg = Dawg.build(Arrays.asList("an", "ant", "anti", "its", "quit", "tin", "tint"));
+		final String[] FACES = { "A", "N", "T", "X", "X", "X", "I", "X", "X", "QU", "S", "X", "X", "X", "X", "X" };
+		List<String> words = Arrays.asList("ant", "TIN", "an", "anti", "ant", "zzz", "its", "tint", "quit", "Quit",
+				"qit", "an");
+		List<WordVerdict> exp = Arrays.asList(WordVerdict.VALID, WordVerdict.VALID, WordVerdict.TOO_SHORT,
+				WordVerdict.VALID, WordVerdict.DUPLICATE, WordVerdict.NOT_IN_DICTIONARY, WordVerdict.NOT_ON_BOARD,
+				WordVerdict.NOT_ON_BOARD, WordVerdict.VALID, WordVerdict.DUPLICATE, WordVerdict.NOT_IN_DICTIONARY,
+				WordVerdict.DUPLICATE);
+		assertEquals(exp, new WordValidator(dawg, Boggle.MIN_WORD_LENGTH).validate(new Board(FACES), words));
+	}
+
+	@Test
+	public void test21_checkWords() {
+		// the batch verdicts agree with checking one word at a time
+		Boggle b = new Boggle();
+		b.shuffleAndRoll(2030);
+		Board board = b.getBoard();
+		List<String> words = new ArrayList<>();
+		for (WordPath w : b.solve()) {
+			String word = w.getWord();
+			words.add(word);
+			words.add(word.substring(1));
+			words.add(word + "s");
+			words.add(new StringBuilder(word).reverse().toString());
+		}
+		List<WordVerdict> got = b.checkWords(words);
+		assertEquals(words.size(), got.size());
+		for (int i = 0; i < words.size(); i++) {
+			String word = words.get(i);
+			boolean ok = b.isABoggleWord(word) && board.findPath(word) != null && words.indexOf(word) == i;
+			assertEquals(word, ok, got.get(i).isValid());
+		}
+	}
+
+	@Test
+	public void test22_solutionCache() {
+		Dictionary d = new Dictionary();
+		SolutionCache cache = new SolutionCache(d, 2);
+		Boggle b = new Boggle(d);
+		b.shuffleAndRoll(2030);
+		List<WordPath> exp = b.solve();
+		b.setSolutionCache(cache);
+		List<WordPath> got = b.solve();
+		assertEquals(exp.size(), got.size());
+		for (int i = 0; i < got.size(); i++) {
+			// the path may be a different one that spells the same word
+			assertEquals(exp.get(i).getWord(), got.get(i).getWord());
+			assertEquals(got.get(i).getWord(), b.getBoard().spell(got.get(i).getPath()));
+		}
+		assertEquals(1, cache.getMisses());
+
+		// every rotation and reflection of the board is a hit with the same words
+		Board board = b.getBoard();
+		final int[][] SYMMETRIES = { { 3, 7, 11, 15, 2, 6, 10, 14, 1, 5, 9, 13, 0, 4, 8, 12 },
+				{ 15, 14, 13, 12, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1, 0 },
+				{ 3, 2, 1, 0, 7, 6, 5, 4, 11, 10, 9, 8, 15, 14, 13, 12 },
+				{ 0, 4, 8, 12, 1, 5, 9, 13, 2, 6, 10, 14, 3, 7, 11, 15 } };
+		for (int[] sym : SYMMETRIES) {
+			String[] faces = new String[Board.SIZE];
+			for (int i = 0; i < faces.length; i++) {
+				faces[i] = board.getFace(sym[i]);
+			}
+			Board image = new Board(faces);
+			got = cache.solve(image);
+			assertEquals(exp.size(), got.size());
+			for (int i = 0; i < got.size(); i++) {
+				WordPath w = got.get(i);
+				assertEquals(exp.get(i).getWord(), w.getWord());
+				assertTrue(Board.isPath(w.getPath()));
+				assertEquals(w.getWord(), image.spell(w.getPath()));
+			}
+		}
+		assertEquals(1, cache.getMisses());
+		assertEquals(4, cache.getHits());
+		assertEquals(0, cache.getEvictions());
+
+		for (long seed = 1; seed <= 3; seed++) {
+			cache.solve(Boggle.boardOf(Boggle.seededCode(seed)));
+		}
+		assertEquals(4, cache.getMisses());
+		assertEquals(2, cache.getEvictions());
+		assertEquals(2, cache.size());
+
+		// boards of other sizes are keyed and solved by their own size
+		SolutionCache bigCache = new SolutionCache(d, DiceSet.BIG.getMinWordLength(), 4);
+		BoggleSolver bigSolver = new BoggleSolver(d.getLexicon(), DiceSet.BIG.getMinWordLength());
+		Board big = Boggle.randomBoard(DiceSet.BIG, new SplittableRandom(22));
+		String[] faces = new String[big.size()];
+		for (int i = 0; i < faces.length; i++) {
+			faces[i] = big.getFace(i < 16 ? i : faces.length - 1 - (i - 16));
+		}
+		// the same first 16 dice as the board above
+		Board other = new Board(faces);
+		for (Board board5 : new Board[] { big, other }) {
+			List<String> expWords = new ArrayList<>();
+			for (WordPath w : bigSolver.solve(board5)) {
+				expWords.add(w.getWord());
+			}
+			List<String> gotWords = new ArrayList<>();
+			for (WordPath w : bigCache.solve(board5)) {
+				assertTrue(w.getWord().length() >= DiceSet.BIG.getMinWordLength());
+				assertEquals(w.getWord(), board5.spell(w.getPath()));
+				gotWords.add(w.getWord());
+			}
+			assertEquals(expWords, gotWords);
+		}
+		assertEquals(2, bigCache.getMisses());
+		Board small = new Board(new String[] { "C", "A", "T", "X", "X", "X", "X", "X", "X" });
+		assertEquals(bigSolver.solve(small).size(), bigCache.solve(small).size());
+	}
+
+	@Test
+	public void test23_optimizer() {
+		Dictionary d = new Dictionary(Dawg.build(Arrays.asList("ant", "ate", "eat", "net", "nit", "sat", "sea", "seat",
+				"set", "sit", "tan", "tea", "ten", "tie", "tin")));
+		BoardOptimizer opt = new BoardOptimizer(d, 2030);
+		BoggleSolver solver = new BoggleSolver(d.getLexicon(), Boggle.MIN_WORD_LENGTH);
+		List<BoardCode> codes = opt.withWords(4, 6).sequential().limit(3).collect(Collectors.toList());
+		assertEquals(3, codes.size());
+		for (BoardCode code : codes) {
+			int words = solver.solve(Boggle.boardOf(code)).size();
+			assertTrue(code + " has " + words + " words", words >= 4 && words <= 6);
+		}
+		assertTrue(opt.getEvaluations() >= 3);
+
+		codes = opt.withPoints(6, 6).limit(2).collect(Collectors.toList());
+		for (BoardCode code : codes) {
+			int points = 0;
+			for (WordPath w : solver.solve(Boggle.boardOf(code))) {
+				points += Boggle.score(w.getWord());
+			}
+			assertEquals(6, points);
+		}
+	}
+
+	@Test
+	public void test24_wordCursor() {
+		Dawg dawg = Dawg.build(Arrays.asList("an", "ant", "anti", "quit", "tin"));
+		final String[] FACES = { "A", "N", "T", "X", "X", "X", "I", "X", "X", "QU", "S", "X", "X", "X", "X", "X" };
+		WordCursor c = new WordCursor(dawg, new Board(FACES), Boggle.MIN_WORD_LENGTH);
+		assertEquals((1 << 0) | (1 << 2) | (1 << 9), c.getExtensions());
+		assertTrue(c.push(0));
+		assertTrue(c.isPrefix());
+		assertEquals(1 << 1, c.getExtensions());
+		assertFalse(c.push(2));
+		assertTrue(c.push(1));
+		assertFalse("an is too short", c.isWord());
+		assertTrue(c.push(2));
+		assertTrue(c.isWord());
+		assertEquals("ant", c.getWord());
+		assertEquals(1 << 6, c.getExtensions());
+		assertTrue(c.push(6));
+		assertTrue(c.isWord());
+		assertEquals(0, c.getExtensions());
+		c.pop();
+		c.pop();
+		assertTrue(c.push(5));
+		assertFalse(c.isPrefix());
+		assertFalse(c.isWord());
+		assertEquals(0, c.getExtensions());
+
+		c.clear();
+		assertEquals(0, c.getUsedDice());
+		for (int die : new int[] { 9, 6, 2 }) {
+			assertTrue(c.canExtend(die));
+			c.push(die);
+		}
+		assertEquals("quit", c.getWord());
+		assertTrue(c.isWord());
+	}
+
+	@Test
+	public void test25_registry() throws Exception {
+		DictionaryRegistry registry = new DictionaryRegistry(Runnable::run);
+		Dictionary first = new Dictionary(Dawg.build(Arrays.asList("ant", "tan")));
+		registry.put("room", first);
+		Boggle b = new Boggle(registry, "room");
+		b.setBoard(Boggle.seededCode(25));
+		assertSame(first, b.getDictionary());
+		assertTrue(b.isABoggleWord("ant"));
+
+		// a new list takes effect at the start of the next round
+		Path file = Files.createTempFile("boggle", ".txt");
+		try {
+			Files.write(file, Arrays.asList("bat", "", "  tab"));
+			Dictionary second = registry.load("room", file).get();
+			assertSame(second, registry.get("room"));
+			assertTrue(second.getLexicon() instanceof Dawg && ((Dawg) second.getLexicon()).isOffHeap());
+		} finally {
+			Files.delete(file);
+		}
+		assertSame("the dictionary changed during a round", first, b.getDictionary());
+		assertTrue(b.isABoggleWord("ant"));
+		b.shuffleAndRoll();
+		assertFalse(b.isABoggleWord("ant"));
+		assertTrue(b.isABoggleWord("tab"));
+
+		// a failed reload keeps the old list
+		Dictionary current = registry.get("room");
+		try {
+			registry.reload("room", () -> {
+				throw new IllegalStateException("bad list");
+			}).join();
+			fail("the reload should have failed");
+		} catch (java.util.concurrent.CompletionException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		assertSame(current, registry.get("room"));
+
+		assertEquals(Collections.singleton("room"), registry.getNames());
+		assertSame(current, registry.remove("room"));
+		assertFalse(registry.contains("room"));
+
+		// a round that cannot start leaves the board as it was
+		String board = b.getBoard().toString();
+		BoardCode code = b.encode();
+		try {
+			b.shuffleAndRoll(26);
+			fail("a round without a dictionary should not start");
+		} catch (java.util.NoSuchElementException ex) {
+			// expected
+		}
+		assertEquals(board, b.getBoard().toString());
+		assertEquals(code, b.encode());
+		try {
+			new Boggle(registry, "room");
+			fail("a missing dictionary should be rejected");
+		} catch (java.util.NoSuchElementException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void test26_boardSizes() {
+		assertEquals(16, DiceSet.CLASSIC.getNumberOfDice());
+		assertEquals(25, DiceSet.BIG.getNumberOfDice());
+		assertEquals(36, DiceSet.SUPER_BIG.getNumberOfDice());
+		assertEquals(4, DiceSet.BIG.getMinWordLength());
+		for (DiceSet set : DiceSet.values()) {
+			for (int i = 0; i < set.getNumberOfDice(); i++) {
+				assertEquals(set + " die " + i, 6, set.getFaces(i).length);
+			}
+		}
+		assertArrayEquals(new String[] { "AN", "ER", "HE", "IN", "QU", "TH" }, DiceSet.SUPER_BIG.getFaces(12));
+
+		// the far corner of an 8x8 board uses the top bit of the mask
+		String[] faces = new String[64];
+		Arrays.fill(faces, "X");
+		faces[61] = "C";
+		faces[62] = "A";
+		faces[63] = "T";
+		Board big = new Board(faces);
+		assertEquals(8, big.getSide());
+		assertEquals((1L << 54) | (1L << 55) | (1L << 62), big.getNeighbors(63));
+		assertTrue(big.hasPath(new int[] { 63, 62, 61 }));
+		assertFalse(big.hasPath(new int[] { 61, 63 }));
+		WordValidator validator = new WordValidator(Dawg.build(Arrays.asList("act", "cat", "tac")), 3);
+		assertEquals(Arrays.asList(WordVerdict.VALID, WordVerdict.VALID, WordVerdict.NOT_ON_BOARD),
+				validator.validate(big, Arrays.asList("cat", "TAC", "act")));
+		for (int n : new int[] { 0, 15, 81 }) {
+			try {
+				new Board(new String[n]);
+				fail("a board of " + n + " dice should be rejected");
+			} catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+
+		for (DiceSet set : new DiceSet[] { DiceSet.BIG, DiceSet.SUPER_BIG }) {
+			Boggle b = new Boggle(set, new Boggle().getDictionary());
+			Boggle other = new Boggle(set, b.getDictionary());
+			b.shuffleAndRoll(20);
+			other.shuffleAndRoll(20);
+			assertEquals(set + " seeded rolls differ", b.getBoard().toString(), other.getBoard().toString());
+			assertEquals(set.getNumberOfDice(), b.getDice().size());
+			assertEquals(set.getSide(), b.getBoard().getSide());
+
+			Board board = b.getBoard();
+			List<WordPath> words = b.solve();
+			assertFalse(words.isEmpty());
+			List<String> found = new ArrayList<>();
+			for (WordPath w : words) {
+				assertTrue(w.getWord().length() >= set.getMinWordLength());
+				assertTrue(board.hasPath(w.getPath()));
+				assertEquals(w.getWord(), board.spell(w.getPath()));
+				WordCursor c = b.newWordCursor();
+				for (int die : w.getPath()) {
+					assertTrue(c.push(die));
+				}
+				assertTrue(c.isWord());
+				found.add(w.getWord());
+			}
+			for (WordVerdict v : b.checkWords(found)) {
+				assertEquals(WordVerdict.VALID, v);
+			}
+			try {
+				b.encode();
+				fail("board codes are for the standard dice only");
+			} catch (UnsupportedOperationException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void test27_streamWords() throws Exception {
+		Boggle b = new Boggle();
+		b.shuffleAndRoll(27);
+		List<WordPath> all = b.solve();
+		assertFalse(all.isEmpty());
+		Board board = b.getBoard();
+
+		for (WordStream.Order order : WordStream.Order.values()) {
+			List<WordPath> streamed = new ArrayList<>();
+			assertTrue(b.solve(order, streamed::add));
+			List<String> words = new ArrayList<>();
+			int last = order == WordStream.Order.LONGEST_FIRST ? Integer.MAX_VALUE : 0;
+			for (WordPath w : streamed) {
+				assertTrue(board.hasPath(w.getPath()));
+				assertEquals(w.getWord(), board.spell(w.getPath()));
+				int length = w.getWord().length();
+				if (order == WordStream.Order.LONGEST_FIRST) {
+					assertTrue(order + " out of order", length <= last);
+				} else if (order == WordStream.Order.SHORTEST_FIRST) {
+					assertTrue(order + " out of order", length >= last);
+				}
+				last = length;
+				words.add(w.getWord());
+			}
+			Collections.sort(words);
+			assertEquals(order.toString(), all.stream().map(WordPath::getWord).collect(Collectors.toList()), words);
+		}
+
+		// the consumer can stop the search
+		List<WordPath> firstTwo = new ArrayList<>();
+		assertFalse(b.solve(WordStream.Order.FOUND, w -> firstTwo.add(w) && firstTwo.size() < 2));
+		assertEquals(2, firstTwo.size());
+		assertTrue(b.hasAtLeast(all.size()));
+		assertFalse(b.hasAtLeast(all.size() + 1));
+
+		// a subscriber gets only what it requests, and can cancel
+		BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Flow.Subscription[] subscription = new Flow.Subscription[1];
+			b.publishWords(WordStream.Order.LONGEST_FIRST, executor)
+					.subscribe(new Flow.Subscriber<WordPath>() {
+						@Override
+						public void onSubscribe(Flow.Subscription s) {
+							subscription[0] = s;
+						}
+
+						@Override
+						public void onNext(WordPath item) {
+							signals.add(item);
+						}
+
+						@Override
+						public void onError(Throwable throwable) {
+							signals.add(throwable);
+						}
+
+						@Override
+						public void onComplete() {
+							signals.add("complete");
+						}
+					});
+			subscription[0].request(3);
+			int longest = all.stream().mapToInt(w -> w.getWord().length()).max().getAsInt();
+			for (int i = 0; i < Math.min(3, all.size()); i++) {
+				Object signal = signals.poll(1, TimeUnit.SECONDS);
+				assertTrue(signal instanceof WordPath);
+				if (i == 0) {
+					assertEquals(longest, ((WordPath) signal).getWord().length());
+				}
+			}
+			subscription[0].cancel();
+			executor.submit(() -> null).get();
+			assertTrue(all.size() <= 3 || signals.isEmpty());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void test28_roundScorer() throws Exception {
+		Boggle b = new Boggle();
+		b.shuffleAndRoll(28);
+		List<WordPath> words = b.solve();
+		assertTrue(words.size() >= 3);
+		String w0 = words.get(0).getWord();
+		String w1 = words.get(1).getWord();
+		String w2 = words.get(2).getWord();
+
+		RoundScorer scorer = b.newRoundScorer(3);
+		assertEquals(words.size(), scorer.getWordCount());
+		assertEquals(WordVerdict.VALID, scorer.submit(0, w0));
+		assertEquals(WordVerdict.DUPLICATE, scorer.submit(0, w0.toUpperCase()));
+		assertEquals(WordVerdict.VALID, scorer.submit(1, w0));
+		assertEquals(WordVerdict.VALID, scorer.submit(1, w1));
+		assertEquals(WordVerdict.VALID, scorer.submit(2, w2));
+		assertEquals(WordVerdict.TOO_SHORT, scorer.submit(2, "at"));
+		assertEquals(WordVerdict.NOT_IN_DICTIONARY, scorer.submit(2, "qxzv"));
+		assertEquals(2, scorer.countFinders(w0));
+		int[] scores = scorer.close();
+		assertArrayEquals(new int[] { 0, Boggle.score(w1), Boggle.score(w2) }, scores);
+		assertArrayEquals(scores, scorer.close());
+		try {
+			scorer.submit(0, w1);
+			fail("a closed round should refuse words");
+		} catch (IllegalStateException ex) {
+			// expected
+		}
+
+		// many players submitting at once: every even player finds every word, and
+		// player 1 alone also finds the first word
+		int players = 200;
+		RoundScorer many = b.newRoundScorer(players);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int p = 0; p < players; p += 2) {
+				int player = p;
+				futures.add(executor.submit(() -> {
+					for (WordPath w : words) {
+						assertEquals(WordVerdict.VALID, many.submit(player, w.getWord()));
+					}
+				}));
+			}
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(WordVerdict.VALID, many.submit(1, w0));
+		assertEquals(players / 2 + 1, many.countFinders(w0));
+		for (int s : many.close()) {
+			assertEquals(0, s);
+		}
+
+		// closing while words are still being submitted: every word that was
+		// accepted is scored, and every word submitted later is refused
+		int racers = 4;
+		ExecutorService pool = Executors.newFixedThreadPool(racers);
+		try {
+			for (int round = 0; round < 20; round++) {
+				RoundScorer race = b.newRoundScorer(racers);
+				CountDownLatch started = new CountDownLatch(racers);
+				List<Future<Integer>> accepted = new ArrayList<>();
+				for (int p = 0; p < racers; p++) {
+					int player = p;
+					accepted.add(pool.submit(() -> {
+						// each player alone finds its share of the words
+						int points = 0;
+						started.countDown();
+						try {
+							for (int i = player; i < words.size(); i += racers) {
+								String word = words.get(i).getWord();
+								if (race.submit(player, word) == WordVerdict.VALID) {
+									points += Boggle.score(word);
+								}
+							}
+						} catch (IllegalStateException ex) {
+							// the round was closed
+						}
+						return points;
+					}));
+				}
+				started.await();
+				int[] raced = race.close();
+				for (int p = 0; p < racers; p++) {
+					assertEquals(accepted.get(p).get().intValue(), raced[p]);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void test29_solveIds() {
+		Boggle b = new Boggle();
+		Lexicon lexicon = b.getDictionary().getLexicon();
+		BoggleSolver solver = new BoggleSolver(lexicon, Boggle.MIN_WORD_LENGTH);
+		for (int seed = 0; seed < 8; seed++) {
+			Board board = Boggle.boardOf(Boggle.seededCode(seed));
+			List<WordPath> words = solver.solve(board);
+			int[] ids = solver.solveIds(board);
+			assertEquals(words.size(), ids.length);
+			for (int i = 0; i < ids.length; i++) {
+				assertEquals(words.get(i).getWord(), lexicon.wordOf(ids[i]));
+			}
+		}
+
+		// a round can be played with ids as well as words
+		b.shuffleAndRoll(29);
+		int[] ids = solver.solveIds(b.getBoard());
+		RoundScorer scorer = b.newRoundScorer(2);
+		assertEquals(WordVerdict.VALID, scorer.submit(0, ids[0]));
+		assertEquals(WordVerdict.DUPLICATE, scorer.submit(0, lexicon.wordOf(ids[0])));
+		int absent = lexicon.size() - 1;
+		while (Arrays.binarySearch(ids, absent) >= 0 || lexicon.wordOf(absent).length() < Boggle.MIN_WORD_LENGTH) {
+			absent--;
+		}
+		assertEquals(WordVerdict.NOT_ON_BOARD, scorer.submit(1, absent));
+		int shortWord = 0;
+		while (lexicon.wordOf(shortWord).length() >= Boggle.MIN_WORD_LENGTH) {
+			shortWord++;
+		}
+		assertEquals(WordVerdict.TOO_SHORT, scorer.submit(1, shortWord));
+		assertEquals(WordVerdict.NOT_IN_DICTIONARY, scorer.submit(1, "qzxv"));
+		assertArrayEquals(new int[] { Boggle.score(lexicon.wordOf(ids[0])), 0 }, scorer.close());
+	}
+
+	@Test
+	public void test30_suggest() {
+		Boggle b = new Boggle();
+		b.shuffleAndRoll(30);
+		Board board = b.getBoard();
+		String word = b.solve().get(0).getWord();
+		// a word with one letter replaced is usually not a word, but the word is close
+		String typo = word.substring(0, word.length() - 1) + (word.endsWith("q") ? "z" : "q");
+		List<String> suggestions = b.suggest(typo, 1, 100);
+		assertTrue(suggestions.contains(word));
+		for (String s : suggestions) {
+			assertTrue(b.isABoggleWord(s));
+			assertNotNull(s, board.findPath(s));
+		}
+		assertTrue(b.suggest(typo, 1, 1).size() <= 1);
+	}
 }
@@ -7,9 +7,8 @@ import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
@@ -42,22 +41,46 @@ public class BoggleView extends JFrame implements ActionListener {
 	 */
 	public static final String SUBMIT_COMMAND = "submit";
 
+	private static final String TITLE = "Boggle";
+	private static final String LOADING_TITLE = TITLE + " (loading the dictionary...)";
+
+	/**
+	 * The background of a die that cannot lead to any word from the current
+	 * letters.
+	 */
+	private static final Color DEAD_END = Color.LIGHT_GRAY;
+
+	/**
+	 * The background of the word field when the current letters are a word.
+	 */
+	private static final Color COMPLETE_WORD = new Color(200, 240, 200);
+
 	private List<JButton> diceButtons;
+	private JPanel dicePanel;
+	private int side;
 	private JTextField word;
-	private Set<JButton> usedButtons;
+	private StringBuilder currentWord;
+	private long usedDice;
+	private WordCursor cursor;
 	private JTextArea correctWords;
 	private JTextArea incorrectWords;
+	private JButton submit;
+	private JButton roll;
+	private boolean ready;
 
 	/**
 	 * Create the Boggle user interface. Please see the lab for a detailed
-	 * description of the user interface.
+	 * description of the user interface. The dice and the submit and roll
+	 * buttons are disabled until <code>setReady(true)</code> is called.
 	 * 
 	 * @param controller the controller that listens for submit and roll events
 	 */
 	public BoggleView(BoggleController controller) {
-		super("Boggle");
+		super(LOADING_TITLE);
 		this.diceButtons = new ArrayList<JButton>();
-		this.usedButtons = new HashSet<JButton>();
+		this.usedDice = 0;
+		this.currentWord = new StringBuilder();
+		this.cursor = null;
 
 		JPanel contentPanel = new JPanel();
 		JPanel leftPanel = this.makeLeftPanel();
@@ -69,60 +92,76 @@ public class BoggleView extends JFrame implements ActionListener {
 		this.setContentPane(contentPanel);
 		this.pack();
 		this.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+		this.setReady(false);
+	}
+
+	/**
+	 * Lets the player use the dice and the submit and roll buttons, or stops
+	 * them while the game is not ready to be played.
+	 *
+	 * @param ready true if the model is ready to check words
+	 */
+	public void setReady(boolean ready) {
+		this.ready = ready;
+		this.submit.setEnabled(ready);
+		this.roll.setEnabled(ready);
+		this.setTitle(ready ? TITLE : LOADING_TITLE);
+		this.clearCurrentWord();
+	}
+
+	/**
+	 * Shows that the game could not be started because the model could not be
+	 * created, usually because the dictionary could not be read.
+	 *
+	 * @param error the reason the model could not be created
+	 */
+	public void setLoadFailed(Throwable error) {
+		this.setReady(false);
+		this.setTitle(TITLE + " (could not load the dictionary: " + error.getMessage() + ")");
 	}
 
 	/**
 	 * Creates the panel that contains the buttons representing the Boggle dice.
+	 * The panel starts with the 4x4 standard board.
 	 * 
 	 * @return the <code>JPanel</code> that contains the buttons representing the
 	 *         Boggle dice.
 	 * 
 	 */
 	private JPanel makeDicePanel() {
-		Font font = new Font(Font.SANS_SERIF, Font.BOLD, 32);
-		JPanel p = new JPanel();
-		p.setLayout(new GridLayout(4, 4));
-		p.setMaximumSize(new Dimension(450, 450));
-		for (int i = 0; i < 16; i++) {
+		this.dicePanel = new JPanel();
+		this.dicePanel.setMaximumSize(new Dimension(450, 450));
+		this.makeDiceButtons(Board.SIDE);
+		return this.dicePanel;
+	}
+
+	/**
+	 * Replaces the buttons representing the dice with a square of buttons with
+	 * the specified number of dice in each row. The buttons shrink as the board
+	 * grows so that the panel keeps the same size.
+	 * 
+	 * @param side the number of dice in a row of the board
+	 */
+	private void makeDiceButtons(int side) {
+		Font font = new Font(Font.SANS_SERIF, Font.BOLD, 32 * Board.SIDE / side);
+		int size = 100 * Board.SIDE / side;
+		this.side = side;
+		this.dicePanel.removeAll();
+		this.dicePanel.setLayout(new GridLayout(side, side));
+		this.diceButtons.clear();
+		for (int i = 0; i < side * side; i++) {
 			JButton b = new JButton("" + i);
-			b.setPreferredSize(new Dimension(100, 100));
+			b.setPreferredSize(new Dimension(size, size));
 			b.setMaximumSize(b.getSize());
 			b.setFont(font);
 			b.setBackground(Color.WHITE);
 			b.setActionCommand("" + i);
 			b.addActionListener(this);
-			p.add(b);
+			this.dicePanel.add(b);
 			this.diceButtons.add(b);
 		}
-		return p;
-	}
-
-	/**
-	 * Returns the buttons surrounding the button representing the die that was last
-	 * selected by the user. These are the buttons that could legally be chosen next
-	 * by the user when forming a word.
-	 * 
-	 * @param idx the index of the button representing the die that was last
-	 *            selected by the user
-	 * @return the buttons surrounding the last selected die
-	 */
-	private List<JButton> findNeighbors(int idx) {
-		List<JButton> neighbors = new ArrayList<JButton>();
-		final int row = idx / 4;
-		final int col = idx % 4;
-		final int minRow = Math.max(0, row - 1);
-		final int maxRow = Math.min(3, row + 1);
-		final int minCol = Math.max(0, col - 1);
-		final int maxCol = Math.min(3, col + 1);
-		for (int i = minRow; i <= maxRow; i++) {
-			for (int j = minCol; j <= maxCol; j++) {
-				int n = i * 4 + j;
-				if (n != idx) {
-					neighbors.add(this.diceButtons.get(n));
-				}
-			}
-		}
-		return neighbors;
+		this.dicePanel.revalidate();
+		this.dicePanel.repaint();
 	}
 
 	/**
@@ -168,21 +207,43 @@ public class BoggleView extends JFrame implements ActionListener {
 				int d = Integer.parseInt(command);
 				JButton b = this.diceButtons.get(d);
 				b.setBackground(Color.BLUE);
-				this.word.setText(this.word.getText() + b.getText());
-				this.usedButtons.add(b);
+				this.currentWord.append(b.getText());
+				this.word.setText(this.currentWord.toString());
+				this.usedDice |= 1L << d;
 				this.disableAllDiceButtons();
-				List<JButton> neighbors = findNeighbors(d);
-				for (JButton n : neighbors) {
-					if (!this.usedButtons.contains(n)) {
-						n.setEnabled(true);
-					}
+				if (this.cursor != null) {
+					this.cursor.push(d);
 				}
+
+				// the unused dice surrounding the die that was just selected
+				for (long m = Board.neighbors(this.side, d) & ~this.usedDice; m != 0; m &= m - 1) {
+					this.diceButtons.get(Long.numberOfTrailingZeros(m)).setEnabled(true);
+				}
+				this.showCursor();
 			} catch (NumberFormatException ex) {
 
 			}
 		}
 	}
 
+	/**
+	 * Dims the unused dice that cannot lead to a word from the current letters
+	 * and marks the word field if the current letters are a word. Does nothing
+	 * if there is no word cursor.
+	 */
+	private void showCursor() {
+		if (this.cursor == null) {
+			return;
+		}
+		long live = this.cursor.getExtensions();
+		for (int i = 0; i < this.diceButtons.size(); i++) {
+			if ((this.usedDice & (1L << i)) == 0) {
+				this.diceButtons.get(i).setBackground((live & (1L << i)) != 0 ? Color.WHITE : DEAD_END);
+			}
+		}
+		this.word.setBackground(this.cursor.isWord() ? COMPLETE_WORD : Color.WHITE);
+	}
+
 	/**
 	 * Creates the left-hand panel. Please see the lab for a detailed description of
 	 * the panel's contents.
@@ -264,16 +325,16 @@ public class BoggleView extends JFrame implements ActionListener {
 		this.word.setEditable(false);
 		p.add(this.word);
 
-		JButton submit = new JButton("Submit");
-		submit.setActionCommand(BoggleView.SUBMIT_COMMAND);
-		submit.addActionListener(controller);
-		p.add(submit);
+		this.submit = new JButton("Submit");
+		this.submit.setActionCommand(BoggleView.SUBMIT_COMMAND);
+		this.submit.addActionListener(controller);
+		p.add(this.submit);
 
-		JButton roll = new JButton("Re-roll");
-		roll.setActionCommand(BoggleView.ROLL_COMMAND);
-		roll.addActionListener(controller);
-		roll.addActionListener(this);
-		p.add(roll);
+		this.roll = new JButton("Re-roll");
+		this.roll.setActionCommand(BoggleView.ROLL_COMMAND);
+		this.roll.addActionListener(controller);
+		this.roll.addActionListener(this);
+		p.add(this.roll);
 
 		return p;
 	}
@@ -288,20 +349,40 @@ public class BoggleView extends JFrame implements ActionListener {
 	}
 
 	/**
-	 * Sets the text on the buttons representing the dice.
+	 * Sets the text on the buttons representing the dice. If the number of dice
+	 * has changed, for example from the 16 standard dice to the 25 dice of Big
+	 * Boggle, the buttons are laid out again as a square of the new size.
 	 * 
-	 * @pre. <code>dice.size() == 16</code>
+	 * @pre. <code>dice.size()</code> is the square of a side from 1 to
+	 *       <code>Board.MAX_SIDE</code>
 	 * 
-	 * @param dice a list of 16 Boggle dice
+	 * @param dice a list of Boggle dice in row-major order
 	 */
 	public void setDice(List<Die> dice) {
-		for (int i = 0; i < 16; i++) {
+		if (dice.size() != this.diceButtons.size()) {
+			this.makeDiceButtons((int) Math.round(Math.sqrt(dice.size())));
+			this.pack();
+		}
+		for (int i = 0; i < dice.size(); i++) {
 			Die d = dice.get(i);
 			JButton b = this.diceButtons.get(i);
 			b.setText(d.getValue());
 		}
 	}
 
+	/**
+	 * Sets the word cursor that the view follows as dice are clicked, and clears
+	 * the current word. The cursor must be on the board shown by the view; with
+	 * a cursor the view dims the dice that cannot lead to a word and marks the
+	 * current word when it is complete.
+	 *
+	 * @param cursor a word cursor on the current board, or null for none
+	 */
+	public void setWordCursor(WordCursor cursor) {
+		this.cursor = cursor;
+		this.clearCurrentWord();
+	}
+
 	/**
 	 * Causes the view to update after the submitted word is evaluated for
 	 * correctness. If <code>isValid == true</code> then the current word is added
@@ -313,25 +394,66 @@ public class BoggleView extends JFrame implements ActionListener {
 	 *                be a legal Boggle word, <code>false</code> otherwise
 	 */
 	public void setWordIsValid(boolean isValid) {
-		if (isValid) {
-			this.correctWords.append(this.getWord());
-			this.correctWords.append("\n");
-		} else {
-			this.incorrectWords.append(this.getWord());
-			this.incorrectWords.append("\n");
+		this.setWordIsValid(this.getWord(), isValid);
+	}
+
+	/**
+	 * Causes the view to update after the specified submitted word is evaluated
+	 * for correctness. The word is added to the list of correct or incorrect
+	 * words, and the current word is cleared if it is still the submitted word.
+	 * The controller checks words in the background, so the player may have
+	 * started another word by the time the result arrives.
+	 *
+	 * @param word    the word that was submitted
+	 * @param isValid <code>true</code> if the word has been determined to be a
+	 *                legal Boggle word, <code>false</code> otherwise
+	 */
+	public void setWordIsValid(String word, boolean isValid) {
+		this.setWordIsValid(word, isValid, Collections.emptyList());
+	}
+
+	/**
+	 * Causes the view to update after the specified submitted word is evaluated
+	 * for correctness, as <code>setWordIsValid(String, boolean)</code> does. An
+	 * incorrect word is listed together with the specified suggestions of words
+	 * the player may have meant.
+	 *
+	 * @param word        the word that was submitted
+	 * @param isValid     <code>true</code> if the word has been determined to be
+	 *                    a legal Boggle word, <code>false</code> otherwise
+	 * @param suggestions words close to an incorrect word, closest first
+	 */
+	public void setWordIsValid(String word, boolean isValid, List<String> suggestions) {
+		JTextArea list = isValid ? this.correctWords : this.incorrectWords;
+		list.append(word);
+		if (!isValid && !suggestions.isEmpty()) {
+			list.append(" (try " + String.join(", ", suggestions) + ")");
+		}
+		list.append("\n");
+		if (this.getWord().equals(word)) {
+			this.clearCurrentWord();
 		}
-		this.clearCurrentWord();
 	}
 
 	/**
 	 * Clears the current word and prepares the view to accept a new word. This
-	 * requires re-enabling all of the dice buttons and clearing the set
-	 * this.usedButtons
+	 * requires re-enabling all of the dice buttons, clearing the mask
+	 * this.usedDice, and emptying the word cursor if there is one
 	 */
 	private void clearCurrentWord() {
-		this.enableAllDiceButtons();
+		if (this.ready) {
+			this.enableAllDiceButtons();
+		} else {
+			this.disableAllDiceButtons();
+		}
 		this.word.setText("");
-		this.usedButtons.clear();
+		this.currentWord.setLength(0);
+		this.usedDice = 0;
+		this.word.setBackground(Color.WHITE);
+		if (this.cursor != null) {
+			this.cursor.clear();
+			this.showCursor();
+		}
 	}
 
 	/**
@@ -0,0 +1,250 @@
+package com.mhkb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * An immutable minimized directed acyclic word graph (DAWG). Words that share
+ * a suffix share the nodes for that suffix, so the whole dictionary fits in a
+ * single <code>int</code> buffer of a few megabytes and every query walks the
+ * buffer without creating any objects. The buffer can wrap an array on the
+ * heap, live in direct memory outside the heap (see <code>offHeap</code>), or
+ * be mapped straight from a snapshot file (see <code>DictionarySnapshot</code>).
+ * Queries run against the buffer wherever it lives.
+ *
+ * <p>
+ * Implementation Details: the graph is stored as a buffer of edges. The edges
+ * leaving a node occupy consecutive array elements sorted by letter, and a
+ * node is identified by the index of its first edge. Index 0 is never used by
+ * an edge; a target of 0 means that the target node has no children. Each edge
+ * is packed into one <code>int</code>:
+ *
+ * <pre>
+ * bits 0-4   the letter, 0 for 'a' through 25 for 'z'
+ * bit  5     set if this is the last edge of its node
+ * bit  6     set if the target node ends a word
+ * bits 7-31  the index of the first edge of the target node
+ * </pre>
+ *
+ * <p>
+ * A node handle is the index of the node's first edge shifted left by one,
+ * with the low bit set if the node ends a word.
+ *
+ * <p>
+ * A second buffer, parallel to the edges, holds the <code>edgeRank</code> of
+ * every edge: the number of words below the earlier edges of the same node.
+ * Word ids are computed from these counts on the way down, so the id of a
+ * word and the word of an id both cost one walk of the graph.
+ *
+ */
+public final class Dawg implements Lexicon {
+
+	static final int LETTER_MASK = 0x1F;
+	static final int LAST_EDGE = 1 << 5;
+	static final int TERMINAL = 1 << 6;
+	static final int TARGET_SHIFT = 7;
+
+	/**
+	 * The largest number of edges a DAWG can hold.
+	 */
+	static final int MAX_EDGES = 1 << (32 - TARGET_SHIFT);
+
+	private final IntBuffer edges;
+	private final IntBuffer ranks;
+	private final int size;
+	private final int root;
+
+	/**
+	 * Initializes a DAWG from its packed edges. The buffer must not be modified
+	 * afterwards.
+	 *
+	 * @param edges the packed edges, from index 0 to the limit; element 0 is
+	 *              unused
+	 * @param ranks the rank of every edge, with the same limit as the edges
+	 * @param size  the number of words in the graph
+	 */
+	Dawg(IntBuffer edges, IntBuffer ranks, int size) {
+		if (ranks.limit() != edges.limit()) {
+			throw new IllegalArgumentException("need one rank per edge");
+		}
+		this.edges = edges;
+		this.ranks = ranks;
+		this.size = size;
+		this.root = edges.limit() > 1 ? 1 << 1 : 0;
+	}
+
+	/**
+	 * Builds a minimized DAWG from a sequence of words in ascending order. Every
+	 * word must consist of the letters <code>a</code> through <code>z</code>
+	 * only; repeated words are ignored.
+	 *
+	 * @param sortedWords the words, in ascending order
+	 * @return a DAWG containing exactly the given words
+	 * @throws IllegalArgumentException if the words are not sorted or contain a
+	 *                                  character other than a letter
+	 */
+	public static Dawg build(Iterable<? extends CharSequence> sortedWords) {
+		DawgBuilder builder = new DawgBuilder();
+		for (CharSequence word : sortedWords) {
+			builder.add(word);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Returns the letter index (0 for 'a' through 25 for 'z') of the specified
+	 * character in either case, or -1 if the character is not a letter.
+	 *
+	 * @param c a character
+	 * @return the letter index of c, or -1
+	 */
+	static int letterIndex(char c) {
+		int i = (c | 0x20) - 'a';
+		return i >= 0 && i < 26 ? i : -1;
+	}
+
+	/**
+	 * Returns a DAWG of the same words whose edges are stored outside the Java
+	 * heap, or this DAWG if its edges already are, as when it was mapped from a
+	 * snapshot. An off-heap DAWG adds only a few objects to the heap, so the
+	 * garbage collector never scans or copies the words; the memory is released
+	 * when the DAWG is no longer reachable.
+	 *
+	 * @return a DAWG of the same words stored off the heap
+	 */
+	public Dawg offHeap() {
+		if (this.isOffHeap()) {
+			return this;
+		}
+		return new Dawg(direct(this.edges), direct(this.ranks), this.size);
+	}
+
+	private static IntBuffer direct(IntBuffer buf) {
+		IntBuffer direct = ByteBuffer.allocateDirect(buf.limit() * Integer.BYTES).order(ByteOrder.nativeOrder())
+				.asIntBuffer();
+		direct.put(buf.duplicate().rewind());
+		direct.clear();
+		return direct;
+	}
+
+	/**
+	 * Returns true if the edges of this DAWG are stored outside the Java heap,
+	 * in direct memory or in a mapped file.
+	 *
+	 * @return true if this DAWG is stored off the heap
+	 */
+	public boolean isOffHeap() {
+		return this.edges.isDirect();
+	}
+
+	/**
+	 * Returns a read-only view of the packed edges.
+	 *
+	 * @return the packed edges
+	 */
+	IntBuffer edges() {
+		return this.edges.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns a read-only view of the ranks of the edges.
+	 *
+	 * @return the rank of every edge
+	 */
+	IntBuffer ranks() {
+		return this.ranks.asReadOnlyBuffer();
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public int root() {
+		return this.root;
+	}
+
+	@Override
+	public int child(int node, char letter) {
+		int e = node >>> 1;
+		int l = letterIndex(letter);
+		if (e == 0 || l < 0) {
+			return NONE;
+		}
+		while (true) {
+			int v = this.edges.get(e);
+			int el = v & LETTER_MASK;
+			if (el == l) {
+				return ((v >>> TARGET_SHIFT) << 1) | ((v & TERMINAL) >>> 6);
+			}
+			if (el > l || (v & LAST_EDGE) != 0) {
+				return NONE;
+			}
+			e++;
+		}
+	}
+
+	@Override
+	public int findEdge(int node, char letter) {
+		int e = node >>> 1;
+		int l = letterIndex(letter);
+		if (e == 0 || l < 0) {
+			return NONE;
+		}
+		while (true) {
+			int v = this.edges.get(e);
+			int el = v & LETTER_MASK;
+			if (el == l) {
+				return e;
+			}
+			if (el > l || (v & LAST_EDGE) != 0) {
+				return NONE;
+			}
+			e++;
+		}
+	}
+
+	@Override
+	public int edgeRank(int edge) {
+		return this.ranks.get(edge);
+	}
+
+	@Override
+	public boolean isWord(int node) {
+		return (node & 1) != 0;
+	}
+
+	@Override
+	public boolean hasChildren(int node) {
+		return (node >>> 1) != 0;
+	}
+
+	@Override
+	public int firstEdge(int node) {
+		int e = node >>> 1;
+		return e == 0 ? NONE : e;
+	}
+
+	@Override
+	public int nextEdge(int edge) {
+		return (this.edges.get(edge) & LAST_EDGE) != 0 ? NONE : edge + 1;
+	}
+
+	@Override
+	public char edgeLetter(int edge) {
+		return (char) ('a' + (this.edges.get(edge) & LETTER_MASK));
+	}
+
+	@Override
+	public int edgeTarget(int edge) {
+		int v = this.edges.get(edge);
+		return ((v >>> TARGET_SHIFT) << 1) | ((v & TERMINAL) >>> 6);
+	}
+
+	@Override
+	public String toString() {
+		return "Dawg [size=" + this.size + ", edges=" + (this.edges.limit() - 1) + "]";
+	}
+}
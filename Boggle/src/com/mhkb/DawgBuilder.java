@@ -0,0 +1,259 @@
+package com.mhkb;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a minimized <code>Dawg</code> from words added in ascending order.
+ *
+ * <p>
+ * Implementation Details: this is the incremental construction of Daciuk et
+ * al. The builder keeps the path of nodes spelling the most recently added
+ * word. When the next word is added, the part of that path that the new word
+ * does not share can no longer change, so those nodes are replaced by an
+ * equivalent node from the register (or added to the register if they are the
+ * first of their kind). Only the unshared part of each word is ever visited,
+ * so the build is linear in the total length of the input.
+ *
+ */
+class DawgBuilder {
+
+	/**
+	 * A mutable node of the graph under construction. Two nodes are equal if
+	 * they end a word in the same way and have the same labelled edges to the
+	 * very same child nodes; children are always registered before their parent
+	 * so this is the same as having the same language.
+	 */
+	private static final class Node {
+		private static final byte[] NO_LETTERS = {};
+		private static final Node[] NO_CHILDREN = {};
+
+		boolean terminal;
+		byte[] letters = NO_LETTERS;
+		Node[] children = NO_CHILDREN;
+		int degree;
+		// the index of the first edge in the packed array, or 0 if not laid out
+		int offset;
+		// the number of words strictly below this node, or -1 if not counted
+		int below = -1;
+
+		void add(int letter, Node child) {
+			if (this.degree == this.letters.length) {
+				// most nodes have a single edge, and the leaves have none
+				int capacity = this.degree == 0 ? 1 : this.degree * 2;
+				this.letters = Arrays.copyOf(this.letters, capacity);
+				this.children = Arrays.copyOf(this.children, capacity);
+			}
+			this.letters[this.degree] = (byte) letter;
+			this.children[this.degree] = child;
+			this.degree++;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = this.terminal ? 1 : 0;
+			for (int i = 0; i < this.degree; i++) {
+				result = 31 * result + this.letters[i];
+				result = 31 * result + System.identityHashCode(this.children[i]);
+			}
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Node))
+				return false;
+			Node other = (Node) obj;
+			if (this.terminal != other.terminal || this.degree != other.degree)
+				return false;
+			for (int i = 0; i < this.degree; i++) {
+				if (this.letters[i] != other.letters[i] || this.children[i] != other.children[i])
+					return false;
+			}
+			return true;
+		}
+	}
+
+	private final Map<Node, Node> register = new HashMap<>();
+	private final Node root = new Node();
+
+	/**
+	 * The nodes spelling the previous word; path[i] is the node reached after
+	 * i letters.
+	 */
+	private Node[] path = new Node[32];
+	private byte[] previous = new byte[32];
+	private int previousLength;
+	private int size;
+	private boolean built;
+
+	DawgBuilder() {
+		this.path[0] = this.root;
+	}
+
+	/**
+	 * Adds a word to the graph. The word must not sort before the previous word
+	 * added; adding the previous word again has no effect.
+	 *
+	 * @param word a non-empty word made of the letters a through z in either
+	 *             case
+	 * @throws IllegalArgumentException if the word is empty, contains a
+	 *                                  character that is not a letter, or is out
+	 *                                  of order
+	 * @throws IllegalStateException    if the graph has already been built
+	 */
+	void add(CharSequence word) {
+		if (this.built) {
+			throw new IllegalStateException("the DAWG has already been built");
+		}
+		final int n = word.length();
+		if (n == 0) {
+			throw new IllegalArgumentException("not a word: the empty string");
+		}
+		if (n + 1 > this.path.length) {
+			this.path = Arrays.copyOf(this.path, n * 2);
+			this.previous = Arrays.copyOf(this.previous, n * 2);
+		}
+
+		// find the prefix shared with the previous word and check the order
+		int common = 0;
+		int limit = Math.min(n, this.previousLength);
+		while (common < limit) {
+			int l = Dawg.letterIndex(word.charAt(common));
+			if (l < 0) {
+				throw new IllegalArgumentException("not a word: " + word);
+			}
+			if (l != this.previous[common]) {
+				if (l < this.previous[common]) {
+					throw new IllegalArgumentException("words are not sorted: " + word);
+				}
+				break;
+			}
+			common++;
+		}
+		if (common == n) {
+			if (n < this.previousLength) {
+				throw new IllegalArgumentException("words are not sorted: " + word);
+			}
+			// the same word again
+			return;
+		}
+
+		this.minimize(common);
+
+		// append the unshared suffix
+		for (int i = common; i < n; i++) {
+			int l = Dawg.letterIndex(word.charAt(i));
+			if (l < 0) {
+				throw new IllegalArgumentException("not a word: " + word);
+			}
+			Node child = new Node();
+			this.path[i].add(l, child);
+			this.path[i + 1] = child;
+			this.previous[i] = (byte) l;
+		}
+		this.path[n].terminal = true;
+		this.previousLength = n;
+		this.size++;
+	}
+
+	/**
+	 * Replaces the nodes of the previous word below the specified depth by their
+	 * registered equivalents.
+	 *
+	 * @param depth the number of letters that will not change
+	 */
+	private void minimize(int depth) {
+		for (int i = this.previousLength; i > depth; i--) {
+			Node child = this.path[i];
+			Node parent = this.path[i - 1];
+			Node existing = this.register.putIfAbsent(child, child);
+			if (existing != null) {
+				parent.children[parent.degree - 1] = existing;
+			}
+		}
+		this.previousLength = Math.min(this.previousLength, depth);
+	}
+
+	/**
+	 * Finishes construction and lays out the packed edge array.
+	 *
+	 * @return the minimized graph
+	 * @throws IllegalStateException if the graph is too large to pack
+	 */
+	Dawg build() {
+		this.minimize(0);
+		this.built = true;
+		this.register.clear();
+
+		// assign each node with children a block of edges, root first
+		List<Node> order = new ArrayList<>(this.size);
+		int next = 1;
+		if (this.root.degree > 0) {
+			this.root.offset = next;
+			order.add(this.root);
+			next += this.root.degree;
+		}
+		for (int i = 0; i < order.size(); i++) {
+			Node node = order.get(i);
+			for (int c = 0; c < node.degree; c++) {
+				Node child = node.children[c];
+				if (child.degree > 0 && child.offset == 0) {
+					child.offset = next;
+					order.add(child);
+					next += child.degree;
+					if (next > Dawg.MAX_EDGES) {
+						throw new IllegalStateException("too many edges for a DAWG");
+					}
+				}
+			}
+		}
+
+		int[] edges = new int[next];
+		int[] ranks = new int[next];
+		for (Node node : order) {
+			int base = node.offset;
+			int rank = 0;
+			for (int c = 0; c < node.degree; c++) {
+				Node child = node.children[c];
+				ranks[base + c] = rank;
+				rank += (child.terminal ? 1 : 0) + countBelow(child);
+				int v = node.letters[c];
+				if (c == node.degree - 1) {
+					v |= Dawg.LAST_EDGE;
+				}
+				if (child.terminal) {
+					v |= Dawg.TERMINAL;
+				}
+				if (child.degree > 0) {
+					v |= child.offset << Dawg.TARGET_SHIFT;
+				}
+				edges[base + c] = v;
+			}
+		}
+		return new Dawg(IntBuffer.wrap(edges), IntBuffer.wrap(ranks), this.size);
+	}
+
+	/**
+	 * Returns the number of words that continue past the specified node. Nodes
+	 * are shared, so each count is kept in its node the first time it is needed;
+	 * the recursion is no deeper than the longest word.
+	 */
+	private static int countBelow(Node node) {
+		if (node.below < 0) {
+			int count = 0;
+			for (int c = 0; c < node.degree; c++) {
+				Node child = node.children[c];
+				count += (child.terminal ? 1 : 0) + countBelow(child);
+			}
+			node.below = count;
+		}
+		return node.below;
+	}
+}
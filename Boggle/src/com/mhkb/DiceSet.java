@@ -0,0 +1,112 @@
+package com.mhkb;
+
+/**
+ * The sets of dice that Boggle is sold with, each with the size of its board
+ * and its shortest legal word.
+ *
+ * <p>
+ * The Super Big Boggle set has a die with three blank faces, which cannot be
+ * used in a word. A board here must show a letter on every die, so that die
+ * is modelled with its three letters on two faces each.
+ *
+ */
+public enum DiceSet {
+
+	/**
+	 * The standard 16 dice on a 4x4 board; words have at least 3 letters.
+	 */
+	CLASSIC(4, 3, "AAEEGN", "ELRTTY", "WAOOTT", "ABBJOO", "EHRTVW", "CIMOTU", "DISTTY", "EIOSST", "YDELRV",
+			"ACHOPS", "UHIMNQU", "EEINSU", "EEGHNW", "AFFKPS", "HLNNRZ", "XDEILR"),
+
+	/**
+	 * The 25 dice of Big Boggle on a 5x5 board; words have at least 4 letters.
+	 */
+	BIG(5, 4, "AAAFRS", "AAEEEE", "AAFIRS", "ADENNN", "AEEEEM", "AEEGMU", "AEGMNN", "AFIRSY", "BJKQUXZ", "CCENST",
+			"CEIILT", "CEILPT", "CEIPST", "DDHNOT", "DHHLOR", "DHLNOR", "DHLNOR", "EIIITT", "EMOTTT", "ENSSSU",
+			"FIPRSY", "GORRVW", "IPRRRY", "NOOTUW", "OOOTTU"),
+
+	/**
+	 * The 36 dice of Super Big Boggle on a 6x6 board; words have at least 4
+	 * letters. One die shows the pairs of letters AN, ER, HE, IN, QU and TH.
+	 */
+	SUPER_BIG(6, 4, "AAAFRS", "AAEEEE", "AAEEOO", "AAFIRS", "ABDEIO", "ADENNN", "AEEEEM", "AEEGMU", "AEGMNN",
+			"AEILMN", "AEINOU", "AFIRSY", "AN ER HE IN QU TH", "BBJKXZ", "CCENST", "CDDLNN", "CEIITT", "CEIPST",
+			"CFGNUY", "DDHNOT", "DHHLOR", "DHHNOW", "DHLNOR", "EHILRS", "EIILST", "EILPST", "EEIIOO", "EMTTTO",
+			"ENSSSU", "GORRVW", "HIRSTV", "HOPRST", "IPRSYY", "JKQUWXZ", "NOOTUW", "OOOTTU");
+
+	private final int side;
+	private final int minWordLength;
+	private final String[][] faces;
+
+	/**
+	 * Each die is written as its faces in one string: one letter per face, with
+	 * QU standing for a single face, or the faces separated by spaces.
+	 */
+	private DiceSet(int side, int minWordLength, String... dice) {
+		if (dice.length != side * side) {
+			throw new AssertionError(this + " has " + dice.length + " dice");
+		}
+		this.side = side;
+		this.minWordLength = minWordLength;
+		this.faces = new String[dice.length][];
+		for (int i = 0; i < dice.length; i++) {
+			this.faces[i] = dice[i].indexOf(' ') >= 0 ? dice[i].split(" ") : dice[i].replace("QU", "Q").split("");
+			for (int j = 0; j < this.faces[i].length; j++) {
+				if (this.faces[i][j].equals("Q")) {
+					this.faces[i][j] = "QU";
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of dice in a row or column of the board.
+	 *
+	 * @return the side of the board
+	 */
+	public int getSide() {
+		return this.side;
+	}
+
+	/**
+	 * Returns the number of dice in the set.
+	 *
+	 * @return the number of dice
+	 */
+	public int getNumberOfDice() {
+		return this.faces.length;
+	}
+
+	/**
+	 * Returns the minimum number of letters in a legal word.
+	 *
+	 * @return the shortest legal word length
+	 */
+	public int getMinWordLength() {
+		return this.minWordLength;
+	}
+
+	/**
+	 * Returns a new array of the face strings of the specified die.
+	 *
+	 * @param die the number of a die, from 0
+	 * @return the face strings of the die
+	 */
+	public String[] getFaces(int die) {
+		return this.faces[die].clone();
+	}
+
+	/**
+	 * Returns the string on the specified face of the specified die.
+	 */
+	String getFace(int die, int face) {
+		return this.faces[die][face];
+	}
+
+	/**
+	 * Returns the number of faces of the specified die.
+	 */
+	int numberOfFaces(int die) {
+		return this.faces[die].length;
+	}
+}
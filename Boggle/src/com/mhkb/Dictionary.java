@@ -1,76 +1,496 @@
 package com.mhkb;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Array;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Scanner;
-import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.jar.JarEntry;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * An implementation of an immutable dictionary.
  *
+ * <p>
+ * The words are held by a <code>Lexicon</code>, by default a minimized DAWG
+ * built from the dictionary file or mapped from a snapshot of it. Every query
+ * walks the lexicon one letter at a time, so looking up a word or a prefix
+ * costs time proportional to its length and not to the size of the dictionary.
+ *
+ * <p>
+ * A dictionary may put Bloom filters of its words and prefixes in front of the
+ * lexicon (see <code>withBloomFilters</code>). Most strings that are not words
+ * are then rejected after hashing their letters once, without walking the
+ * lexicon at all.
+ *
  */
 public class Dictionary {
 
-	private SortedSet<String> words;
+	private final Lexicon words;
+	private final BloomFilter wordFilter;
+	private final BloomFilter prefixFilter;
+	// the words packed in a row, for queries that test them all; built lazily
+	private volatile WordTable table;
+
+	/**
+	 * The name of the system property holding the path of the dictionary
+	 * snapshot file. If the property is set to the empty string, no snapshot is
+	 * used. If it is not set, the snapshot is kept in the user's own cache
+	 * directory: <code>$XDG_CACHE_HOME/boggle</code>, or
+	 * <code>~/.cache/boggle</code> if that variable is not set.
+	 */
+	public static final String SNAPSHOT_PROPERTY = "boggle.dictionary.snapshot";
 
 	/**
-	 * Reads the dictionary file and stores the words from the file in the Set
-	 * this.dictionary. The words in this file are in all lower case.
-	 * 
+	 * Returns the lexicon of the dictionary file. If an up-to-date snapshot of
+	 * the dictionary exists, it is memory-mapped; otherwise the dictionary file
+	 * is read, and a snapshot is saved for the next time. Failing to read or
+	 * write the snapshot is not an error; the dictionary file is used instead.
+	 * Either way the words are stored outside the Java heap: in the mapped
+	 * snapshot if there is one, and in direct memory otherwise.
+	 *
 	 * <p>
 	 * The dictionary file is named dictionary.txt and needs to be located in the
-	 * eecs2030.lab4 package directory.
-	 * 
-	 * @throws RuntimeException if dictionary.txt cannot be found
-	 * 
-	 */
-	private final void readDictionary() {
-		InputStream in = this.getClass().getResourceAsStream("dictionary.txt");
-		if (in == null) {
+	 * com.mhkb package directory.
+	 *
+	 * @return a lexicon of the words in the dictionary file
+	 * @throws RuntimeException if dictionary.txt cannot be found or read
+	 */
+	private static Lexicon loadDictionary() {
+		URL url = Dictionary.class.getResource("dictionary.txt");
+		if (url == null) {
 			throw new RuntimeException("dictionary.txt is missing");
 		}
-		Scanner dictionaryInput = new Scanner(in);
-		while (dictionaryInput.hasNext()) {
-			String word = dictionaryInput.next();
-			this.words.add(word.trim());
+		long length;
+		long modified;
+		try {
+			if (url.getProtocol().equals("file")) {
+				// cheaper than a URLConnection, which loads the MIME type table
+				Path file = Paths.get(url.toURI());
+				length = Files.size(file);
+				modified = Files.getLastModifiedTime(file).toMillis();
+			} else if (url.getProtocol().equals("jar")) {
+				JarEntry entry = ((JarURLConnection) url.openConnection()).getJarEntry();
+				length = entry.getSize();
+				modified = entry.getTime();
+			} else {
+				URLConnection source = url.openConnection();
+				length = source.getContentLengthLong();
+				modified = source.getLastModified();
+			}
+		} catch (IOException | URISyntaxException ex) {
+			throw new RuntimeException("dictionary.txt cannot be read", ex);
+		}
+		Path snapshot = Dictionary.snapshotFile();
+		if (snapshot != null) {
+			try {
+				Dawg dawg = DictionarySnapshot.open(snapshot, length, modified);
+				if (dawg != null) {
+					return dawg;
+				}
+			} catch (IOException ex) {
+				// unreadable snapshot; rebuild it
+			}
+		}
+		Dawg dawg;
+		try {
+			dawg = Dictionary.readDictionary(Dictionary.readAllBytes(url));
+		} catch (IOException ex) {
+			throw new UncheckedIOException("dictionary.txt cannot be read", ex);
+		} catch (URISyntaxException ex) {
+			throw new RuntimeException("dictionary.txt cannot be read", ex);
 		}
-		dictionaryInput.close();
+		if (snapshot != null) {
+			try {
+				DictionarySnapshot.write(dawg, snapshot, length, modified);
+				// map the new snapshot so that its pages are shared with other JVMs
+				Dawg mapped = DictionarySnapshot.open(snapshot, length, modified);
+				if (mapped != null) {
+					return mapped;
+				}
+			} catch (IOException ex) {
+				// no snapshot this time
+			}
+		}
+		return dawg.offHeap();
+	}
+
+	/**
+	 * Returns the path of the dictionary snapshot file, or <code>null</code> if
+	 * snapshots are turned off or there is no cache directory to keep one in.
+	 * The default is in a directory of the user's own, so that no other user
+	 * can put a snapshot in its place.
+	 *
+	 * @return the path of the snapshot file, or <code>null</code>
+	 */
+	private static Path snapshotFile() {
+		String name = System.getProperty(SNAPSHOT_PROPERTY);
+		if (name != null) {
+			return name.isEmpty() ? null : Paths.get(name);
+		}
+		String cache = System.getenv("XDG_CACHE_HOME");
+		if (cache != null && Paths.get(cache).isAbsolute()) {
+			return Paths.get(cache, "boggle", "dictionary.dawg");
+		}
+		String home = System.getProperty("user.home");
+		if (home == null || home.isEmpty() || !Paths.get(home).isAbsolute()) {
+			return null;
+		}
+		return Paths.get(home, ".cache", "boggle", "dictionary.dawg");
+	}
+
+	/**
+	 * Returns the contents of the dictionary file. A file on disk is read with a
+	 * single channel read into a buffer of the right size.
+	 *
+	 * @param url the location of the dictionary file
+	 * @return the bytes of the file
+	 * @throws IOException        if the file cannot be read
+	 * @throws URISyntaxException if the location of the file is malformed
+	 */
+	private static byte[] readAllBytes(URL url) throws IOException, URISyntaxException {
+		if (url.getProtocol().equals("file")) {
+			return Dictionary.readAllBytes(Paths.get(url.toURI()));
+		}
+		try (InputStream in = url.openStream()) {
+			return in.readAllBytes();
+		}
+	}
+
+	private static byte[] readAllBytes(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE - 8) {
+				throw new IOException(file + " is too large");
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				// keep reading until the buffer is full or the file ends
+			}
+			return buffer.position() == buffer.capacity() ? buffer.array()
+					: Arrays.copyOf(buffer.array(), buffer.position());
+		}
+	}
+
+	/**
+	 * Builds a DAWG from the contents of a dictionary file. The file has one word
+	 * per line, normally in alphabetical order.
+	 *
+	 * <p>
+	 * Implementation Details: the lines are found in parallel by
+	 * <code>WordList</code>. If they are already sorted, as they are in the
+	 * dictionary that ships with the game, the words go straight from the bytes
+	 * of the file into the builder without becoming strings; otherwise they are
+	 * copied into strings and sorted first.
+	 *
+	 * @param data the contents of the dictionary file
+	 * @return a DAWG of the words in the file
+	 */
+	static Dawg readDictionary(byte[] data) {
+		WordList words = WordList.parse(data);
+		if (words.isSorted()) {
+			return Dawg.build(words);
+		}
+		List<String> sorted = words.toStrings();
+		sorted.sort(String.CASE_INSENSITIVE_ORDER);
+		return Dawg.build(sorted);
 	}
 
 	/**
 	 * Initializes a dictionary by reading the default dictionary from a file.
 	 */
 	public Dictionary() {
+		this(Dictionary.loadDictionary());
+	}
+
+	/**
+	 * Initializes a dictionary of the words in the specified file, one word per
+	 * line, such as a tournament word list or a list for another language. The
+	 * words are stored off the heap, as for the default dictionary, but no
+	 * snapshot is kept.
+	 *
+	 * @param file a word list
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if a line of the file is not a word
+	 */
+	public Dictionary(Path file) throws IOException {
+		this(Dictionary.readDictionary(Dictionary.readAllBytes(file)).offHeap());
+	}
+
+	/**
+	 * Initializes a dictionary that holds the words of the specified lexicon.
+	 *
+	 * @param words the lexicon holding the words of the dictionary
+	 */
+	public Dictionary(Lexicon words) {
+		this(words, null, null);
+	}
+
+	private Dictionary(Lexicon words, BloomFilter wordFilter, BloomFilter prefixFilter) {
+		this.words = words;
+		this.wordFilter = wordFilter;
+		this.prefixFilter = prefixFilter;
+	}
+
+	/**
+	 * Returns a dictionary of the same words that checks Bloom filters of the
+	 * words and of their prefixes before walking the lexicon. The filters cut
+	 * the cost of looking up strings that are not words, and add the cost of
+	 * hashing to strings that are; they pay off when most queries miss, as they
+	 * do for the words players type in and for the candidates a solver tries.
+	 * The filters are built from the lexicon, which takes a few hundred
+	 * milliseconds for the default dictionary.
+	 *
+	 * @param falsePositiveRate the fraction of non-words that the filters may let
+	 *                          through to the lexicon, such as 0.01
+	 * @return a filtered dictionary of the same words
+	 * @throws IllegalArgumentException if the rate is not strictly between 0 and
+	 *                                  1
+	 */
+	public Dictionary withBloomFilters(double falsePositiveRate) {
+		return new Dictionary(this.words, BloomFilter.ofWords(this.words, falsePositiveRate),
+				BloomFilter.ofPrefixes(this.words, falsePositiveRate));
+	}
+
+	/**
+	 * Returns the filter checked before a word is looked up, or
+	 * <code>null</code> if there is none. Its counters show how many lookups it
+	 * rejected.
+	 *
+	 * @return the Bloom filter of the words, or <code>null</code>
+	 */
+	public BloomFilter getWordFilter() {
+		return this.wordFilter;
+	}
 
+	/**
+	 * Returns the filter checked before a prefix is looked up, or
+	 * <code>null</code> if there is none.
+	 *
+	 * @return the Bloom filter of the prefixes, or <code>null</code>
+	 */
+	public BloomFilter getPrefixFilter() {
+		return this.prefixFilter;
+	}
+
+	/**
+	 * Returns the lexicon that holds the words of this dictionary. Clients that
+	 * search for many words at once (for example, a Boggle solver) can walk the
+	 * lexicon directly and stop as soon as no word continues.
+	 *
+	 * @return the lexicon that holds the words of this dictionary
+	 */
+	public Lexicon getLexicon() {
+		return this.words;
 	}
 
 	/**
 	 * Returns the number of words in the dictionary.
-	 * 
+	 *
 	 * @return the number of words in the dictionary
 	 */
 	public int size() {
-		return words.size();
+		return this.words.size();
 	}
 
 	/**
 	 * Returns true if the specified word is in the dictionary, and false otherwise.
 	 * The case of the specified word is not important; <code>lookUp("hello")</code>
 	 * returns the same result as <code>lookUp("HeLLo")</code>.
-	 * 
+	 *
 	 * @param word a word to look up in the dictionary
 	 * @return true if the specified word is in the dictionary, and false otherwise
 	 */
 	public boolean lookUp(String word) {
-		if (words.contains(word.toLowerCase())) {
-			return true;
+		return this.lookUp((CharSequence) word);
+	}
+
+	/**
+	 * Returns true if the specified word is in the dictionary, and false otherwise.
+	 * The case of the word is not important. The letters are read directly from
+	 * the character sequence, so a caller can look up the contents of a reused
+	 * <code>StringBuilder</code> without creating a string.
+	 *
+	 * @param word a word to look up in the dictionary
+	 * @return true if the specified word is in the dictionary, and false otherwise
+	 */
+	public boolean lookUp(CharSequence word) {
+		if (this.wordFilter == null) {
+			return this.words.contains(word);
+		}
+		return this.wordFilter.mightContain(word) && this.confirm(this.wordFilter, this.words.contains(word));
+	}
+
+	/**
+	 * Returns the answer of the lexicon to a query that the specified filter let
+	 * through, counting a false positive if the answer is no.
+	 */
+	private boolean confirm(BloomFilter filter, boolean found) {
+		if (!found) {
+			filter.recordFalsePositive();
+		}
+		return found;
+	}
+
+	/**
+	 * Returns true if the word made of the specified slice of an array is in the
+	 * dictionary, and false otherwise. The case of the word is not important.
+	 *
+	 * @param word   an array holding the letters of a word
+	 * @param offset the index of the first letter of the word
+	 * @param length the number of letters in the word
+	 * @return true if the word is in the dictionary, and false otherwise
+	 * @throws IndexOutOfBoundsException if the slice is not inside the array
+	 */
+	public boolean lookUp(char[] word, int offset, int length) {
+		if (offset < 0 || length < 0 || offset > word.length - length) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (this.wordFilter != null && !this.wordFilter.mightContain(word, offset, length)) {
+			return false;
+		}
+		int node = this.words.walk(this.words.root(), word, offset, length);
+		boolean found = node != Lexicon.NONE && this.words.isWord(node);
+		return this.wordFilter == null ? found : this.confirm(this.wordFilter, found);
+	}
+
+	/**
+	 * Returns the id of the specified word, or -1 if it is not in the
+	 * dictionary. The id of a word is its rank among the words of the
+	 * dictionary in ascending order, so the ids are the numbers from 0 to
+	 * <code>size() - 1</code>, and sorting ids sorts the words. The case of the
+	 * word is not important.
+	 *
+	 * @param word a word
+	 * @return the id of the word, or -1 if the word is not in the dictionary
+	 */
+	public int idOf(CharSequence word) {
+		if (this.wordFilter != null && !this.wordFilter.mightContain(word)) {
+			return Lexicon.NONE;
+		}
+		int id = this.words.idOf(word);
+		if (this.wordFilter != null) {
+			this.confirm(this.wordFilter, id != Lexicon.NONE);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the word with the specified id, in lower case.
+	 *
+	 * @param id the id of a word, from 0 to <code>size() - 1</code>
+	 * @return the word with the id
+	 * @throws IndexOutOfBoundsException if there is no word with the id
+	 */
+	public String wordOf(int id) {
+		return this.words.wordOf(id);
+	}
+
+	/**
+	 * Returns true if at least one word in the dictionary begins with the
+	 * specified prefix, and false otherwise. A word begins with itself, so this
+	 * method returns true if the prefix is a word. The case of the prefix is not
+	 * important. The running time depends only on the length of the prefix.
+	 *
+	 * @param prefix a string that a word must start with
+	 * @return true if some word in the dictionary begins with the specified
+	 *         prefix, and false if no word continues from the prefix
+	 */
+	public boolean hasWordsStartingWith(CharSequence prefix) {
+		if (this.prefixFilter == null || prefix.length() == 0) {
+			return this.words.walk(this.words.root(), prefix) != Lexicon.NONE;
+		}
+		return this.prefixFilter.mightContain(prefix)
+				&& this.confirm(this.prefixFilter, this.words.walk(this.words.root(), prefix) != Lexicon.NONE);
+	}
+
+	/**
+	 * Returns up to <code>limit</code> words of the dictionary within the
+	 * specified edit distance of the specified string, closest first and in
+	 * alphabetical order among words at the same distance. This is meant for
+	 * suggesting what a player may have meant by a string that is not a word;
+	 * the case of the string is not important.
+	 *
+	 * @param s           a string
+	 * @param maxDistance the largest number of letters inserted, deleted or
+	 *                    replaced, usually 1 or 2
+	 * @param limit       the largest number of suggestions
+	 * @return the words close to the string, closest first
+	 * @see WordSuggester
+	 */
+	public List<String> suggest(CharSequence s, int maxDistance, int limit) {
+		return this.suggest(s, maxDistance, limit, w -> true);
+	}
+
+	/**
+	 * Returns up to <code>limit</code> words of the dictionary within the
+	 * specified edit distance of the specified string that are accepted by the
+	 * specified filter, such as the words that can be traced on a board. The
+	 * filter is applied before the limit.
+	 *
+	 * @param s           a string
+	 * @param maxDistance the largest number of letters inserted, deleted or
+	 *                    replaced, usually 1 or 2
+	 * @param limit       the largest number of suggestions
+	 * @param filter      accepts the words that may be suggested
+	 * @return the words close to the string, closest first
+	 */
+	public List<String> suggest(CharSequence s, int maxDistance, int limit, Predicate<? super String> filter) {
+		return new WordSuggester(this.words).suggest(s, maxDistance, limit, filter);
+	}
+
+	/**
+	 * Returns the table of the words of this dictionary, building it if this is
+	 * the first time it is needed.
+	 */
+	private WordTable table() {
+		WordTable table = this.table;
+		if (table == null) {
+			synchronized (this) {
+				table = this.table;
+				if (table == null) {
+					table = WordTable.of(this.words);
+					this.table = table;
+				}
+			}
 		}
-		return false;
+		return table;
+	}
+
+	/**
+	 * Returns the words of the dictionary that match the specified query, in
+	 * alphabetical order and in lower case. The stream is lazy: the dictionary
+	 * is walked only as far as the words taken from the stream, and parts of
+	 * the dictionary that cannot hold a match are skipped without being
+	 * visited. A query that would have to visit most of the dictionary anyway,
+	 * such as <code>*qu*</code>, tests the words in a row from a packed table
+	 * instead; the table is built the first time such a query is made.
+	 *
+	 * @param query the constraints on the words
+	 * @return a sequential stream of the matching words
+	 * @see WordQuery
+	 */
+	public Stream<String> query(WordQuery query) {
+		Iterator<String> words = query.prunesLittle() ? query.matches(this.table()) : query.matches(this.words);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(words,
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
 	}
 
 	/**
@@ -78,18 +498,37 @@ public class Dictionary {
 	 * beginning with the specified prefix. The case of the prefix is not important;
 	 * <code>wordsStartingWith("a")</code> returns the same result as
 	 * <code>wordsStartingWith("A")</code>.
-	 * 
+	 *
 	 * @param prefix a string that each word in the returned set must start with
 	 * @return a new sorted set of words that are in the dictionary and begin with
 	 *         the specified string
 	 */
-	/*
-	 * public SortedSet<String> wordsStartingWith(String prefix) { SortedSet<String>
-	 * m; List p = new ArrayList(); for (int i = 0; i < prefix.length(); i++) {
-	 * p.add(prefix.charAt(i)); } List k = new ArrayList(); for(int i = 0; i <
-	 * words.size(); i++) { k.add(k.get(i)); } for(int i = 0; i < k.size(); i++) {
-	 * String f = k.get(i).toString(); List p = new ArrayList(); if(f.charAt(0) ==
-	 * p.get(0)) { ((List) m).get(i); } return m; }
+	public SortedSet<String> wordsStartingWith(String prefix) {
+		SortedSet<String> result = new TreeSet<>();
+		int node = this.words.walk(this.words.root(), prefix);
+		if (node != Lexicon.NONE) {
+			StringBuilder word = new StringBuilder(prefix.toLowerCase());
+			this.collectWords(node, word, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds every word below the specified node to the result, in sorted order.
+	 *
+	 * @param node   a node of the lexicon
+	 * @param word   the letters spelled by the node
+	 * @param result the set to add the words to
 	 */
+	private void collectWords(int node, StringBuilder word, SortedSet<String> result) {
+		if (this.words.isWord(node)) {
+			result.add(word.toString());
+		}
+		for (int e = this.words.firstEdge(node); e != Lexicon.NONE; e = this.words.nextEdge(e)) {
+			word.append(this.words.edgeLetter(e));
+			this.collectWords(this.words.edgeTarget(e), word, result);
+			word.setLength(word.length() - 1);
+		}
+	}
 
 }
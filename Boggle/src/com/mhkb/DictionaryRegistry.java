@@ -0,0 +1,197 @@
+package com.mhkb;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A registry of named dictionaries, such as a tournament list, a kid-safe list
+ * and lists for other languages. Games refer to a dictionary by name (see
+ * <code>Boggle(DictionaryRegistry, String)</code>) and look it up again at
+ * the start of every round, so a list can be replaced while games are being
+ * played: rounds already under way keep the dictionary they started with, and
+ * the next round of every game uses the new one.
+ *
+ * <p>
+ * Implementation Details: the registry is an immutable map from names to
+ * dictionaries held in one <code>AtomicReference</code>. Reading a dictionary
+ * is a volatile read and a hash lookup, and never takes a lock or waits for a
+ * writer. Registering, replacing or removing a dictionary copies the map and
+ * swaps the reference with a compare-and-set, retrying if another writer got
+ * there first; the registry holds a handful of names, so the copy is cheap.
+ * Dictionaries are built on an executor before the swap, so a reader never
+ * sees a dictionary that is half built.
+ *
+ */
+public final class DictionaryRegistry {
+
+	/**
+	 * The name of the default dictionary in a registry made by
+	 * <code>withDefault</code>.
+	 */
+	public static final String DEFAULT = "default";
+
+	private final AtomicReference<Map<String, Dictionary>> dictionaries = new AtomicReference<>(
+			Collections.emptyMap());
+	private final Executor executor;
+
+	/**
+	 * Initializes an empty registry that builds dictionaries on the common
+	 * fork-join pool.
+	 */
+	public DictionaryRegistry() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Initializes an empty registry that builds dictionaries on the specified
+	 * executor.
+	 *
+	 * @param executor the executor that runs <code>reload</code> and
+	 *                 <code>load</code>
+	 */
+	public DictionaryRegistry(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Returns a new registry holding the default dictionary under the name
+	 * <code>DEFAULT</code>.
+	 *
+	 * @return a registry holding the default dictionary
+	 */
+	public static DictionaryRegistry withDefault() {
+		DictionaryRegistry registry = new DictionaryRegistry();
+		registry.put(DEFAULT, new Dictionary());
+		return registry;
+	}
+
+	/**
+	 * Returns the dictionary registered under the specified name. The result is
+	 * the dictionary published most recently; it never changes, even if the name
+	 * is given another dictionary later.
+	 *
+	 * @param name the name of a dictionary
+	 * @return the dictionary registered under the name
+	 * @throws NoSuchElementException if no dictionary has the name
+	 */
+	public Dictionary get(String name) {
+		Dictionary result = this.dictionaries.get().get(name);
+		if (result == null) {
+			throw new NoSuchElementException("no dictionary named " + name);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true if a dictionary is registered under the specified name.
+	 *
+	 * @param name the name of a dictionary
+	 * @return true if the name is registered, and false otherwise
+	 */
+	public boolean contains(String name) {
+		return this.dictionaries.get().containsKey(name);
+	}
+
+	/**
+	 * Returns the names of the registered dictionaries at the time of the call.
+	 * The set cannot be modified and does not change afterwards.
+	 *
+	 * @return the registered names
+	 */
+	public Set<String> getNames() {
+		return this.dictionaries.get().keySet();
+	}
+
+	/**
+	 * Registers a dictionary under the specified name, replacing the dictionary
+	 * that had the name, if any.
+	 *
+	 * @param name       the name of the dictionary
+	 * @param dictionary the dictionary
+	 * @return the dictionary that had the name before, or <code>null</code>
+	 */
+	public Dictionary put(String name, Dictionary dictionary) {
+		if (name == null || dictionary == null) {
+			throw new NullPointerException();
+		}
+		return this.swap(name, dictionary);
+	}
+
+	/**
+	 * Removes the dictionary registered under the specified name. Games that
+	 * refer to the name fail at the start of their next round.
+	 *
+	 * @param name the name of a dictionary
+	 * @return the dictionary that had the name, or <code>null</code>
+	 */
+	public Dictionary remove(String name) {
+		return this.swap(name, null);
+	}
+
+	private Dictionary swap(String name, Dictionary dictionary) {
+		while (true) {
+			Map<String, Dictionary> current = this.dictionaries.get();
+			Map<String, Dictionary> next = new HashMap<>(current);
+			Dictionary previous = dictionary == null ? next.remove(name) : next.put(name, dictionary);
+			if (dictionary == null && previous == null) {
+				return null;
+			}
+			if (this.dictionaries.compareAndSet(current, Collections.unmodifiableMap(next))) {
+				return previous;
+			}
+		}
+	}
+
+	/**
+	 * Builds a dictionary in the background and then registers it under the
+	 * specified name. Until the new dictionary is ready, the name keeps its old
+	 * dictionary; if building it fails, the old dictionary stays and the
+	 * returned future completes exceptionally.
+	 *
+	 * @param name   the name of the dictionary
+	 * @param source builds the dictionary
+	 * @return a future that completes with the new dictionary once it has been
+	 *         registered
+	 */
+	public CompletableFuture<Dictionary> reload(String name, Supplier<? extends Dictionary> source) {
+		return CompletableFuture.supplyAsync(source, this.executor).thenApply(d -> {
+			this.put(name, d);
+			return d;
+		});
+	}
+
+	/**
+	 * Reads a word list in the background and then registers its dictionary
+	 * under the specified name, as <code>reload</code> does.
+	 *
+	 * @param name the name of the dictionary
+	 * @param file a word list, one word per line
+	 * @return a future that completes with the new dictionary once it has been
+	 *         registered
+	 */
+	public CompletableFuture<Dictionary> load(String name, Path file) {
+		return this.reload(name, () -> {
+			try {
+				return new Dictionary(file);
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		});
+	}
+
+	@Override
+	public String toString() {
+		return "DictionaryRegistry" + this.getNames();
+	}
+}
@@ -0,0 +1,179 @@
+package com.mhkb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.zip.CRC32C;
+
+/**
+ * A binary snapshot of a <code>Dawg</code> that can be memory-mapped instead of
+ * being rebuilt from the dictionary text. Opening a snapshot maps the file
+ * instead of reading it; the words are never copied onto the heap, and every
+ * JVM that maps the same snapshot shares the same pages of the operating
+ * system's file cache.
+ *
+ * <p>
+ * A snapshot records the length and modification time of the text it was
+ * built from. If the text changes, the snapshot is stale and
+ * <code>open</code> refuses it. A snapshot is also refused if its checksum
+ * does not match its edges and ranks, or if any edge points outside the
+ * snapshot, so a damaged file is rebuilt rather than walked.
+ *
+ * <p>
+ * Implementation Details: the file is a header of little-endian fields
+ * followed by the packed edges of the DAWG and the ranks of the edges, also
+ * little-endian:
+ *
+ * <pre>
+ * int   MAGIC
+ * int   VERSION
+ * long  length of the source text
+ * long  modification time of the source text
+ * int   number of words
+ * int   number of edges (including the unused edge 0)
+ * int   CRC-32C of the edges and ranks
+ * int[] edges
+ * int[] ranks, one per edge
+ * </pre>
+ *
+ */
+public final class DictionarySnapshot {
+
+	private static final int MAGIC = 0x42444157; // "BDAW"
+	private static final int VERSION = 3;
+	private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4 + 4;
+
+	private DictionarySnapshot() {
+		// not instantiable
+	}
+
+	/**
+	 * Writes a snapshot of the specified DAWG to the specified file. The file is
+	 * written under a temporary name and then moved into place, so a process
+	 * that opens the file at the same time sees either the old snapshot or the
+	 * new one. Missing directories are created, and the file and directories
+	 * are only readable and writable by their owner.
+	 *
+	 * @param dawg           the DAWG to save
+	 * @param file           the snapshot file
+	 * @param sourceLength   the length of the text the DAWG was built from
+	 * @param sourceModified the modification time of the text the DAWG was built
+	 *                       from
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Dawg dawg, Path file, long sourceLength, long sourceModified) throws IOException {
+		IntBuffer edges = dawg.edges();
+		ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + edges.limit() * 8).order(ByteOrder.LITTLE_ENDIAN);
+		buf.putInt(MAGIC).putInt(VERSION).putLong(sourceLength).putLong(sourceModified).putInt(dawg.size())
+				.putInt(edges.limit()).putInt(0);
+		buf.asIntBuffer().put(edges).put(dawg.ranks());
+		buf.putInt(HEADER_BYTES - 4, checksum(buf.duplicate().position(HEADER_BYTES)));
+		Path dir = file.toAbsolutePath().getParent();
+		try {
+			Files.createDirectories(dir,
+					PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+		} catch (UnsupportedOperationException ex) {
+			// not a POSIX file system
+			Files.createDirectories(dir);
+		}
+		Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+		try {
+			Files.write(tmp, buf.array());
+			try {
+				Files.setPosixFilePermissions(tmp, PosixFilePermissions.fromString("rw-------"));
+			} catch (UnsupportedOperationException ex) {
+				// not a POSIX file system
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Maps the specified snapshot file and returns the DAWG it holds, or
+	 * <code>null</code> if the file does not exist, is not a snapshot, was built
+	 * from a different version of the source text, or is damaged.
+	 *
+	 * @param file           the snapshot file
+	 * @param sourceLength   the length of the current source text
+	 * @param sourceModified the modification time of the current source text
+	 * @return the DAWG in the snapshot, or <code>null</code>
+	 * @throws IOException if the file exists but cannot be read
+	 */
+	public static Dawg open(Path file, long sourceLength, long sourceModified) throws IOException {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			long fileSize = ch.size();
+			if (fileSize < HEADER_BYTES || fileSize > Integer.MAX_VALUE) {
+				return null;
+			}
+			MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+			map.order(ByteOrder.LITTLE_ENDIAN);
+			if (map.getInt() != MAGIC || map.getInt() != VERSION || map.getLong() != sourceLength
+					|| map.getLong() != sourceModified) {
+				return null;
+			}
+			int size = map.getInt();
+			int edgeCount = map.getInt();
+			int checksum = map.getInt();
+			if (size < 0 || edgeCount < 0 || HEADER_BYTES + (long) edgeCount * 8 != fileSize
+					|| checksum(map.duplicate()) != checksum) {
+				return null;
+			}
+			IntBuffer all = map.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			IntBuffer edges = all.duplicate().limit(edgeCount).slice();
+			IntBuffer ranks = all.duplicate().position(edgeCount).slice();
+			return isWellFormed(edges, ranks, size) ? new Dawg(edges, ranks, size) : null;
+		}
+	}
+
+	/**
+	 * Returns the CRC-32C of the remaining bytes of the specified buffer.
+	 */
+	private static int checksum(ByteBuffer payload) {
+		CRC32C crc = new CRC32C();
+		crc.update(payload);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Returns true if every edge has a letter, every target is the first edge of
+	 * a node inside the buffer, the last node ends with the buffer, and no rank
+	 * is more than the number of words; a walk of such a DAWG never reads
+	 * outside its buffers.
+	 */
+	private static boolean isWellFormed(IntBuffer edges, IntBuffer ranks, int size) {
+		int n = edges.limit();
+		if (n <= 1) {
+			// no words
+			return true;
+		}
+		if ((edges.get(n - 1) & Dawg.LAST_EDGE) == 0) {
+			return false;
+		}
+		for (int i = 1; i < n; i++) {
+			int e = edges.get(i);
+			int target = e >>> Dawg.TARGET_SHIFT;
+			int rank = ranks.get(i);
+			if ((e & Dawg.LETTER_MASK) >= 26 || target >= n || rank < 0 || rank > size) {
+				return false;
+			}
+			// a node starts at 1 or right after the last edge of another node
+			if (target > 1 && (edges.get(target - 1) & Dawg.LAST_EDGE) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
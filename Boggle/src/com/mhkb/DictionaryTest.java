@@ -2,6 +2,8 @@ package com.mhkb;
 
 import static org.junit.Assert.*;
 
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
@@ -9,15 +11,25 @@ import org.junit.Rule;
 import org.junit.rules.Timeout;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class DictionaryTest {
@@ -25,6 +37,36 @@ public class DictionaryTest {
 	@Rule
 	public Timeout globalTimeout = Timeout.seconds(3);
 
+	private static Path snapshotDir;
+	private static String savedSnapshot;
+
+	/**
+	 * Keeps the dictionary snapshot of the tests out of the user's own cache, and
+	 * builds it before the first timed test.
+	 */
+	@BeforeClass
+	public static void setUpSnapshot() throws IOException {
+		snapshotDir = Files.createTempDirectory("boggle");
+		savedSnapshot = System.setProperty(Dictionary.SNAPSHOT_PROPERTY,
+				snapshotDir.resolve("dictionary.dawg").toString());
+		new Dictionary();
+	}
+
+	@AfterClass
+	public static void tearDownSnapshot() throws IOException {
+		if (savedSnapshot == null) {
+			System.clearProperty(Dictionary.SNAPSHOT_PROPERTY);
+		} else {
+			System.setProperty(Dictionary.SNAPSHOT_PROPERTY, savedSnapshot);
+		}
+		try (Stream<Path> files = Files.list(snapshotDir)) {
+			for (Path f : (Iterable<Path>) files::iterator) {
+				Files.delete(f);
+			}
+		}
+		Files.delete(snapshotDir);
+	}
+
 	private static final int NUMBER_OF_WORDS = 370101;
 
 	private static final List<String> WORDS = Collections.unmodifiableList(DictionaryTest.readDictionary());
@@ -102,11 +144,416 @@ public class DictionaryTest {
 		final String[][] EXP = { { "cageless", "cagelike", "cageling", "cagelings" },
 				{ "pricier", "priciest", "pricing" }, { "thesis" },
 				{ "ufer", "ufo", "ufologies", "ufologist", "ufology", "ufos", "ufs" }, {} };
-		/*
-		 * Dictionary d = new Dictionary(); for (int i = 0; i < PREFIX.length; i++) {
-		 * SortedSet<String> exp = new TreeSet<>(Arrays.asList(EXP[i]));
-		 * assertEquals("wordsStartingWith(\"" + PREFIX[i] + "\") failed", exp,
-		 * d.wordsStartingWith(PREFIX[i])); }
-		 */
+		Dictionary d = new Dictionary();
+		for (int i = 0; i < PREFIX.length; i++) {
+			SortedSet<String> exp = new TreeSet<>(Arrays.asList(EXP[i]));
+			assertEquals("wordsStartingWith(\"" + PREFIX[i] + "\") failed", exp, d.wordsStartingWith(PREFIX[i]));
+
+			// check case insensitivity
+			assertEquals("wordsStartingWith(\"" + PREFIX[i].toUpperCase() + "\") failed", exp,
+					d.wordsStartingWith(PREFIX[i].toUpperCase()));
+		}
+	}
+
+	@Test
+	public void test05_hasWordsStartingWith() {
+		final String[] PREFIX = { "cagel", "PRICI", "thesis", "uf", "" };
+		final String[] NOT_PREFIX = { "zz", "thesisx", "cagelz", "uf1" };
+		Dictionary d = new Dictionary();
+		for (String p : PREFIX) {
+			assertTrue("some word starts with \"" + p + "\"", d.hasWordsStartingWith(p));
+		}
+		for (String p : NOT_PREFIX) {
+			assertFalse("no word starts with \"" + p + "\"", d.hasWordsStartingWith(p));
+		}
+	}
+
+	@Test
+	public void test06_dawg() {
+		final String[] WORDS = { "a", "an", "ant", "ants", "bat", "bats", "cat", "cat", "cats", "zebra" };
+		Dawg g = Dawg.build(Arrays.asList(WORDS));
+		assertEquals("repeated words should be ignored", WORDS.length - 1, g.size());
+		for (String w : WORDS) {
+			assertTrue(w + " was added to the DAWG", g.contains(w));
+			assertTrue(w + " was added to the DAWG", g.contains(w.toUpperCase()));
+		}
+		final String[] NOT_WORDS = { "", "b", "ba", "at", "antz", "cats!", "zebras" };
+		for (String w : NOT_WORDS) {
+			assertFalse(w + " was not added to the DAWG", g.contains(w));
+		}
+
+		// "bats" and "cats" share the suffix "ats"
+		int b = g.walk(g.root(), "b");
+		int c = g.walk(g.root(), "c");
+		assertEquals("the DAWG is not minimal", b, c);
+	}
+
+	@Test
+	public void test07_dawgRejects() {
+		final String[][] BAD = { { "b", "a" }, { "ab", "a" }, { "a", "" }, { "a-b" } };
+		for (String[] words : BAD) {
+			try {
+				Dawg.build(Arrays.asList(words));
+				fail("Dawg.build should reject " + Arrays.asList(words));
+			} catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void test08_snapshot() throws Exception {
+		Dawg dawg = Dawg.build(Arrays.asList("ant", "anti", "bat", "bats", "cat", "cats"));
+		Path file = Files.createTempFile("boggle", ".dawg");
+		try {
+			DictionarySnapshot.write(dawg, file, 100L, 200L);
+			Dawg mapped = DictionarySnapshot.open(file, 100L, 200L);
+			assertNotNull("the snapshot could not be opened", mapped);
+			Dictionary d = new Dictionary(mapped);
+			assertEquals(6, d.size());
+			assertEquals(new TreeSet<>(Arrays.asList("ant", "anti")), d.wordsStartingWith("AN"));
+			assertTrue(d.lookUp("Bats"));
+			assertFalse(d.lookUp("bit"));
+
+			// a different source text makes the snapshot stale
+			assertNull("a stale snapshot was opened", DictionarySnapshot.open(file, 101L, 200L));
+			assertNull("a stale snapshot was opened", DictionarySnapshot.open(file, 100L, 201L));
+
+			// a damaged snapshot is refused: first a changed byte, then an edge that
+			// points past the end with a checksum that matches
+			byte[] good = Files.readAllBytes(file);
+			final int HEADER = 36;
+			byte[] bad = good.clone();
+			bad[HEADER + 5] ^= 1;
+			Files.write(file, bad);
+			assertNull("a damaged snapshot was opened", DictionarySnapshot.open(file, 100L, 200L));
+			bad = good.clone();
+			ByteBuffer buf = ByteBuffer.wrap(bad).order(ByteOrder.LITTLE_ENDIAN);
+			buf.putInt(HEADER + 4, buf.getInt(HEADER + 4) | 0x7FFFFF << Dawg.TARGET_SHIFT);
+			CRC32C crc = new CRC32C();
+			crc.update(bad, HEADER, bad.length - HEADER);
+			buf.putInt(HEADER - 4, (int) crc.getValue());
+			Files.write(file, bad);
+			assertNull("a snapshot with a bad edge was opened", DictionarySnapshot.open(file, 100L, 200L));
+			Files.write(file, good);
+			assertNotNull(DictionarySnapshot.open(file, 100L, 200L));
+
+			// a file that is not a snapshot is refused
+			Files.write(file, new byte[] { 1, 2, 3 });
+			assertNull("a bad snapshot was opened", DictionarySnapshot.open(file, 100L, 200L));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+		assertNull("a missing snapshot was opened", DictionarySnapshot.open(file, 100L, 200L));
+	}
+
+	@Test
+	public void test09_lookUpCharSequence() {
+		Dictionary d = new Dictionary(Dawg.build(Arrays.asList("ant", "anti", "bat", "bats")));
+		StringBuilder b = new StringBuilder();
+		for (char c : "BATS".toCharArray()) {
+			b.append(c);
+			assertEquals("lookUp(\"" + b + "\") failed", b.length() >= 3, d.lookUp(b));
+		}
+		char[] letters = "xxAntIxx".toCharArray();
+		assertTrue(d.lookUp(letters, 2, 3));
+		assertTrue(d.lookUp(letters, 2, 4));
+		assertFalse(d.lookUp(letters, 2, 2));
+		assertFalse(d.lookUp(letters, 1, 4));
+		assertFalse(d.lookUp(letters, 2, 0));
+		try {
+			d.lookUp(letters, 6, 3);
+			fail("lookUp should reject a slice outside the array");
+		} catch (IndexOutOfBoundsException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void test10_wordList() {
+		List<String> words = new ArrayList<>();
+		StringBuilder text = new StringBuilder();
+		for (char a = 'a'; a <= 'h'; a++) {
+			for (char b = 'a'; b <= 'h'; b++) {
+				for (char c = 'a'; c <= 'h'; c++) {
+					String word = "" + a + b + c;
+					words.add(word);
+					// mixed case, padding, blank lines and both kinds of line end
+					text.append(c == 'b' ? "  " + word.toUpperCase() + " \r\n" : word + "\n");
+					if (c == 'e') {
+						text.append("\n \t\n");
+					}
+				}
+			}
+		}
+		byte[] sorted = text.toString().getBytes(StandardCharsets.US_ASCII);
+		byte[] unsorted = text.toString().replace("cdc", "zzz").getBytes(StandardCharsets.US_ASCII);
+		for (int chunks = 1; chunks <= 40; chunks += 3) {
+			WordList list = WordList.parse(sorted, chunks);
+			assertTrue("sorted words were not recognized in " + chunks + " chunks", list.isSorted());
+			assertEquals(words.size(), list.size());
+			List<String> lower = new ArrayList<>();
+			for (CharSequence word : list) {
+				lower.add(word.toString().toLowerCase());
+			}
+			assertEquals(words, lower);
+			assertFalse("unsorted words were not recognized in " + chunks + " chunks",
+					WordList.parse(unsorted, chunks).isSorted());
+		}
+
+		Dictionary d = new Dictionary(Dictionary.readDictionary(unsorted));
+		assertEquals(words.size(), d.size());
+		assertTrue(d.lookUp("zzz"));
+		assertTrue(d.lookUp("cdb"));
+		assertFalse(d.lookUp("cdc"));
+		assertEquals(0, WordList.parse(new byte[0]).size());
+
+		// a non-ASCII letter is part of the line, and the line is not a word
+		for (String line : new String[] { "caf\u00e9", "\u00e9lan" }) {
+			// one of the lines sorts before "cat" and the other after it
+			byte[] data = ("cat\n" + line + "\n").getBytes(StandardCharsets.UTF_8);
+			WordList list = WordList.parse(data, 1);
+			assertEquals(2, list.size());
+			Iterator<CharSequence> it = list.iterator();
+			it.next();
+			assertEquals(line.getBytes(StandardCharsets.UTF_8).length, it.next().length());
+			try {
+				Dictionary.readDictionary(data);
+				fail(line + " should be rejected");
+			} catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void test11_offHeap() {
+		final String[] WORDS = { "a", "an", "ant", "ants", "bat", "bats", "cat", "cats", "zebra" };
+		Dawg heap = Dawg.build(Arrays.asList(WORDS));
+		assertFalse(heap.isOffHeap());
+		Dawg direct = heap.offHeap();
+		assertTrue(direct.isOffHeap());
+		assertSame("an off-heap DAWG was copied again", direct, direct.offHeap());
+		assertEquals(heap.size(), direct.size());
+		assertEquals(heap.edges(), direct.edges());
+		for (String w : WORDS) {
+			assertTrue(w + " was lost off the heap", direct.contains(w));
+		}
+		assertFalse(direct.contains("zebras"));
+
+		Lexicon lexicon = new Dictionary().getLexicon();
+		assertTrue("the default dictionary is on the heap", ((Dawg) lexicon).isOffHeap());
+	}
+
+	@Test
+	public void test12_bloomFilters() {
+		final double RATE = 0.01;
+		Dictionary d = new Dictionary().withBloomFilters(RATE);
+		BloomFilter words = d.getWordFilter();
+		BloomFilter prefixes = d.getPrefixFilter();
+		assertNotNull(words);
+		assertNotNull(prefixes);
+		assertNull(new Dictionary().getWordFilter());
+
+		// no word or prefix of a word may be rejected
+		for (String w : WORDS) {
+			assertTrue(w + " was rejected", d.lookUp(w));
+			assertTrue(w + " was rejected as a prefix", d.hasWordsStartingWith(w.substring(0, (w.length() + 1) / 2)));
+		}
+		assertEquals(WORDS.size(), words.getQueries());
+		assertEquals(0, words.getRejects());
+		assertEquals(0, words.getFalsePositives());
+		assertEquals(1.0, words.getHitRate(), 0.0);
+
+		// random strings are almost never words; the filter must reject most
+		Random rng = new Random(18);
+		final int TRIALS = 20000;
+		int found = 0;
+		char[] letters = new char[8];
+		for (int i = 0; i < TRIALS; i++) {
+			for (int j = 0; j < letters.length; j++) {
+				letters[j] = (char) ('a' + rng.nextInt(26));
+			}
+			if (d.lookUp(letters, 0, 4 + rng.nextInt(5))) {
+				found++;
+			}
+		}
+		long absent = TRIALS - found;
+		assertEquals(absent, words.getRejects() + words.getFalsePositives());
+		assertTrue("too many false positives: " + words, words.getObservedFalsePositiveRate() < 2 * RATE);
+		assertTrue(words.getRejectRate() > 0);
+
+		assertFalse(d.hasWordsStartingWith("qzx"));
+		assertTrue(d.hasWordsStartingWith(""));
+		assertFalse("a non-letter was let through", d.lookUp("ca-t"));
+		assertEquals(d.lookUp("cats"), new Dictionary().lookUp("cats"));
+		try {
+			d.withBloomFilters(0);
+			fail("a false-positive rate of 0 should be rejected");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void test13_wordIds() throws Exception {
+		List<String> sorted = Arrays.asList("a", "an", "ant", "anti", "at", "bat", "bats", "cat", "cats", "zebra");
+		Dawg dawg = Dawg.build(sorted);
+		for (int i = 0; i < sorted.size(); i++) {
+			assertEquals(sorted.get(i), i, dawg.idOf(sorted.get(i)));
+			assertEquals(sorted.get(i), dawg.wordOf(i));
+		}
+		assertEquals(3, dawg.idOf("ANTI"));
+		assertEquals(Lexicon.NONE, dawg.idOf("ants"));
+		assertEquals(Lexicon.NONE, dawg.idOf("b"));
+		assertEquals(Lexicon.NONE, dawg.idOf(""));
+		assertEquals(Lexicon.NONE, dawg.idOf("c-t"));
+		for (int id : new int[] { -1, sorted.size() }) {
+			try {
+				dawg.wordOf(id);
+				fail("there is no word " + id);
+			} catch (IndexOutOfBoundsException ex) {
+				// expected
+			}
+		}
+
+		// the ids survive a snapshot and a copy off the heap
+		Path file = Files.createTempFile("boggle", ".dawg");
+		try {
+			DictionarySnapshot.write(dawg, file, 1L, 2L);
+			Dawg mapped = DictionarySnapshot.open(file, 1L, 2L);
+			for (Dawg d : new Dawg[] { mapped, dawg.offHeap() }) {
+				for (int i = 0; i < sorted.size(); i++) {
+					assertEquals(i, d.idOf(sorted.get(i)));
+					assertEquals(sorted.get(i), d.wordOf(i));
+				}
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+
+		// the whole dictionary: ids are dense and follow the order of the words
+		Dictionary d = new Dictionary();
+		Random rng = new Random(23);
+		for (int i = 0; i < 2000; i++) {
+			int id = rng.nextInt(d.size());
+			String word = d.wordOf(id);
+			assertEquals(word, id, d.idOf(word));
+			assertEquals(id, d.idOf(word.toUpperCase()));
+			if (id > 0) {
+				assertTrue(word, d.wordOf(id - 1).compareTo(word) < 0);
+			}
+		}
+		assertEquals(d.size() - 1, d.idOf(d.wordOf(d.size() - 1)));
+		assertEquals(-1, d.withBloomFilters(0.01).idOf("qzxv"));
+	}
+
+	@Test
+	public void test14_suggest() {
+		Dictionary small = new Dictionary(Dawg.build(Arrays.asList("bat", "bats", "cart", "cat", "cats", "coat", "dog")));
+		assertEquals(Arrays.asList("cat", "bat", "cart", "cats", "coat"), small.suggest("cat", 1, 10));
+		assertEquals(Arrays.asList("cat", "bat"), small.suggest("CAT", 1, 2));
+		// a transposition is two edits
+		assertEquals(Arrays.asList("cart", "cat"), small.suggest("caot", 1, 10));
+		assertEquals(Arrays.asList("cart", "cat", "bat", "cats", "coat"), small.suggest("caot", 2, 10));
+		assertEquals(Arrays.asList("cats", "bats"), small.suggest("cats", 2, 10, w -> w.endsWith("s")));
+		assertEquals(Collections.emptyList(), small.suggest("zzzzz", 2, 10));
+		assertEquals(Arrays.asList("cat"), small.suggest("cat", 0, 10));
+
+		// the automaton finds exactly the words a scan of the list finds
+		Dictionary d = new Dictionary();
+		SortedSet<String> sorted = new TreeSet<>();
+		for (String w : WORDS) {
+			sorted.add(w.toLowerCase());
+		}
+		for (String s : new String[] { "hte", "qiuck", "boggel", "xyzzy", "a" }) {
+			List<List<String>> byDistance = Arrays.asList(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+			for (String w : sorted) {
+				if (Math.abs(w.length() - s.length()) <= 2) {
+					int dist = distance(s, w);
+					if (dist <= 2) {
+						byDistance.get(dist).add(w);
+					}
+				}
+			}
+			List<String> expected = new ArrayList<>();
+			byDistance.forEach(expected::addAll);
+			assertEquals(s, expected, d.suggest(s, 2, Integer.MAX_VALUE));
+		}
+	}
+
+	private static int distance(String a, String b) {
+		int[] prev = new int[b.length() + 1];
+		int[] row = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			prev[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			row[0] = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = prev[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				row[j] = Math.min(cost, Math.min(prev[j], row[j - 1]) + 1);
+			}
+			int[] t = prev;
+			prev = row;
+			row = t;
+		}
+		return prev[b.length()];
+	}
+
+	@Test
+	public void test15_query() {
+		Dictionary small = new Dictionary(
+				Dawg.build(Arrays.asList("act", "cat", "cats", "coat", "cot", "cut", "quit", "quits", "tact", "tacts")));
+		assertEquals(Arrays.asList("cat", "cats", "cot", "cut"),
+				small.query(WordQuery.matching("c?t*")).collect(Collectors.toList()));
+		assertEquals(Arrays.asList("cat", "cot", "cut"),
+				small.query(WordQuery.matching("C?T")).collect(Collectors.toList()));
+		assertEquals(Arrays.asList("quits"),
+				small.query(WordQuery.matching("*qu*").withLength(5)).collect(Collectors.toList()));
+		assertEquals(Arrays.asList("act", "cat", "tact"),
+				small.query(WordQuery.any().usingLetters("tcat")).collect(Collectors.toList()));
+		assertEquals(Arrays.asList("act", "cat", "cats", "coat", "cot", "cut", "tact"),
+				small.query(WordQuery.any().usingLetters("tca??").withLength(3, 4)).collect(Collectors.toList()));
+		assertEquals(Arrays.asList("tact", "tacts"),
+				small.query(WordQuery.matching("*t*t*").usingLetters("sttac")).collect(Collectors.toList()));
+		assertEquals(10, small.query(WordQuery.any()).count());
+		assertEquals(0, small.query(WordQuery.matching("")).count());
+		// a leading '*' tests every word of a table instead of walking
+		assertEquals(Arrays.asList("cats", "quits", "tacts"),
+				small.query(WordQuery.matching("*ts")).collect(Collectors.toList()));
+		assertEquals(Arrays.asList("act", "cat", "coat", "cot", "cut", "quit", "tact"),
+				small.query(WordQuery.matching("*t")).collect(Collectors.toList()));
+		assertEquals(0, new Dictionary(Dawg.build(Collections.emptyList())).query(WordQuery.any()).count());
+		assertTrue(WordQuery.matching("c*t").matches("COAT"));
+		assertFalse(WordQuery.matching("c*t").matches("cots"));
+		for (String bad : new String[] { "c.t", "c t" }) {
+			try {
+				WordQuery.matching(bad);
+				fail(bad + " should be rejected");
+			} catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+
+		// the walk finds exactly the words a scan finds, and stops when asked
+		Dictionary d = new Dictionary();
+		SortedSet<String> sorted = new TreeSet<>();
+		for (String w : WORDS) {
+			sorted.add(w.toLowerCase());
+		}
+		WordQuery[] queries = { WordQuery.matching("c?t*"), WordQuery.matching("*qu*").withLength(8),
+				WordQuery.any().usingLetters("retains"), WordQuery.matching("?a*e").usingLetters("abcde??"),
+				WordQuery.matching("*ing"), WordQuery.matching("*a?e*").withLength(6, 7),
+				WordQuery.any().withLength(9) };
+		assertFalse(queries[0].prunesLittle());
+		assertTrue(queries[1].prunesLittle());
+		assertFalse(queries[2].prunesLittle());
+		assertFalse(WordQuery.matching("*qu*").withLength(4).prunesLittle());
+		for (WordQuery q : queries) {
+			List<String> expected = sorted.stream().filter(q::matches).collect(Collectors.toList());
+			assertEquals(q.toString(), expected, d.query(q).collect(Collectors.toList()));
+		}
+		assertEquals(3, d.query(WordQuery.any()).limit(3).count());
 	}
 }
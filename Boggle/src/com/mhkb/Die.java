@@ -1,57 +1,36 @@
 package com.mhkb;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * A class that represents an n-sided die where the sides are decorated with a
  * string. Every Die has at least one face.
  * 
  * <p>
- * Implementation Details: Every n-sided Die object has-a sorted map that stores
- * the mapping between the face number 1, 2, ..., n to the corresponding face
- * string. For example, a 4-sided die whose face strings are "ONE", "TWO",
- * "THREE" and "FOUR" would have the following map:
- * 
- * <table summary="Map of face numbers to face strings">
- * <tr>
- * <th>Key&nbsp;&nbsp;&nbsp;</th>
- * <th>Value</th>
- * </tr>
- * <tr>
- * <td>1</td>
- * <td>"ONE"</td>
- * </tr>
- * <tr>
- * <td>2</td>
- * <td>"TWO"</td>
- * </tr>
- * <tr>
- * <td>3</td>
- * <td>"THREE"</td>
- * </tr>
- * <tr>
- * <td>4</td>
- * <td>"FOUR"</td>
- * </tr>
- * </table>
- * 
- * <p>
- * The die also stores it current value as an integer between 1 and n. To return
- * the current value of the die, the die uses its current value as a key and
- * returns the corresponding value in the map (the current face string).
+ * The faces are numbered 1, 2, ..., n in the order their strings were given
+ * to the constructor, and <code>getValueMap</code> returns the mapping from
+ * face numbers to face strings. For example, a 4-sided die whose face strings
+ * are "ONE", "TWO", "THREE" and "FOUR" has the map
+ * <code>{1=ONE, 2=TWO, 3=THREE, 4=FOUR}</code>.
  * 
  * <p>
- * To roll a die, the die sets its current value to a random value between 1 and
- * n, and returns the string of the current face.
+ * Implementation Details: the face strings are stored in an array, and the
+ * current face is stored as an index into that array. The array is never
+ * modified, so copies of a die share it. To roll a die, the die draws a single
+ * random index from its random number generator; rolling does not create any
+ * objects. The sorted map of faces is only built when a client asks for it.
  * 
  */
 public class Die {
 
-	private SortedMap<Integer, String> valueMap;
+	private final String[] faces;
+	private final String[] sortedFaces;
+	private final RandomGenerator rng;
+	private int current;
 
 	/**
 	 * Initializes an n-sided die where the sides are decorated with the strings in
@@ -79,18 +58,41 @@ public class Die {
 	 * immediately after constructing a die could return any face that belongs to
 	 * the die.
 	 * 
+	 * <p>
+	 * The die is rolled using the <code>ThreadLocalRandom</code> of the thread
+	 * that rolls it.
+	 * 
 	 * @param faces an array of strings, one string for each face of the die
 	 * 
 	 * @throws IllegalArgumentException if faces.length == 0
 	 * 
 	 */
 	public Die(String[] faces) {
+		this(faces, null);
+	}
+
+	/**
+	 * Initializes an n-sided die where the sides are decorated with the strings in
+	 * the specified array, and that is rolled using the specified random number
+	 * generator. A die made with a seeded generator, such as a
+	 * <code>SplittableRandom</code>, rolls the same sequence of faces every time.
+	 * 
+	 * @param faces an array of strings, one string for each face of the die
+	 * @param rng   the random number generator used to roll the die, or
+	 *              <code>null</code> to use the <code>ThreadLocalRandom</code>
+	 *              of the rolling thread
+	 * 
+	 * @throws IllegalArgumentException if faces.length == 0
+	 */
+	public Die(String[] faces, RandomGenerator rng) {
 		if (faces.length == 0) {
 			throw new IllegalArgumentException();
 		}
-		for (int i = 0; i < faces.length; i++) {
-			valueMap.put(i, Arrays.asList(faces).get(i));
-		}
+		this.faces = faces.clone();
+		this.sortedFaces = faces.clone();
+		Arrays.sort(this.sortedFaces);
+		this.rng = rng;
+		this.current = 0;
 	}
 
 	/**
@@ -98,13 +100,16 @@ public class Die {
 	 * same strings on the same faces as the existing die.
 	 * 
 	 * <p>
-	 * The current value of this die will be the same as the other die.
+	 * The current value of this die will be the same as the other die. The new
+	 * die is rolled using the same random number generator as the other die.
 	 * 
 	 * @param other the die to copy
 	 */
 	public Die(Die other) {
-		this.valueMap = other.valueMap;
-
+		this.faces = other.faces;
+		this.sortedFaces = other.sortedFaces;
+		this.rng = other.rng;
+		this.current = other.current;
 	}
 
 	/**
@@ -113,8 +118,7 @@ public class Die {
 	 * @return the number of faces that this die has
 	 */
 	public int getNumberOfFaces() {
-		return valueMap.size();
-
+		return this.faces.length;
 	}
 
 	/**
@@ -123,13 +127,9 @@ public class Die {
 	 * @return the string on face after rolling the die
 	 */
 	public String roll() {
-		List keys = new ArrayList(valueMap.keySet());
-		Collections.shuffle(keys);
-		for (Object o : keys) {
-			valueMap.get(o);
-		}
-		return valueMap.get(4);
-
+		RandomGenerator r = this.rng == null ? ThreadLocalRandom.current() : this.rng;
+		this.current = r.nextInt(this.faces.length);
+		return this.faces[this.current];
 	}
 
 	/**
@@ -138,7 +138,44 @@ public class Die {
 	 * @return the string corresponding to the current face value of the die
 	 */
 	public String getValue() {
-		return this.roll();
+		return this.faces[this.current];
+	}
+
+	/**
+	 * Returns the string on the specified face of the die. Faces are numbered
+	 * from 0 in this method, so <code>getFace(i)</code> is the value that
+	 * <code>getValueMap()</code> maps the face number <code>i + 1</code> to.
+	 * 
+	 * @param index the index of a face, between 0 and
+	 *              <code>getNumberOfFaces() - 1</code>
+	 * @return the string on the face
+	 */
+	public String getFace(int index) {
+		return this.faces[index];
+	}
+
+	/**
+	 * Returns the index of the current face of the die, between 0 and
+	 * <code>getNumberOfFaces() - 1</code>.
+	 * 
+	 * @return the index of the current face
+	 */
+	public int getFaceIndex() {
+		return this.current;
+	}
+
+	/**
+	 * Turns the die so that the specified face is showing.
+	 * 
+	 * @param index the index of a face, between 0 and
+	 *              <code>getNumberOfFaces() - 1</code>
+	 * @throws IndexOutOfBoundsException if the index is not the index of a face
+	 */
+	public void setFaceIndex(int index) {
+		if (index < 0 || index >= this.faces.length) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		this.current = index;
 	}
 
 	/**
@@ -171,18 +208,26 @@ public class Die {
 	 * @return a sorted map of the faces to letters
 	 */
 	public SortedMap<Integer, String> getValueMap() {
-		List map = new ArrayList();
-		for (int i = 0; i < this.getNumberOfFaces(); i++) {
-			valueMap.put(i, this.getValue());
+		SortedMap<Integer, String> valueMap = new TreeMap<>();
+		for (int i = 0; i < this.faces.length; i++) {
+			valueMap.put(i + 1, this.faces[i]);
 		}
 		return valueMap;
 	}
 
+	/**
+	 * Returns a hash code for this die. The hash code is the sum of the hash
+	 * codes of the face strings, so it does not depend on the current value or on
+	 * which face a string is on.
+	 *
+	 * @return a hash code for this die
+	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((valueMap == null) ? 0 : valueMap.hashCode());
+		int result = 0;
+		for (String face : this.faces) {
+			result += face.hashCode();
+		}
 		return result;
 	}
 
@@ -195,17 +240,14 @@ public class Die {
 		if (getClass() != obj.getClass())
 			return false;
 		Die other = (Die) obj;
-		if (valueMap == null) {
-			if (other.valueMap != null)
-				return false;
-		} else if (!valueMap.equals(other.valueMap))
+		if (!this.getValue().equals(other.getValue()))
 			return false;
-		return true;
+		return Arrays.equals(this.sortedFaces, other.sortedFaces);
 	}
 
 	@Override
 	public String toString() {
-		return "Die [valueMap=" + valueMap + "]";
+		return String.join(", ", this.faces);
 	}
 
 }
@@ -7,6 +7,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -236,4 +237,35 @@ public class DieTest {
 			assertEquals("copy constructor did not create an equal die", d1, d2);
 		}
 	}
+
+	@Test
+	public void test13_seededRoll() {
+		for (int n = 2; n <= 10; n++) {
+			String[] faces = makeFaces(n);
+			Die d1 = new Die(faces, new SplittableRandom(n));
+			Die d2 = new Die(faces, new SplittableRandom(n));
+			for (int i = 0; i < 100; i++) {
+				assertEquals("dice with equally seeded generators rolled differently", d1.roll(), d2.roll());
+			}
+
+			// a copy rolls with the same generator
+			Die d3 = new Die(d1);
+			assertEquals(d1.getValue(), d3.getValue());
+		}
+	}
+
+	@Test
+	public void test14_getFace() {
+		final String[] FACES = { "bungie", "bethesda", "id", "pavonis", "eidos", "fromsoft" };
+		Die d = new Die(FACES);
+		for (int i = 0; i < FACES.length; i++) {
+			assertEquals("getFace returned the wrong face", FACES[i], d.getFace(i));
+		}
+
+		// the die does not share the array it was made from
+		String[] faces = FACES.clone();
+		d = new Die(faces);
+		faces[0] = "sega";
+		assertEquals("the constructor has a privacy leak", "bungie", d.getFace(0));
+	}
 }
@@ -0,0 +1,249 @@
+package com.mhkb;
+
+import java.util.Objects;
+
+/**
+ * A read-only word structure that can be walked one letter at a time. A
+ * Lexicon is the engine behind a <code>Dictionary</code>; any implementation
+ * that can answer the node queries below can be plugged into a dictionary.
+ *
+ * <p>
+ * Nodes and edges are identified by opaque integer handles. A node handle
+ * represents the set of words that begin with the letters spelled on the way
+ * down from the root; it is only meaningful to the lexicon that produced it.
+ * Letters are the 26 lower case letters <code>'a'</code> through
+ * <code>'z'</code>; methods that accept a letter also accept its upper case
+ * form.
+ *
+ * <p>
+ * Every word also has an id: its rank among the words of the lexicon in
+ * ascending order, from 0 to <code>size() - 1</code>. The ids are dense and
+ * stable for a given list of words, so a set of words can be held as an
+ * <code>int</code> array or a bit set instead of a set of strings, and sorting
+ * ids sorts the words. The ids are computed from <code>edgeRank</code> while
+ * walking the lexicon (see <code>idOf</code> and <code>wordOf</code>).
+ *
+ */
+public interface Lexicon {
+
+	/**
+	 * The handle returned when there is no such node or edge.
+	 */
+	int NONE = -1;
+
+	/**
+	 * Returns the number of words in the lexicon.
+	 *
+	 * @return the number of words in the lexicon
+	 */
+	int size();
+
+	/**
+	 * Returns the node for the empty prefix.
+	 *
+	 * @return the root node
+	 */
+	int root();
+
+	/**
+	 * Returns the node reached by following the edge labelled with the specified
+	 * letter out of the specified node, or <code>NONE</code> if no word continues
+	 * with that letter.
+	 *
+	 * @param node   a node handle
+	 * @param letter a letter in either case
+	 * @return the child node, or <code>NONE</code>
+	 */
+	int child(int node, char letter);
+
+	/**
+	 * Returns true if the prefix spelled by the specified node is itself a word.
+	 *
+	 * @param node a node handle
+	 * @return true if the node ends a word, and false otherwise
+	 */
+	boolean isWord(int node);
+
+	/**
+	 * Returns true if at least one word continues past the specified node.
+	 *
+	 * @param node a node handle
+	 * @return true if the node has at least one child, and false otherwise
+	 */
+	boolean hasChildren(int node);
+
+	/**
+	 * Returns the first outgoing edge of the specified node, or <code>NONE</code>
+	 * if the node has no children. Edges are ordered by letter.
+	 *
+	 * @param node a node handle
+	 * @return the first edge of the node, or <code>NONE</code>
+	 */
+	int firstEdge(int node);
+
+	/**
+	 * Returns the edge following the specified edge out of the same node, or
+	 * <code>NONE</code> if it is the last one.
+	 *
+	 * @param edge an edge handle
+	 * @return the next sibling edge, or <code>NONE</code>
+	 */
+	int nextEdge(int edge);
+
+	/**
+	 * Returns the lower case letter that labels the specified edge.
+	 *
+	 * @param edge an edge handle
+	 * @return the letter of the edge
+	 */
+	char edgeLetter(int edge);
+
+	/**
+	 * Returns the node that the specified edge leads to.
+	 *
+	 * @param edge an edge handle
+	 * @return the target node of the edge
+	 */
+	int edgeTarget(int edge);
+
+	/**
+	 * Returns the number of words that continue past the source node of the
+	 * specified edge with the letter of an earlier edge of the same node. Adding
+	 * this to the id of the first word below the source node gives the id of
+	 * the first word below the target node.
+	 *
+	 * @param edge an edge handle
+	 * @return the number of words below the earlier sibling edges
+	 */
+	int edgeRank(int edge);
+
+	/**
+	 * Returns the edge labelled with the specified letter out of the specified
+	 * node, or <code>NONE</code> if no word continues with that letter.
+	 *
+	 * @param node   a node handle
+	 * @param letter a letter in either case
+	 * @return the edge for the letter, or <code>NONE</code>
+	 */
+	default int findEdge(int node, char letter) {
+		char l = Character.toLowerCase(letter);
+		for (int e = this.firstEdge(node); e != NONE; e = this.nextEdge(e)) {
+			if (this.edgeLetter(e) == l) {
+				return e;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Returns the id of the first word at or below the target of the specified
+	 * edge, given the id of the first word at or below its source node. This is
+	 * one step of <code>idOf</code>, for callers that walk the lexicon
+	 * themselves.
+	 *
+	 * @param node the source node of the edge
+	 * @param rank the id of the first word at or below <code>node</code>
+	 * @param edge an edge out of <code>node</code>
+	 * @return the id of the first word at or below the target of the edge
+	 */
+	default int rankAfter(int node, int rank, int edge) {
+		return rank + (this.isWord(node) ? 1 : 0) + this.edgeRank(edge);
+	}
+
+	/**
+	 * Returns the id of the specified word: the number of words in the lexicon
+	 * that sort before it. The case of the word is not important.
+	 *
+	 * @param word a word
+	 * @return the id of the word, or <code>NONE</code> if it is not in the
+	 *         lexicon
+	 */
+	default int idOf(CharSequence word) {
+		int node = this.root();
+		int rank = 0;
+		for (int i = 0, n = word.length(); i < n; i++) {
+			int e = this.findEdge(node, word.charAt(i));
+			if (e == NONE) {
+				return NONE;
+			}
+			rank = this.rankAfter(node, rank, e);
+			node = this.edgeTarget(e);
+		}
+		return this.isWord(node) ? rank : NONE;
+	}
+
+	/**
+	 * Returns the word with the specified id, in lower case.
+	 *
+	 * @param id the id of a word
+	 * @return the word with the id
+	 * @throws IndexOutOfBoundsException if <code>id</code> is negative or not
+	 *                                   less than <code>size()</code>
+	 */
+	default String wordOf(int id) {
+		Objects.checkIndex(id, this.size());
+		StringBuilder word = new StringBuilder();
+		int node = this.root();
+		int rank = id;
+		while (true) {
+			if (this.isWord(node)) {
+				if (rank == 0) {
+					return word.toString();
+				}
+				rank--;
+			}
+			int edge = NONE;
+			for (int e = this.firstEdge(node); e != NONE && this.edgeRank(e) <= rank; e = this.nextEdge(e)) {
+				edge = e;
+			}
+			rank -= this.edgeRank(edge);
+			word.append(this.edgeLetter(edge));
+			node = this.edgeTarget(edge);
+		}
+	}
+
+	/**
+	 * Walks the letters of the specified string down from the specified node.
+	 *
+	 * @param node a node handle
+	 * @param s    the letters to follow
+	 * @return the node reached after the last letter, or <code>NONE</code> if no
+	 *         word continues with those letters
+	 */
+	default int walk(int node, CharSequence s) {
+		for (int i = 0; i < s.length() && node != NONE; i++) {
+			node = this.child(node, s.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * Walks the letters of a slice of the specified array down from the
+	 * specified node.
+	 *
+	 * @param node   a node handle
+	 * @param s      an array holding the letters to follow
+	 * @param offset the index of the first letter to follow
+	 * @param length the number of letters to follow
+	 * @return the node reached after the last letter, or <code>NONE</code> if no
+	 *         word continues with those letters
+	 */
+	default int walk(int node, char[] s, int offset, int length) {
+		for (int i = offset, end = offset + length; i < end && node != NONE; i++) {
+			node = this.child(node, s[i]);
+		}
+		return node;
+	}
+
+	/**
+	 * Returns true if the specified word is in the lexicon. The case of the word
+	 * is not important.
+	 *
+	 * @param word a word to look up
+	 * @return true if the word is in the lexicon, and false otherwise
+	 */
+	default boolean contains(CharSequence word) {
+		int node = this.walk(this.root(), word);
+		return node != NONE && this.isWord(node);
+	}
+}
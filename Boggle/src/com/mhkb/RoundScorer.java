@@ -0,0 +1,296 @@
+package com.mhkb;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scores one round of Boggle played by many players on the same board. Words
+ * are submitted by any number of threads at once; when the round is closed,
+ * each player scores the standard points for every word that no other player
+ * found, and a word found by two or more players scores nothing for anyone.
+ *
+ * <p>
+ * A submission is checked as <code>WordValidator</code> checks it, and the
+ * verdict is returned at once: a word is <code>VALID</code> the first time a
+ * player submits it and a <code>DUPLICATE</code> for that player afterwards,
+ * whatever the other players have submitted. Whether a word is shared is only
+ * decided when the round is closed.
+ *
+ * <p>
+ * Implementation Details: the words on the board are found once, when the
+ * scorer is made, as a sorted array of their dictionary ids (see
+ * <code>Lexicon.idOf</code>). A submitted word is looked up by walking the
+ * lexicon once, which gives its id, and then found on the board by a binary
+ * search of the ids; the word is known by its index in that array from then
+ * on, and no string is created. Each player has a row of bits, one per word,
+ * in a single <code>AtomicLongArray</code>, and a submission sets its bit with
+ * a compare-and-set; no lock is taken and players only ever write to their
+ * own rows. The array is only known to be aligned to a long, so there is a
+ * whole cache line of unused longs before the first row and after every row:
+ * any two longs of different rows are at least a line apart and never share
+ * one. Closing the round combines the rows a word at a time: a bit that is set
+ * in exactly one row is a word only that player found.
+ *
+ * <p>
+ * Submissions in progress are counted per player, in slots a cache line apart
+ * with a line to spare at each end, so players share no counter either. A
+ * submission counts itself in to its player's slot and then checks that the
+ * round is open; closing marks the round closed and then waits
+ * for every slot to reach 0, so every submission is either refused or finished
+ * before the scores are added up. The wait spins briefly and then yields and
+ * sleeps, since it may be waiting on hundreds of submitting threads.
+ *
+ */
+public final class RoundScorer {
+
+	// longs per 64-byte cache line
+	private static final int LINE = 8;
+	// times close() spins, and then yields, before it sleeps between checks
+	private static final int SPINS = 100;
+	private static final long PARK_NANOS = 10_000;
+
+	private final Lexicon lexicon;
+	private final int minLength;
+	private final int[] words;
+	private final int[] points;
+	private final int players;
+	private final int stride;
+	// row p starts at LINE + p * stride, and is followed by a line of padding
+	private final AtomicLongArray found;
+	// the submissions in progress for player p are at (p + 1) * LINE
+	private final AtomicLongArray active;
+
+	private volatile boolean closed;
+	private int[] scores;
+
+	/**
+	 * Initializes a scorer for a round with the specified number of players,
+	 * numbered from 0, on a board with the specified words.
+	 *
+	 * @pre. <code>words</code> must be the ids of every word of the lexicon of
+	 *       at least <code>minLength</code> letters on the board, each once and
+	 *       sorted, as returned by <code>BoggleSolver.solveIds</code>
+	 *
+	 * @param lexicon   the words of the dictionary
+	 * @param minLength the minimum length of a word
+	 * @param words     the ids of the words on the board
+	 * @param players   the number of players
+	 * @throws IllegalArgumentException if <code>players</code> is negative
+	 */
+	public RoundScorer(Lexicon lexicon, int minLength, int[] words, int players) {
+		if (players < 0) {
+			throw new IllegalArgumentException("negative number of players: " + players);
+		}
+		this.lexicon = lexicon;
+		this.minLength = minLength;
+		this.words = words.clone();
+		this.points = new int[this.words.length];
+		for (int i = 0; i < this.words.length; i++) {
+			this.points[i] = Boggle.score(lexicon.wordOf(this.words[i]));
+		}
+		this.players = players;
+		int longs = (this.words.length + Long.SIZE - 1) / Long.SIZE;
+		this.stride = longs + LINE;
+		this.found = new AtomicLongArray(Math.addExact(LINE, Math.multiplyExact(this.stride, players)));
+		this.active = new AtomicLongArray(Math.multiplyExact(LINE, Math.addExact(players, 2)));
+	}
+
+	/**
+	 * Returns the number of players in the round.
+	 *
+	 * @return the number of players
+	 */
+	public int getPlayers() {
+		return this.players;
+	}
+
+	/**
+	 * Returns the number of words on the board.
+	 *
+	 * @return the number of words that can be found
+	 */
+	public int getWordCount() {
+		return this.words.length;
+	}
+
+	/**
+	 * Submits a word found by the specified player. This method may be called
+	 * by many threads at once, for the same player or for different players.
+	 *
+	 * @param player the number of the player, from 0
+	 * @param word   the word found; the case of the letters is not important
+	 * @return the verdict on the word
+	 * @throws IndexOutOfBoundsException if there is no such player
+	 * @throws IllegalStateException     if the round has been closed
+	 */
+	public WordVerdict submit(int player, CharSequence word) {
+		Objects.checkIndex(player, this.players);
+		int slot = (player + 1) * LINE;
+		this.active.incrementAndGet(slot);
+		try {
+			this.checkOpen();
+			if (word.length() < this.minLength) {
+				return WordVerdict.TOO_SHORT;
+			}
+			int id = this.lexicon.idOf(word);
+			return id == Lexicon.NONE ? WordVerdict.NOT_IN_DICTIONARY : this.record(player, id);
+		} finally {
+			this.active.decrementAndGet(slot);
+		}
+	}
+
+	/**
+	 * Submits the word with the specified dictionary id, found by the specified
+	 * player. This is <code>submit(player, lexicon.wordOf(id))</code> without
+	 * the walk of the lexicon for a word on the board.
+	 *
+	 * @param player the number of the player, from 0
+	 * @param id     the id of the word found in the lexicon of this round
+	 * @return the verdict on the word
+	 * @throws IndexOutOfBoundsException if there is no such player or word
+	 * @throws IllegalStateException     if the round has been closed
+	 */
+	public WordVerdict submit(int player, int id) {
+		Objects.checkIndex(player, this.players);
+		Objects.checkIndex(id, this.lexicon.size());
+		int slot = (player + 1) * LINE;
+		this.active.incrementAndGet(slot);
+		try {
+			this.checkOpen();
+			WordVerdict verdict = this.record(player, id);
+			if (verdict == WordVerdict.NOT_ON_BOARD && this.lexicon.wordOf(id).length() < this.minLength) {
+				return WordVerdict.TOO_SHORT;
+			}
+			return verdict;
+		} finally {
+			this.active.decrementAndGet(slot);
+		}
+	}
+
+	private void checkOpen() {
+		if (this.closed) {
+			throw new IllegalStateException("the round is closed");
+		}
+	}
+
+	private WordVerdict record(int player, int id) {
+		int w = Arrays.binarySearch(this.words, id);
+		if (w < 0) {
+			return WordVerdict.NOT_ON_BOARD;
+		}
+		return this.set(this.row(player) + (w >>> 6), 1L << w) ? WordVerdict.VALID : WordVerdict.DUPLICATE;
+	}
+
+	/**
+	 * Returns the index of the first long of the row of the specified player.
+	 */
+	private int row(int player) {
+		return LINE + player * this.stride;
+	}
+
+	/**
+	 * Sets the specified bit of the specified element of the bit sets, and
+	 * returns true if it was not set before.
+	 */
+	private boolean set(int i, long bit) {
+		long bits = this.found.get(i);
+		while ((bits & bit) == 0) {
+			long witness = this.found.compareAndExchange(i, bits, bits | bit);
+			if (witness == bits) {
+				return true;
+			}
+			bits = witness;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of players who have found the specified word so far.
+	 *
+	 * @param word a word
+	 * @return the number of players who found the word, or 0 if it is not on the
+	 *         board
+	 */
+	public int countFinders(CharSequence word) {
+		int id = this.lexicon.idOf(word);
+		int w = id == Lexicon.NONE ? -1 : Arrays.binarySearch(this.words, id);
+		if (w < 0) {
+			return 0;
+		}
+		int count = 0;
+		for (int p = 0; p < this.players; p++) {
+			if ((this.found.get(this.row(p) + (w >>> 6)) & (1L << w)) != 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns true if the round has been closed.
+	 *
+	 * @return true if the round has been closed
+	 */
+	public boolean isClosed() {
+		return this.closed;
+	}
+
+	/**
+	 * Closes the round and returns the score of every player. Submissions that
+	 * are in progress are allowed to finish first, and later submissions are
+	 * refused. Closing a round again returns the same scores.
+	 *
+	 * @return the score of every player, indexed by player number
+	 */
+	public synchronized int[] close() {
+		if (this.scores == null) {
+			this.closed = true;
+			this.awaitSubmissions();
+			this.scores = this.score();
+		}
+		return this.scores.clone();
+	}
+
+	/**
+	 * Waits until no player has a submission in progress.
+	 */
+	private void awaitSubmissions() {
+		for (int p = 0; p < this.players; p++) {
+			int slot = (p + 1) * LINE;
+			for (int tries = 0; this.active.get(slot) != 0; tries++) {
+				if (tries < SPINS) {
+					Thread.onSpinWait();
+				} else if (tries < 2 * SPINS) {
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(PARK_NANOS);
+				}
+			}
+		}
+	}
+
+	private int[] score() {
+		int[] result = new int[this.players];
+		for (int w = 0, n = (this.words.length + Long.SIZE - 1) / Long.SIZE; w < n; w++) {
+			long once = 0;
+			long twice = 0;
+			for (int p = 0; p < this.players; p++) {
+				long bits = this.found.get(this.row(p) + w);
+				twice |= once & bits;
+				once |= bits;
+			}
+			long unique = once & ~twice;
+			if (unique == 0) {
+				continue;
+			}
+			for (int p = 0; p < this.players; p++) {
+				for (long m = this.found.get(this.row(p) + w) & unique; m != 0; m &= m - 1) {
+					result[p] += this.points[w * Long.SIZE + Long.numberOfTrailingZeros(m)];
+				}
+			}
+		}
+		return result;
+	}
+}
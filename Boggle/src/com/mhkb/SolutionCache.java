@@ -0,0 +1,310 @@
+package com.mhkb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of solved boards. Rotating or reflecting a board does not
+ * change the words on it, so the cache stores one solution for all 8
+ * orientations of a board and returns it with the paths redrawn for the
+ * orientation that was asked for.
+ *
+ * <p>
+ * When the cache is full the least recently used solution is evicted. The
+ * numbers of hits, misses and evictions are counted so that the capacity can
+ * be chosen from a real workload.
+ *
+ * <p>
+ * Implementation Details: the key of a board is its canonical form, the
+ * smallest of its 8 symmetric images when the letters of the dice are
+ * compared in row-major order. Solutions are stored in the canonical
+ * orientation and the paths are mapped back through the symmetry that
+ * produced the canonical form. A cache may be shared by many threads; the
+ * boards are solved outside the lock, so a slow solve never holds up a hit,
+ * and two threads that miss on the same board at the same time may both solve
+ * it.
+ *
+ */
+public final class SolutionCache {
+
+	/**
+	 * The number of symmetries of a square board.
+	 */
+	private static final int SYMMETRY_COUNT = 8;
+
+	/**
+	 * SYMMETRIES[side][s][i] is the die of a board with the given side that is
+	 * moved to position i by symmetry s. Symmetry 0 is the identity.
+	 */
+	private static final int[][][] SYMMETRIES = new int[Board.MAX_SIDE + 1][SYMMETRY_COUNT][];
+
+	static {
+		for (int side = 1; side <= Board.MAX_SIDE; side++) {
+			final int last = side - 1;
+			final int[][] table = SYMMETRIES[side];
+			for (int s = 0; s < SYMMETRY_COUNT; s++) {
+				table[s] = new int[side * side];
+			}
+			for (int i = 0; i < side * side; i++) {
+				final int r = i / side;
+				final int c = i % side;
+				final int[] rows = { r, c, last - r, last - c, r, last - r, c, last - c };
+				final int[] cols = { c, last - r, last - c, r, last - c, c, r, last - r };
+				for (int s = 0; s < SYMMETRY_COUNT; s++) {
+					table[s][i] = rows[s] * side + cols[s];
+				}
+			}
+		}
+	}
+
+	/**
+	 * The letters of a board in its canonical orientation. Boards of different
+	 * sizes have keys of different lengths, so they are never equal.
+	 */
+	private static final class Key {
+		private final char[] letters;
+		private final int hash;
+
+		Key(char[] letters) {
+			this.letters = letters;
+			this.hash = Arrays.hashCode(letters);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && Arrays.equals(this.letters, ((Key) obj).letters);
+		}
+	}
+
+	private final Lexicon lexicon;
+	private final int minLength;
+	private final int capacity;
+	private final LinkedHashMap<Key, List<WordPath>> solutions;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Initializes an empty cache that solves boards with the specified
+	 * dictionary and the minimum word length of the standard game, and holds at
+	 * most the specified number of solutions.
+	 *
+	 * @param dictionary the dictionary of legal words
+	 * @param capacity   the largest number of solutions to keep
+	 * @throws IllegalArgumentException if the capacity is less than 1
+	 */
+	public SolutionCache(Dictionary dictionary, int capacity) {
+		this(dictionary, Boggle.MIN_WORD_LENGTH, capacity);
+	}
+
+	/**
+	 * Initializes an empty cache that solves boards with the specified
+	 * dictionary and minimum word length, and holds at most the specified number
+	 * of solutions. Boards of any size may be solved with the same cache.
+	 *
+	 * @param dictionary the dictionary of legal words
+	 * @param minLength  the minimum length of a word
+	 * @param capacity   the largest number of solutions to keep
+	 * @throws IllegalArgumentException if the capacity is less than 1
+	 */
+	public SolutionCache(Dictionary dictionary, int minLength, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1");
+		}
+		this.lexicon = dictionary.getLexicon();
+		this.minLength = minLength;
+		this.capacity = capacity;
+		this.solutions = new LinkedHashMap<Key, List<WordPath>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, List<WordPath>> eldest) {
+				if (size() > SolutionCache.this.capacity) {
+					SolutionCache.this.evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns every legal Boggle word on the specified board, each with a path of
+	 * dice on that board that spells it, sorted by word. The result is the same
+	 * as that of <code>BoggleSolver.solve</code> except that the list cannot be
+	 * modified, and the path chosen for a word may be a different one.
+	 *
+	 * @param board a board
+	 * @return the words on the board and their paths, sorted by word
+	 */
+	public List<WordPath> solve(Board board) {
+		int[][] symmetries = SYMMETRIES[board.getSide()];
+		int symmetry = canonicalSymmetry(board);
+		Key key = new Key(letters(board, symmetries[symmetry]));
+		List<WordPath> solution;
+		synchronized (this) {
+			solution = this.solutions.get(key);
+			if (solution != null) {
+				this.hits++;
+			} else {
+				this.misses++;
+			}
+		}
+		if (solution == null) {
+			Board canonical = symmetry == 0 ? board : transform(board, symmetries[symmetry]);
+			BoggleSolver solver = new BoggleSolver(this.lexicon, this.minLength);
+			solution = Collections.unmodifiableList(solver.solve(canonical));
+			synchronized (this) {
+				this.solutions.put(key, solution);
+			}
+		}
+		if (symmetry == 0) {
+			return solution;
+		}
+		int[] map = symmetries[symmetry];
+		List<WordPath> result = new ArrayList<>(solution.size());
+		for (WordPath w : solution) {
+			result.add(w.relabel(map));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns the index of the symmetry that turns the specified board into its
+	 * canonical form.
+	 */
+	static int canonicalSymmetry(Board board) {
+		int[][] symmetries = SYMMETRIES[board.getSide()];
+		int best = 0;
+		for (int s = 1; s < SYMMETRY_COUNT; s++) {
+			if (compare(board, symmetries[s], symmetries[best]) < 0) {
+				best = s;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Compares the images of a board under two symmetries, die by die in
+	 * row-major order.
+	 */
+	private static int compare(Board board, int[] a, int[] b) {
+		for (int i = 0, n = board.size(); i < n; i++) {
+			int da = a[i];
+			int db = b[i];
+			if (da == db) {
+				continue;
+			}
+			for (int j = 0; j < Board.MAX_FACE_LENGTH; j++) {
+				char ca = j < board.faceLength(da) ? board.letter(da, j) : 0;
+				char cb = j < board.faceLength(db) ? board.letter(db, j) : 0;
+				if (ca != cb) {
+					return ca - cb;
+				}
+			}
+		}
+		return 0;
+	}
+
+	private static char[] letters(Board board, int[] symmetry) {
+		char[] result = new char[board.size() * Board.MAX_FACE_LENGTH];
+		for (int i = 0; i < symmetry.length; i++) {
+			int die = symmetry[i];
+			for (int j = 0, n = board.faceLength(die); j < n; j++) {
+				result[i * Board.MAX_FACE_LENGTH + j] = board.letter(die, j);
+			}
+		}
+		return result;
+	}
+
+	private static Board transform(Board board, int[] symmetry) {
+		String[] faces = new String[board.size()];
+		for (int i = 0; i < faces.length; i++) {
+			faces[i] = board.getFace(symmetry[i]);
+		}
+		return new Board(faces);
+	}
+
+	/**
+	 * Returns the lexicon the boards are solved with.
+	 */
+	Lexicon getLexicon() {
+		return this.lexicon;
+	}
+
+	/**
+	 * Returns the minimum length of the words in the solutions.
+	 *
+	 * @return the minimum length of a word
+	 */
+	public int getMinWordLength() {
+		return this.minLength;
+	}
+
+	/**
+	 * Returns the largest number of solutions this cache holds.
+	 *
+	 * @return the capacity of the cache
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the number of solutions in the cache.
+	 *
+	 * @return the number of solutions in the cache
+	 */
+	public synchronized int size() {
+		return this.solutions.size();
+	}
+
+	/**
+	 * Returns the number of boards that were found in the cache.
+	 *
+	 * @return the number of hits
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Returns the number of boards that had to be solved.
+	 *
+	 * @return the number of misses
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Returns the number of solutions removed to make room for newer ones.
+	 *
+	 * @return the number of evictions
+	 */
+	public synchronized long getEvictions() {
+		return this.evictions;
+	}
+
+	/**
+	 * Removes every solution from the cache. The counters are not reset.
+	 */
+	public synchronized void clear() {
+		this.solutions.clear();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "SolutionCache[size=" + this.solutions.size() + ", capacity=" + this.capacity + ", hits=" + this.hits
+				+ ", misses=" + this.misses + ", evictions=" + this.evictions + "]";
+	}
+}
@@ -0,0 +1,212 @@
+package com.mhkb;
+
+/**
+ * A word being spelled on a board one die at a time, as a player clicks the
+ * dice. After every die the cursor knows whether the letters so far are a
+ * word and which of the next dice can still lead to one.
+ *
+ * <p>
+ * Implementation Details: the cursor keeps the lexicon node reached after
+ * each die on the path, so adding a die follows at most
+ * <code>Board.MAX_FACE_LENGTH</code> edges down from the last node and
+ * removing one just drops back to the node before it. Checking whether a die
+ * can extend the word follows the letters of that die's face only. None of
+ * these operations depend on the length of the word or the size of the
+ * lexicon, and none of them create objects.
+ *
+ */
+public final class WordCursor {
+
+	private final Lexicon lexicon;
+	private final Board board;
+	private final int minLength;
+
+	// nodes[k] is the lexicon node after the first k dice, or NONE
+	private final int[] nodes;
+	private final int[] path;
+	private final int[] lengths;
+	private int depth;
+	private long used;
+
+	/**
+	 * Initializes an empty cursor on the specified board.
+	 *
+	 * @param lexicon   the legal words
+	 * @param board     the board the word is spelled on
+	 * @param minLength the minimum length of a word
+	 */
+	public WordCursor(Lexicon lexicon, Board board, int minLength) {
+		this.lexicon = lexicon;
+		this.board = board;
+		this.minLength = minLength;
+		this.nodes = new int[board.size() + 1];
+		this.path = new int[board.size()];
+		this.lengths = new int[board.size() + 1];
+		this.nodes[0] = lexicon.root();
+	}
+
+	/**
+	 * Returns the board the word is spelled on.
+	 *
+	 * @return the board of this cursor
+	 */
+	public Board getBoard() {
+		return this.board;
+	}
+
+	/**
+	 * Returns the node reached by following the face of the specified die down
+	 * from the specified node, or <code>NONE</code>.
+	 */
+	private int follow(int node, int die) {
+		for (int i = 0, n = this.board.faceLength(die); i < n && node != Lexicon.NONE; i++) {
+			node = this.lexicon.child(node, this.board.letter(die, i));
+		}
+		return node;
+	}
+
+	/**
+	 * Returns true if the specified die may be added to the path: it is not on
+	 * the path already and, unless the path is empty, it is next to the last die
+	 * on the path.
+	 *
+	 * @param die the index of a die
+	 * @return true if the die may be added to the path, and false otherwise
+	 */
+	public boolean isNext(int die) {
+		if (die < 0 || die >= this.path.length) {
+			return false;
+		}
+		long mask = this.depth == 0 ? -1L : this.board.getNeighbors(this.path[this.depth - 1]);
+		return (mask & ~this.used & (1L << die)) != 0;
+	}
+
+	/**
+	 * Adds the specified die to the end of the path. A die that may not be added
+	 * is ignored.
+	 *
+	 * @param die the index of a die
+	 * @return true if the die was added, and false otherwise
+	 */
+	public boolean push(int die) {
+		if (!this.isNext(die)) {
+			return false;
+		}
+		int node = this.nodes[this.depth];
+		this.path[this.depth] = die;
+		this.lengths[this.depth + 1] = this.lengths[this.depth] + this.board.faceLength(die);
+		this.depth++;
+		this.nodes[this.depth] = node == Lexicon.NONE ? Lexicon.NONE : this.follow(node, die);
+		this.used |= 1L << die;
+		return true;
+	}
+
+	/**
+	 * Removes the last die from the path, if there is one.
+	 */
+	public void pop() {
+		if (this.depth > 0) {
+			this.depth--;
+			this.used &= ~(1L << this.path[this.depth]);
+		}
+	}
+
+	/**
+	 * Removes every die from the path.
+	 */
+	public void clear() {
+		this.depth = 0;
+		this.used = 0;
+	}
+
+	/**
+	 * Returns the number of dice on the path.
+	 *
+	 * @return the number of dice on the path
+	 */
+	public int size() {
+		return this.depth;
+	}
+
+	/**
+	 * Returns the bit mask of the dice on the path.
+	 *
+	 * @return the dice on the path, where bit i stands for die i
+	 */
+	public long getUsedDice() {
+		return this.used;
+	}
+
+	/**
+	 * Returns true if some word in the lexicon starts with the letters on the
+	 * path.
+	 *
+	 * @return true if the letters on the path are a prefix of a word
+	 */
+	public boolean isPrefix() {
+		return this.nodes[this.depth] != Lexicon.NONE;
+	}
+
+	/**
+	 * Returns true if the letters on the path are a legal word: long enough and
+	 * in the lexicon.
+	 *
+	 * @return true if the path spells a word, and false otherwise
+	 */
+	public boolean isWord() {
+		int node = this.nodes[this.depth];
+		return this.lengths[this.depth] >= this.minLength && node != Lexicon.NONE && this.lexicon.isWord(node);
+	}
+
+	/**
+	 * Returns true if the specified die may be added to the path and the letters
+	 * would still be a prefix of some word in the lexicon.
+	 *
+	 * @param die the index of a die
+	 * @return true if adding the die keeps a word within reach, and false
+	 *         otherwise
+	 */
+	public boolean canExtend(int die) {
+		int node = this.nodes[this.depth];
+		return node != Lexicon.NONE && this.isNext(die) && this.follow(node, die) != Lexicon.NONE;
+	}
+
+	/**
+	 * Returns the bit mask of the dice that may be added to the path and keep a
+	 * word within reach.
+	 *
+	 * @return the dice for which <code>canExtend</code> is true
+	 */
+	public long getExtensions() {
+		long mask = this.depth == 0 ? -1L >>> (Long.SIZE - this.path.length)
+				: this.board.getNeighbors(this.path[this.depth - 1]);
+		long result = 0;
+		for (long m = mask & ~this.used; m != 0; m &= m - 1) {
+			int die = Long.numberOfTrailingZeros(m);
+			if (this.canExtend(die)) {
+				result |= 1L << die;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the letters spelled by the path, in lower case.
+	 *
+	 * @return the word spelled so far
+	 */
+	public String getWord() {
+		StringBuilder b = new StringBuilder(this.lengths[this.depth]);
+		for (int i = 0; i < this.depth; i++) {
+			for (int j = 0, n = this.board.faceLength(this.path[i]); j < n; j++) {
+				b.append(this.board.letter(this.path[i], j));
+			}
+		}
+		return b.toString();
+	}
+
+	@Override
+	public String toString() {
+		return this.getWord();
+	}
+}
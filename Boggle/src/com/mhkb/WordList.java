@@ -0,0 +1,251 @@
+package com.mhkb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+/**
+ * The words of a dictionary file held as slices of the bytes of the file, one
+ * word per line. The words are not copied into strings, so a sorted file can
+ * be fed to <code>Dawg.build</code> directly.
+ *
+ * <p>
+ * Implementation Details: the file is split into chunks that end on line
+ * boundaries, and the chunks are parsed on every core at the same time. Each
+ * chunk finds the start and end of every non-blank line, with surrounding
+ * white space trimmed, and checks that its own words are in order; the order
+ * across chunks is checked when the chunks are joined.
+ *
+ */
+final class WordList implements Iterable<CharSequence> {
+
+	/**
+	 * The smallest chunk worth parsing on its own.
+	 */
+	static final int MIN_CHUNK = 64 * 1024;
+
+	/**
+	 * The words found in one chunk of the file.
+	 */
+	private static final class Chunk {
+		int[] starts = new int[1024];
+		int[] ends = new int[1024];
+		int count;
+		boolean sorted = true;
+
+		void add(int start, int end) {
+			if (this.count == this.starts.length) {
+				this.starts = Arrays.copyOf(this.starts, this.count * 2);
+				this.ends = Arrays.copyOf(this.ends, this.count * 2);
+			}
+			this.starts[this.count] = start;
+			this.ends[this.count] = end;
+			this.count++;
+		}
+	}
+
+	private final byte[] data;
+	private final int[] starts;
+	private final int[] ends;
+	private final boolean sorted;
+
+	private WordList(byte[] data, int[] starts, int[] ends, boolean sorted) {
+		this.data = data;
+		this.starts = starts;
+		this.ends = ends;
+		this.sorted = sorted;
+	}
+
+	/**
+	 * Parses the specified ASCII text, one word per line.
+	 *
+	 * @param data the bytes of a dictionary file
+	 * @return the words of the file
+	 */
+	static WordList parse(byte[] data) {
+		return parse(data, (int) Math.max(1,
+				Math.min(Runtime.getRuntime().availableProcessors() * 4L, data.length / MIN_CHUNK)));
+	}
+
+	/**
+	 * Parses the specified ASCII text, one word per line, in the specified
+	 * number of chunks.
+	 *
+	 * @param data   the bytes of a dictionary file
+	 * @param chunks the number of chunks to split the text into
+	 * @return the words of the file
+	 */
+	static WordList parse(byte[] data, int chunks) {
+		int[] bounds = new int[chunks + 1];
+		bounds[chunks] = data.length;
+		for (int i = 1; i < chunks; i++) {
+			int b = Math.max(bounds[i - 1], (int) ((long) data.length * i / chunks));
+			while (b > 0 && b < data.length && data[b - 1] != '\n') {
+				b++;
+			}
+			bounds[i] = b;
+		}
+		Chunk[] parsed = IntStream.range(0, chunks).parallel()
+				.mapToObj(i -> parseChunk(data, bounds[i], bounds[i + 1])).toArray(Chunk[]::new);
+
+		int total = 0;
+		for (Chunk c : parsed) {
+			total += c.count;
+		}
+		int[] starts = new int[total];
+		int[] ends = new int[total];
+		boolean sorted = true;
+		int n = 0;
+		for (Chunk c : parsed) {
+			if (c.count > 0 && n > 0 && compare(data, starts[n - 1], ends[n - 1], c.starts[0], c.ends[0]) > 0) {
+				sorted = false;
+			}
+			sorted &= c.sorted;
+			System.arraycopy(c.starts, 0, starts, n, c.count);
+			System.arraycopy(c.ends, 0, ends, n, c.count);
+			n += c.count;
+		}
+		return new WordList(data, starts, ends, sorted);
+	}
+
+	private static Chunk parseChunk(byte[] data, int from, int to) {
+		Chunk chunk = new Chunk();
+		int i = from;
+		while (i < to) {
+			int end = i;
+			while (end < to && data[end] != '\n') {
+				end++;
+			}
+			int next = end + 1;
+			int start = i;
+			// bytes are signed, and those of a non-ASCII character are not white space
+			while (start < end && (data[start] & 0xFF) <= ' ') {
+				start++;
+			}
+			while (end > start && (data[end - 1] & 0xFF) <= ' ') {
+				end--;
+			}
+			if (start < end) {
+				int n = chunk.count;
+				if (n > 0 && chunk.sorted && compare(data, chunk.starts[n - 1], chunk.ends[n - 1], start, end) > 0) {
+					chunk.sorted = false;
+				}
+				chunk.add(start, end);
+			}
+			i = next;
+		}
+		return chunk;
+	}
+
+	/**
+	 * Compares two words of the file in the order of <code>Dawg</code>: letter
+	 * by letter, ignoring case.
+	 */
+	private static int compare(byte[] data, int s1, int e1, int s2, int e2) {
+		int n = Math.min(e1 - s1, e2 - s2);
+		for (int i = 0; i < n; i++) {
+			int a = data[s1 + i] | 0x20;
+			int b = data[s2 + i] | 0x20;
+			if (a != b) {
+				return a - b;
+			}
+		}
+		return (e1 - s1) - (e2 - s2);
+	}
+
+	/**
+	 * Returns the number of words.
+	 *
+	 * @return the number of words
+	 */
+	int size() {
+		return this.starts.length;
+	}
+
+	/**
+	 * Returns true if the words are in ascending order, ignoring case.
+	 *
+	 * @return true if the words are sorted
+	 */
+	boolean isSorted() {
+		return this.sorted;
+	}
+
+	/**
+	 * Returns the words as new strings, in the order of the file.
+	 *
+	 * @return the words as strings
+	 */
+	List<String> toStrings() {
+		List<String> result = new ArrayList<>(this.size());
+		for (CharSequence word : this) {
+			result.add(word.toString());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an iterator over the words in the order of the file. To avoid
+	 * creating an object per word, the iterator returns the same character
+	 * sequence every time, pointing at the next word; a word must be copied if
+	 * it is needed after the next call to <code>next</code>.
+	 *
+	 * @return an iterator over the words
+	 */
+	@Override
+	public Iterator<CharSequence> iterator() {
+		return new Iterator<CharSequence>() {
+			private final Slice slice = new Slice();
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < WordList.this.starts.length;
+			}
+
+			@Override
+			public CharSequence next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				this.slice.start = WordList.this.starts[this.next];
+				this.slice.end = WordList.this.ends[this.next];
+				this.next++;
+				return this.slice;
+			}
+		};
+	}
+
+	/**
+	 * A word of the file, read as ASCII characters.
+	 */
+	private final class Slice implements CharSequence {
+		int start;
+		int end;
+
+		@Override
+		public int length() {
+			return this.end - this.start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (WordList.this.data[this.start + index] & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			return this.toString().substring(from, to);
+		}
+
+		@Override
+		public String toString() {
+			return new String(WordList.this.data, this.start, this.end - this.start,
+					StandardCharsets.US_ASCII);
+		}
+	}
+}
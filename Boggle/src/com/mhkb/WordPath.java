@@ -0,0 +1,100 @@
+package com.mhkb;
+
+import java.util.Arrays;
+
+/**
+ * A word found on a Boggle board together with the dice that spell it. The
+ * path is a sequence of dice indexes (0 through 15, in row-major order) where
+ * each die is adjacent to the one before it and no die is used twice.
+ *
+ */
+public final class WordPath {
+
+	private final String word;
+	private final int[] path;
+
+	/**
+	 * Initializes a word and the path of dice indexes that spells it.
+	 *
+	 * @param word the word
+	 * @param path the dice indexes that spell the word, in order
+	 */
+	public WordPath(String word, int[] path) {
+		this.word = word;
+		this.path = path.clone();
+	}
+
+	/**
+	 * Initializes a word and the first <code>length</code> dice indexes of the
+	 * specified array.
+	 *
+	 * @param word   the word
+	 * @param path   an array starting with the dice indexes that spell the word
+	 * @param length the number of dice on the path
+	 */
+	WordPath(String word, int[] path, int length) {
+		this.word = word;
+		this.path = Arrays.copyOf(path, length);
+	}
+
+	/**
+	 * Returns this word with every die on its path replaced by
+	 * <code>map[die]</code>. If <code>map</code> takes every die of a board to
+	 * its place on a rotated or reflected board, the result is the same word
+	 * traced on that board.
+	 *
+	 * @param map the new index of every die
+	 * @return the word with the relabelled path
+	 */
+	WordPath relabel(int[] map) {
+		int[] p = new int[this.path.length];
+		for (int i = 0; i < p.length; i++) {
+			p[i] = map[this.path[i]];
+		}
+		return new WordPath(this.word, p, p.length);
+	}
+
+	/**
+	 * Returns the word in lower case.
+	 *
+	 * @return the word in lower case
+	 */
+	public String getWord() {
+		return this.word;
+	}
+
+	/**
+	 * Returns a new array of the dice indexes that spell the word, in order.
+	 *
+	 * @return the dice indexes that spell the word
+	 */
+	public int[] getPath() {
+		return this.path.clone();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Arrays.hashCode(path);
+		result = prime * result + word.hashCode();
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		WordPath other = (WordPath) obj;
+		return this.word.equals(other.word) && Arrays.equals(this.path, other.path);
+	}
+
+	@Override
+	public String toString() {
+		return this.word + " " + Arrays.toString(this.path);
+	}
+}
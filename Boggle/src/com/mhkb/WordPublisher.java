@@ -0,0 +1,149 @@
+package com.mhkb;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the words on a Boggle board to <code>Flow</code> subscribers as
+ * they are found. Each subscriber gets its own search of the board, which runs
+ * only as far as the subscriber has asked for: the search stops while the
+ * subscriber has no outstanding demand, and is dropped as soon as the
+ * subscriber cancels, so a subscriber that wants a few words never pays for
+ * the rest and nothing is buffered on its behalf.
+ *
+ * <p>
+ * Implementation Details: the words come from a <code>WordStream</code> made
+ * for each subscription. Signals to a subscriber are sent from a task on the
+ * executor, and only one such task runs for a subscription at a time; a
+ * request or cancellation made while the task is running is picked up by the
+ * running task before it finishes, instead of starting another.
+ *
+ */
+public final class WordPublisher implements Flow.Publisher<WordPath> {
+
+	private final Supplier<WordStream> streams;
+	private final Executor executor;
+
+	/**
+	 * Initializes a publisher of the words returned by the streams made by the
+	 * specified supplier, which is called once for every subscriber. Words are
+	 * sent to subscribers from tasks run on the specified executor.
+	 *
+	 * @param streams  makes a stream of words for each subscriber
+	 * @param executor runs the searches and sends the words to subscribers
+	 */
+	public WordPublisher(Supplier<WordStream> streams, Executor executor) {
+		this.streams = Objects.requireNonNull(streams);
+		this.executor = Objects.requireNonNull(executor);
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super WordPath> subscriber) {
+		Objects.requireNonNull(subscriber);
+		Subscription s = new Subscription(subscriber);
+		subscriber.onSubscribe(s);
+		// a subscriber with no demand still learns at once if the stream cannot
+		// be made, or if the board has no words
+		s.schedule();
+	}
+
+	private final class Subscription implements Flow.Subscription {
+
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger pending = new AtomicInteger();
+		private volatile boolean cancelled;
+		private volatile Throwable error;
+
+		// touched only by the task that is draining
+		private Flow.Subscriber<? super WordPath> subscriber;
+		private WordStream stream;
+
+		Subscription(Flow.Subscriber<? super WordPath> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				this.error = new IllegalArgumentException("non-positive request: " + n);
+			} else {
+				this.demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+			}
+			this.schedule();
+		}
+
+		@Override
+		public void cancel() {
+			this.cancelled = true;
+			this.schedule();
+		}
+
+		void schedule() {
+			if (this.pending.getAndIncrement() == 0) {
+				WordPublisher.this.executor.execute(this::drain);
+			}
+		}
+
+		/**
+		 * Sends words while there is demand, and completes the subscriber when the
+		 * stream runs out; keeps going until no request or cancellation has
+		 * arrived since it last looked.
+		 */
+		private void drain() {
+			int missed = 1;
+			do {
+				if (this.subscriber == null) {
+					return;
+				}
+				try {
+					if (this.stream == null && !this.cancelled) {
+						this.stream = WordPublisher.this.streams.get();
+					}
+					long sent = 0;
+					while (!this.cancelled && this.error == null && sent < this.demand.get() && this.stream.hasNext()) {
+						this.subscriber.onNext(this.stream.next());
+						sent++;
+					}
+					this.demand.addAndGet(-sent);
+					if (this.cancelled) {
+						this.finish();
+						return;
+					}
+					if (this.error != null) {
+						this.fail(this.error);
+						return;
+					}
+					if (!this.stream.hasNext()) {
+						Flow.Subscriber<? super WordPath> s = this.subscriber;
+						this.finish();
+						s.onComplete();
+						return;
+					}
+				} catch (RuntimeException | Error ex) {
+					this.fail(ex);
+					return;
+				}
+				missed = this.pending.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void fail(Throwable ex) {
+			Flow.Subscriber<? super WordPath> s = this.subscriber;
+			this.finish();
+			s.onError(ex);
+		}
+
+		/**
+		 * Drops the subscriber and the search, and ignores every signal from now on.
+		 */
+		private void finish() {
+			this.cancelled = true;
+			this.subscriber = null;
+			this.stream = null;
+		}
+	}
+}
@@ -0,0 +1,465 @@
+package com.mhkb;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A query for the words of a lexicon that match a wildcard pattern, have a
+ * length in a given range, and can be spelled from a given set of letters.
+ * Queries are immutable; each <code>with</code> method returns a new query
+ * with one more constraint. For example, the 8-letter words containing QU
+ * are
+ *
+ * <pre>
+ * WordQuery.matching("*qu*").withLength(8)
+ * </pre>
+ *
+ * and the words that can be spelled from the letters of "retains" are
+ *
+ * <pre>
+ * WordQuery.any().usingLetters("retains")
+ * </pre>
+ *
+ * <p>
+ * In a pattern, <code>?</code> stands for any one letter and <code>*</code>
+ * for any run of letters, including none; every other character must be a
+ * letter and stands for itself, in either case. A pattern may have up to 63
+ * letters and wildcards.
+ *
+ * <p>
+ * Implementation Details: a query is answered by walking the lexicon depth
+ * first and pruning every prefix that no matching word can start with, so the
+ * cost depends on the number of prefixes that survive and not on the size of
+ * the lexicon. The pattern is run as a nondeterministic automaton whose states
+ * are the positions in the pattern, held as the bits of a <code>long</code>;
+ * reading a letter is a few shifts and masks, and a prefix is abandoned as
+ * soon as no state is left, or as soon as the letters the pattern still needs
+ * would make the word too long. The letters that may still be used are counted
+ * down on the way down and back up on the way back, and the walk never goes
+ * deeper than the longest length allowed. A pattern that starts with
+ * <code>*</code> prunes almost nothing near the root, so unless the letters are
+ * limited or the words are short, such a query is answered instead from a
+ * <code>WordTable</code> (see <code>prunesLittle</code>): the words are read
+ * in a row, and those of the wrong length or without every letter the pattern
+ * spells out are skipped before they are tested. The walk keeps its own stack,
+ * so <code>matches(Lexicon)</code> returns each word only when it is asked
+ * for.
+ *
+ */
+public final class WordQuery {
+
+	private static final int MAX_PATTERN = Long.SIZE - 1;
+
+	/**
+	 * The length from which a walk that cannot prune near the root visits more
+	 * edges than a table has words.
+	 */
+	private static final int SCAN_LENGTH = 6;
+
+	// match[l] has bit p set if position p of the pattern accepts letter l
+	private final long[] match;
+	// bit p is set if position p of the pattern is a '*'
+	private final long stars;
+	// the state reached after the whole pattern
+	private final long accept;
+	// rest[p] is the number of letters the pattern needs from position p on
+	private final int[] rest;
+	// bit l is set if the pattern has the letter l outside a wildcard
+	private final int required;
+	private final String pattern;
+	private final int minLength;
+	private final int maxLength;
+	// the number of each letter that may be used, or null for any number
+	private final int[] letters;
+	private final int blanks;
+
+	private WordQuery(String pattern, long[] match, long stars, long accept, int[] rest, int required,
+			int minLength, int maxLength, int[] letters, int blanks) {
+		this.pattern = pattern;
+		this.match = match;
+		this.stars = stars;
+		this.accept = accept;
+		this.rest = rest;
+		this.required = required;
+		this.minLength = minLength;
+		this.maxLength = maxLength;
+		this.letters = letters;
+		this.blanks = blanks;
+	}
+
+	/**
+	 * Returns a query that every word matches.
+	 *
+	 * @return a query with no constraints
+	 */
+	public static WordQuery any() {
+		return matching("*");
+	}
+
+	/**
+	 * Returns a query for the words that match the specified pattern.
+	 *
+	 * @param pattern letters and the wildcards <code>?</code> and
+	 *                <code>*</code>
+	 * @return a query for the words that match the pattern
+	 * @throws IllegalArgumentException if the pattern has a character other than
+	 *                                  a letter or a wildcard, or is too long
+	 */
+	public static WordQuery matching(String pattern) {
+		int n = pattern.length();
+		if (n > MAX_PATTERN) {
+			throw new IllegalArgumentException("pattern is longer than " + MAX_PATTERN + ": " + pattern);
+		}
+		long[] match = new long[26];
+		long stars = 0;
+		int required = 0;
+		int fixed = 0;
+		for (int p = 0; p < n; p++) {
+			char c = pattern.charAt(p);
+			if (c == '*') {
+				stars |= 1L << p;
+			} else if (c == '?') {
+				for (int l = 0; l < 26; l++) {
+					match[l] |= 1L << p;
+				}
+				fixed++;
+			} else {
+				int l = Dawg.letterIndex(c);
+				if (l < 0) {
+					throw new IllegalArgumentException("not a letter or wildcard: " + c);
+				}
+				match[l] |= 1L << p;
+				required |= 1 << l;
+				fixed++;
+			}
+		}
+		int[] rest = new int[n + 1];
+		for (int p = n - 1; p >= 0; p--) {
+			rest[p] = rest[p + 1] + ((stars & 1L << p) == 0 ? 1 : 0);
+		}
+		int maxLength = stars == 0 ? n : Integer.MAX_VALUE;
+		return new WordQuery(pattern.toLowerCase(), match, stars, 1L << n, rest, required, fixed, maxLength,
+				null, 0);
+	}
+
+	/**
+	 * Returns a query for the words of this query that have the specified
+	 * number of letters.
+	 *
+	 * @param length the number of letters
+	 * @return a query for the words of this query with the length
+	 */
+	public WordQuery withLength(int length) {
+		return this.withLength(length, length);
+	}
+
+	/**
+	 * Returns a query for the words of this query that have at least
+	 * <code>min</code> and at most <code>max</code> letters.
+	 *
+	 * @param min the fewest letters
+	 * @param max the most letters
+	 * @return a query for the words of this query with a length in the range
+	 * @throws IllegalArgumentException if <code>min</code> is negative or
+	 *                                  greater than <code>max</code>
+	 */
+	public WordQuery withLength(int min, int max) {
+		if (min < 0 || min > max) {
+			throw new IllegalArgumentException("bad length range: " + min + " to " + max);
+		}
+		return new WordQuery(this.pattern, this.match, this.stars, this.accept, this.rest, this.required,
+				Math.max(this.minLength, min), Math.min(this.maxLength, max), this.letters, this.blanks);
+	}
+
+	/**
+	 * Returns a query for the words of this query that can be spelled with the
+	 * specified letters, each used at most as many times as it appears. A
+	 * <code>?</code> is a blank that can stand for any one letter.
+	 *
+	 * @param available the letters that may be used, in either case
+	 * @return a query for the words of this query spelled from the letters
+	 * @throws IllegalArgumentException if <code>available</code> has a character
+	 *                                  other than a letter or <code>?</code>, or
+	 *                                  if this query already limits the letters
+	 */
+	public WordQuery usingLetters(CharSequence available) {
+		if (this.letters != null) {
+			throw new IllegalArgumentException("the letters are already limited");
+		}
+		int[] counts = new int[26];
+		int blanks = 0;
+		for (int i = 0; i < available.length(); i++) {
+			char c = available.charAt(i);
+			if (c == '?') {
+				blanks++;
+			} else {
+				int l = Dawg.letterIndex(c);
+				if (l < 0) {
+					throw new IllegalArgumentException("not a letter or blank: " + c);
+				}
+				counts[l]++;
+			}
+		}
+		return new WordQuery(this.pattern, this.match, this.stars, this.accept, this.rest, this.required,
+				this.minLength, Math.min(this.maxLength, available.length()), counts, blanks);
+	}
+
+	/**
+	 * Returns the states of the pattern reached by reading the specified letter
+	 * in the specified states.
+	 */
+	private long step(long states, int letter) {
+		return this.close(((states & this.match[letter]) << 1) | (states & this.stars));
+	}
+
+	/**
+	 * Returns the fewest letters that must follow a prefix that has reached the
+	 * specified states, for a word to match the pattern. The furthest state
+	 * needs the fewest.
+	 */
+	private int needed(long states) {
+		return this.rest[Long.SIZE - 1 - Long.numberOfLeadingZeros(states)];
+	}
+
+	/**
+	 * Adds the position after every <code>*</code> in the specified states,
+	 * since a <code>*</code> may match no letters.
+	 */
+	private long close(long states) {
+		while (true) {
+			long more = ((states & this.stars) << 1) & ~states;
+			if (more == 0) {
+				return states;
+			}
+			states |= more;
+		}
+	}
+
+	/**
+	 * Returns true if the specified string satisfies every constraint of this
+	 * query. The case of the string is not important.
+	 *
+	 * @param word a string
+	 * @return true if the string matches this query, and false otherwise
+	 */
+	public boolean matches(CharSequence word) {
+		int n = word.length();
+		if (n < this.minLength || n > this.maxLength) {
+			return false;
+		}
+		int[] counts = this.letters == null ? null : this.letters.clone();
+		int blanks = this.blanks;
+		long states = this.close(1L);
+		for (int i = 0; i < n && states != 0; i++) {
+			int l = Dawg.letterIndex(word.charAt(i));
+			if (l < 0) {
+				return false;
+			}
+			if (counts != null) {
+				if (counts[l] > 0) {
+					counts[l]--;
+				} else if (blanks > 0) {
+					blanks--;
+				} else {
+					return false;
+				}
+			}
+			states = this.step(states, l);
+		}
+		return (states & this.accept) != 0;
+	}
+
+	/**
+	 * Returns an iterator over the words of the specified lexicon that match
+	 * this query, in alphabetical order and in lower case. Each word is found
+	 * only when it is asked for, so a caller that stops early does not pay for
+	 * the rest of the walk. The iterator is not safe to use from more than one
+	 * thread at a time.
+	 *
+	 * @param lexicon a lexicon
+	 * @return the words of the lexicon that match this query
+	 */
+	public Iterator<String> matches(Lexicon lexicon) {
+		return new Walk(lexicon);
+	}
+
+	/**
+	 * Returns true if this query prunes so little of a lexicon that testing
+	 * every word of a <code>WordTable</code> is cheaper than the walk: the
+	 * pattern starts with <code>*</code>, the letters are not limited, and
+	 * words of at least <code>SCAN_LENGTH</code> letters may match.
+	 *
+	 * @return true if this query should be answered from a word table
+	 */
+	boolean prunesLittle() {
+		return (this.stars & 1L) != 0 && this.letters == null && this.maxLength >= SCAN_LENGTH;
+	}
+
+	/**
+	 * Returns an iterator over the words of the specified table that match this
+	 * query, in alphabetical order and in lower case. Like the walk, the scan
+	 * goes only as far as the words asked for.
+	 *
+	 * @param table the words of a lexicon
+	 * @return the words of the table that match this query
+	 */
+	Iterator<String> matches(WordTable table) {
+		return new Iterator<String>() {
+			private int word;
+			private String next;
+
+			@Override
+			public boolean hasNext() {
+				WordQuery q = WordQuery.this;
+				while (this.next == null && this.word < table.size()) {
+					// a word that lacks a letter of the pattern is not read at all
+					int i = table.find(this.word, q.minLength, q.maxLength, q.required);
+					if (i < table.size()) {
+						String w = table.word(i);
+						if (q.matches(w)) {
+							this.next = w;
+						}
+					}
+					this.word = i + 1;
+				}
+				return this.next != null;
+			}
+
+			@Override
+			public String next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				String result = this.next;
+				this.next = null;
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * A depth-first walk of a lexicon for the words of this query. Frame
+	 * <code>d</code> of the stack is the node reached after <code>d</code>
+	 * letters.
+	 */
+	private final class Walk implements Iterator<String> {
+		private final Lexicon lexicon;
+		private int[] edges = new int[16];
+		private long[] states = new long[16];
+		private boolean[] blank = new boolean[16];
+		private char[] word = new char[16];
+		private final int[] counts;
+		private int blanks;
+		private int depth;
+		private String next;
+
+		Walk(Lexicon lexicon) {
+			this.lexicon = lexicon;
+			this.counts = WordQuery.this.letters == null ? null : WordQuery.this.letters.clone();
+			this.blanks = WordQuery.this.blanks;
+			this.states[0] = WordQuery.this.close(1L);
+			this.edges[0] = WordQuery.this.maxLength > 0 ? lexicon.firstEdge(lexicon.root()) : Lexicon.NONE;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (this.next == null && this.depth >= 0) {
+				this.next = this.advance();
+			}
+			return this.next != null;
+		}
+
+		@Override
+		public String next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			String result = this.next;
+			this.next = null;
+			return result;
+		}
+
+		/**
+		 * Walks on to the next matching word and returns it, or returns null and
+		 * sets the depth to -1 when the walk is finished.
+		 */
+		private String advance() {
+			WordQuery q = WordQuery.this;
+			Lexicon lex = this.lexicon;
+			while (true) {
+				int d = this.depth;
+				int e = this.edges[d];
+				if (e == Lexicon.NONE) {
+					if (d == 0) {
+						this.depth = -1;
+						return null;
+					}
+					this.release(d);
+					this.depth = d - 1;
+					continue;
+				}
+				this.edges[d] = lex.nextEdge(e);
+				char c = lex.edgeLetter(e);
+				int l = c - 'a';
+				long s = q.step(this.states[d], l);
+				// no state left, or the rest of the pattern does not fit in the length
+				if (s == 0 || d + 1 + q.needed(s) > q.maxLength) {
+					continue;
+				}
+				boolean useBlank = false;
+				if (this.counts != null) {
+					if (this.counts[l] > 0) {
+						this.counts[l]--;
+					} else if (this.blanks > 0) {
+						this.blanks--;
+						useBlank = true;
+					} else {
+						continue;
+					}
+				}
+				this.push(d + 1, c, s, useBlank);
+				int node = lex.edgeTarget(e);
+				// past the end of a pattern with no '*' left, nothing can follow
+				boolean more = d + 1 < q.maxLength && (s & ~q.accept) != 0;
+				this.edges[d + 1] = more ? lex.firstEdge(node) : Lexicon.NONE;
+				this.depth = d + 1;
+				if (d + 1 >= q.minLength && lex.isWord(node) && (s & q.accept) != 0) {
+					return new String(this.word, 0, d + 1);
+				}
+			}
+		}
+
+		private void push(int d, char c, long s, boolean useBlank) {
+			if (d == this.edges.length) {
+				this.edges = Arrays.copyOf(this.edges, d * 2);
+				this.states = Arrays.copyOf(this.states, d * 2);
+				this.blank = Arrays.copyOf(this.blank, d * 2);
+				this.word = Arrays.copyOf(this.word, d * 2);
+			}
+			this.word[d - 1] = c;
+			this.states[d] = s;
+			this.blank[d] = useBlank;
+		}
+
+		/**
+		 * Gives back the letter used by frame <code>d</code>.
+		 */
+		private void release(int d) {
+			if (this.counts != null) {
+				if (this.blank[d]) {
+					this.blanks++;
+				} else {
+					this.counts[this.word[d - 1] - 'a']++;
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "WordQuery[" + this.pattern + ", length " + this.minLength + "-"
+				+ (this.maxLength == Integer.MAX_VALUE ? "any" : this.maxLength)
+				+ (this.letters == null ? "" : ", limited letters") + "]";
+	}
+}
@@ -0,0 +1,315 @@
+package com.mhkb;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The words on a Boggle board, found one at a time as they are asked for.
+ * Unlike <code>BoggleSolver.solve</code>, a stream does not build the list of
+ * every word first: the search runs only as far as is needed to return the
+ * next word, so a caller that stops early (a hint, or a check that a board has
+ * at least some number of words) pays only for the words it took.
+ *
+ * <p>
+ * Each word is returned once, in lower case, with one path of dice that
+ * spells it, in the order chosen when the stream was made. A stream is not
+ * safe to use from more than one thread at a time.
+ *
+ * <p>
+ * Implementation Details: the depth-first search of <code>BoggleSolver</code>
+ * is run with an explicit stack, one frame per die on the current path,
+ * holding the lexicon node, the id of the word spelled so far, the number of
+ * letters spelled, the dice used and the neighbors not tried yet.
+ * <code>next</code> resumes the search where it stopped and suspends it again
+ * at the next new word, so the stack never holds more frames than there are
+ * dice. As in <code>BoggleSolver</code>, the words already returned are
+ * remembered by their ids in a bit set over the lexicon, so the memory of a
+ * stream is fixed by the size of the lexicon whatever the board, and a word's
+ * string is only created when it is returned. The bit set is made when a
+ * second word is found, so a caller that takes one word does not pay for it. In <code>LONGEST_FIRST</code>
+ * and <code>SHORTEST_FIRST</code> order the search is run once for each word
+ * length, abandoning every path that spells more letters than that length, and
+ * the bit set is cleared between lengths. <code>LONGEST_FIRST</code> first
+ * runs one search that returns nothing, to learn which lengths occur on the
+ * board.
+ *
+ */
+public final class WordStream implements Iterator<WordPath> {
+
+	/**
+	 * The order in which a stream returns the words of a board.
+	 */
+	public enum Order {
+
+		/**
+		 * The order in which the search finds the words. This is the cheapest
+		 * order and returns the first word soonest.
+		 */
+		FOUND,
+
+		/**
+		 * The longest words first; words of the same length are in the order in
+		 * which the search finds them.
+		 */
+		LONGEST_FIRST,
+
+		/**
+		 * The shortest words first; words of the same length are in the order in
+		 * which the search finds them.
+		 */
+		SHORTEST_FIRST
+	}
+
+	private final Lexicon lexicon;
+	private final int minLength;
+	private final Board board;
+	private final Order order;
+
+	// the search stack; frame i describes the (i + 1)th die on the path
+	private final int[] dice;
+	private final int[] nodes;
+	private final int[] ranks;
+	private final int[] lengths;
+	private final long[] visited;
+	private final long[] pending;
+	private final char[] letters;
+	private int depth;
+	private int nextStart;
+
+	// the length of word searched for, or 0 for any length
+	private int target;
+	private boolean longer;
+	private BitSet wordLengths;
+	private boolean scanning;
+
+	// the id of the only word returned so far, or -1
+	private int first = -1;
+	// bit i is set if the word with id i has been returned, once there are two
+	private long[] seen;
+	private WordPath next;
+	private boolean done;
+
+	/**
+	 * Initializes a stream of the words of at least the specified length in the
+	 * specified lexicon that are on the specified board.
+	 *
+	 * @param lexicon   the words that may be found
+	 * @param minLength the minimum length of a word
+	 * @param board     a board
+	 * @param order     the order in which to return the words
+	 */
+	public WordStream(Lexicon lexicon, int minLength, Board board, Order order) {
+		this.lexicon = lexicon;
+		this.minLength = Math.max(1, minLength);
+		this.board = board;
+		this.order = order;
+		int n = board.size();
+		this.dice = new int[n];
+		this.nodes = new int[n];
+		this.ranks = new int[n];
+		this.lengths = new int[n];
+		this.visited = new long[n];
+		this.pending = new long[n];
+		this.letters = new char[n * Board.MAX_FACE_LENGTH];
+
+		switch (order) {
+		case FOUND:
+			this.target = 0;
+			break;
+		case SHORTEST_FIRST:
+			this.target = this.minLength;
+			break;
+		case LONGEST_FIRST:
+			this.wordLengths = new BitSet();
+			this.scanning = true;
+			this.advance();
+			this.scanning = false;
+			this.target = this.wordLengths.length() - 1;
+			this.done = this.wordLengths.isEmpty();
+			this.restart();
+			break;
+		default:
+			throw new AssertionError(order);
+		}
+	}
+
+	/**
+	 * Returns the order in which this stream returns the words.
+	 *
+	 * @return the order of the words
+	 */
+	public Order getOrder() {
+		return this.order;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (this.next == null && !this.done) {
+			this.next = this.findNext();
+			this.done = this.next == null;
+		}
+		return this.next != null;
+	}
+
+	@Override
+	public WordPath next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		WordPath result = this.next;
+		this.next = null;
+		return result;
+	}
+
+	/**
+	 * Returns the next word in the order of this stream, moving on to the next
+	 * length when a search for one length is finished, or null if there are no
+	 * more words.
+	 */
+	private WordPath findNext() {
+		while (true) {
+			WordPath w = this.advance();
+			if (w != null) {
+				return w;
+			}
+			switch (this.order) {
+			case SHORTEST_FIRST:
+				if (!this.longer) {
+					return null;
+				}
+				this.target++;
+				break;
+			case LONGEST_FIRST:
+				this.target = this.wordLengths.previousSetBit(this.target - 1);
+				if (this.target < this.minLength) {
+					return null;
+				}
+				break;
+			default:
+				return null;
+			}
+			this.restart();
+		}
+	}
+
+	/**
+	 * Starts the search again from the first die, for the current target length.
+	 */
+	private void restart() {
+		this.depth = 0;
+		this.nextStart = 0;
+		this.longer = false;
+		this.first = -1;
+		if (this.seen != null) {
+			Arrays.fill(this.seen, 0);
+		}
+	}
+
+	/**
+	 * Runs the search until it finds a word of the target length that has not
+	 * been returned, and returns it; returns null when the search is finished.
+	 * While scanning, no word is returned and the length of every word found is
+	 * recorded in <code>wordLengths</code> instead.
+	 */
+	private WordPath advance() {
+		while (true) {
+			int die;
+			if (this.depth == 0) {
+				if (this.nextStart == this.board.size()) {
+					return null;
+				}
+				die = this.nextStart++;
+			} else {
+				long m = this.pending[this.depth - 1];
+				if (m == 0) {
+					this.depth--;
+					continue;
+				}
+				this.pending[this.depth - 1] = m & (m - 1);
+				die = Long.numberOfTrailingZeros(m);
+			}
+			WordPath w = this.push(die);
+			if (w != null) {
+				return w;
+			}
+		}
+	}
+
+	/**
+	 * Adds the specified die to the current path if the letters it spells start
+	 * a word no longer than the target, and returns the word it completes if
+	 * that is a new word of the target length.
+	 */
+	private WordPath push(int die) {
+		Board b = this.board;
+		int d = this.depth;
+		int node = d == 0 ? this.lexicon.root() : this.nodes[d - 1];
+		int rank = d == 0 ? 0 : this.ranks[d - 1];
+		int length = d == 0 ? 0 : this.lengths[d - 1];
+		int n = b.faceLength(die);
+		if (this.target > 0 && length + n > this.target) {
+			this.longer = true;
+			return null;
+		}
+		for (int i = 0; i < n; i++) {
+			char c = b.letter(die, i);
+			int e = this.lexicon.findEdge(node, c);
+			if (e == Lexicon.NONE) {
+				return null;
+			}
+			rank = this.lexicon.rankAfter(node, rank, e);
+			node = this.lexicon.edgeTarget(e);
+			this.letters[length++] = c;
+		}
+		long used = (d == 0 ? 0 : this.visited[d - 1]) | 1L << die;
+		this.dice[d] = die;
+		this.nodes[d] = node;
+		this.ranks[d] = rank;
+		this.lengths[d] = length;
+		this.visited[d] = used;
+		long m = this.lexicon.hasChildren(node) ? b.getNeighbors(die) & ~used : 0;
+		if (length == this.target && m != 0) {
+			this.longer = true;
+			m = 0;
+		}
+		this.pending[d] = m;
+		this.depth = d + 1;
+
+		if (length < this.minLength || (this.target > 0 && length != this.target) || !this.lexicon.isWord(node)) {
+			return null;
+		}
+		if (this.scanning) {
+			this.wordLengths.set(length);
+			return null;
+		}
+		if (!this.markReturned(rank)) {
+			return null;
+		}
+		return new WordPath(new String(this.letters, 0, length), this.dice, this.depth);
+	}
+
+	/**
+	 * Records that the word with the specified id is returned, and returns true
+	 * if it had not been returned before.
+	 */
+	private boolean markReturned(int id) {
+		if (this.seen == null) {
+			if (this.first < 0) {
+				this.first = id;
+				return true;
+			}
+			if (this.first == id) {
+				return false;
+			}
+			this.seen = new long[(this.lexicon.size() + Long.SIZE - 1) / Long.SIZE];
+			this.seen[this.first >>> 6] |= 1L << this.first;
+		}
+		if ((this.seen[id >>> 6] & (1L << id)) != 0) {
+			return false;
+		}
+		this.seen[id >>> 6] |= 1L << id;
+		return true;
+	}
+}
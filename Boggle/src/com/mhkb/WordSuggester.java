@@ -0,0 +1,179 @@
+package com.mhkb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Finds the words of a lexicon that are close to a string that is not a word,
+ * such as a misspelled submission. Two strings are close if one can be turned
+ * into the other by inserting, deleting or replacing a few letters; the number
+ * of such edits is the Levenshtein distance between them.
+ *
+ * <p>
+ * Suggestions are returned closest first, and in alphabetical order among
+ * words at the same distance. A suggester holds only scratch space for a
+ * single query; it is not safe to use one suggester from more than one thread
+ * at a time.
+ *
+ * <p>
+ * Implementation Details: the query runs a Levenshtein automaton for the
+ * string over the lexicon, rather than comparing the string with every word.
+ * The state of the automaton after reading a prefix is one row of the usual
+ * edit-distance table: entry <code>j</code> is the distance between the
+ * prefix and the first <code>j</code> letters of the string. The lexicon is
+ * walked depth first, and each edge computes the next row from the row of its
+ * source node. A node whose row has no entry within the maximum distance is
+ * a dead state: no word below it can be close enough, so it is not entered.
+ * Entries more than the maximum distance away from the diagonal of the table
+ * can never be within the maximum distance, so each row is only computed on a
+ * band of <code>2 * maxDistance + 1</code> entries around the diagonal.
+ * Only the prefixes within the maximum distance of some prefix of the string
+ * are ever visited, and one row per depth is enough, because the nodes at a
+ * depth are visited one after another. The lexicon is walked in alphabetical
+ * order, so the words at each distance are found already sorted.
+ *
+ */
+public final class WordSuggester {
+
+	private final Lexicon lexicon;
+
+	// scratch space for one query
+	private char[] target = new char[16];
+	private int length;
+	private int[][] rows = new int[0][];
+	private final StringBuilder prefix = new StringBuilder();
+	private List<List<String>> found;
+	private int maxDistance;
+	private Predicate<? super String> filter;
+
+	/**
+	 * Initializes a suggester of the words in the specified lexicon.
+	 *
+	 * @param lexicon the words that may be suggested
+	 */
+	public WordSuggester(Lexicon lexicon) {
+		this.lexicon = lexicon;
+	}
+
+	/**
+	 * Returns up to <code>limit</code> words of the lexicon that are within the
+	 * specified edit distance of the specified string and are accepted by the
+	 * specified filter, closest first. The case of the string is not important,
+	 * and the suggestions are in lower case. If the string is itself a word,
+	 * it is the first suggestion.
+	 *
+	 * @param s           a string
+	 * @param maxDistance the largest number of edits allowed, usually 1 or 2
+	 * @param limit       the largest number of suggestions to return
+	 * @param filter      accepts the words that may be suggested
+	 * @return the words close to the string, closest first
+	 * @throws IllegalArgumentException if <code>maxDistance</code> or
+	 *                                  <code>limit</code> is negative
+	 */
+	public List<String> suggest(CharSequence s, int maxDistance, int limit, Predicate<? super String> filter) {
+		if (maxDistance < 0 || limit < 0) {
+			throw new IllegalArgumentException("negative distance or limit");
+		}
+		int n = s.length();
+		if (n >= this.target.length) {
+			this.target = new char[n * 2];
+		}
+		for (int i = 0; i < n; i++) {
+			this.target[i] = Character.toLowerCase(s.charAt(i));
+		}
+		this.length = n;
+		this.maxDistance = maxDistance;
+		this.filter = filter;
+		this.found = new ArrayList<>();
+		for (int d = 0; d <= maxDistance; d++) {
+			this.found.add(new ArrayList<>());
+		}
+		int[] first = this.row(0);
+		for (int j = 0; j <= n; j++) {
+			first[j] = j;
+		}
+		this.prefix.setLength(0);
+		try {
+			this.walk(this.lexicon.root(), 0);
+			List<String> result = new ArrayList<>();
+			for (List<String> words : this.found) {
+				for (String w : words) {
+					if (result.size() == limit) {
+						return result;
+					}
+					result.add(w);
+				}
+			}
+			return result;
+		} finally {
+			this.found = null;
+			this.filter = null;
+		}
+	}
+
+	/**
+	 * Returns the scratch row for the specified depth, sized for the current
+	 * string.
+	 */
+	private int[] row(int depth) {
+		if (depth >= this.rows.length) {
+			this.rows = Arrays.copyOf(this.rows, Math.max(depth + 1, this.rows.length * 2));
+		}
+		if (this.rows[depth] == null || this.rows[depth].length <= this.length) {
+			this.rows[depth] = new int[this.target.length + 1];
+		}
+		return this.rows[depth];
+	}
+
+	/**
+	 * Visits the children of the specified node, whose row is the row for the
+	 * specified depth.
+	 */
+	private void walk(int node, int depth) {
+		Lexicon lex = this.lexicon;
+		int n = this.length;
+		int max = this.maxDistance;
+		int[] prev = this.rows[depth];
+		int i = depth + 1;
+		int lo = Math.max(1, i - max);
+		int hi = Math.min(n, i + max);
+		char[] t = this.target;
+		// every child of the node takes its turn with the row for the next depth
+		int[] row = this.row(i);
+		row[0] = i;
+		if (lo > 1) {
+			row[lo - 1] = max + 1;
+		}
+		if (hi < n) {
+			row[hi + 1] = max + 1;
+		}
+		for (int e = lex.firstEdge(node); e != Lexicon.NONE; e = lex.nextEdge(e)) {
+			char c = lex.edgeLetter(e);
+			int best = i;
+			for (int j = lo; j <= hi; j++) {
+				int cost = prev[j - 1] + (t[j - 1] == c ? 0 : 1);
+				cost = Math.min(cost, Math.min(prev[j], row[j - 1]) + 1);
+				row[j] = cost;
+				best = Math.min(best, cost);
+			}
+			if (best > max) {
+				continue;
+			}
+			int distance = n == 0 ? i : n >= lo && n <= hi ? row[n] : max + 1;
+			int child = lex.edgeTarget(e);
+			this.prefix.append(c);
+			if (distance <= max && lex.isWord(child)) {
+				String word = this.prefix.toString();
+				if (this.filter.test(word)) {
+					this.found.get(distance).add(word);
+				}
+			}
+			if (lex.hasChildren(child)) {
+				this.walk(child, depth + 1);
+			}
+			this.prefix.setLength(depth);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.mhkb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * The words of a lexicon packed one after another in alphabetical order, for
+ * the queries that have to look at nearly every word anyway. Reading the words
+ * in a row from one buffer is cheaper than walking the lexicon to every one of
+ * them, and the letters of each word are kept as a bit set, so a word that
+ * lacks a letter of a pattern is rejected without reading it.
+ *
+ * <p>
+ * Implementation Details: the letters are stored as ASCII bytes with nothing
+ * between the words; the end of each word and the set of its letters, bit
+ * <code>l</code> for letter <code>'a' + l</code>, are kept in a second buffer,
+ * two ints per word. Both buffers are in direct memory, like the edges of an
+ * off-heap DAWG, so the table adds only a few objects to the heap.
+ *
+ */
+final class WordTable {
+
+	private final ByteBuffer letters;
+	// ends and letter sets, interleaved
+	private final IntBuffer index;
+	private final int size;
+
+	private WordTable(ByteBuffer letters, IntBuffer index, int size) {
+		this.letters = letters;
+		this.index = index;
+		this.size = size;
+	}
+
+	/**
+	 * Returns a table of the words of the specified lexicon.
+	 *
+	 * @param lexicon a lexicon
+	 * @return a table of the words of the lexicon, in alphabetical order
+	 */
+	static WordTable of(Lexicon lexicon) {
+		Collector c = new Collector(lexicon);
+		c.collect(lexicon.root(), 0, 0);
+		ByteBuffer letters = ByteBuffer.allocateDirect(Math.max(c.length, 1));
+		letters.put(c.letters, 0, c.length).clear();
+		IntBuffer index = ByteBuffer.allocateDirect(Math.max(c.count, 1) * 2 * Integer.BYTES)
+				.order(ByteOrder.nativeOrder()).asIntBuffer();
+		index.put(c.index, 0, c.count * 2).clear();
+		return new WordTable(letters, index, c.count);
+	}
+
+	/**
+	 * Gathers the words of a lexicon depth first, so that they come out in
+	 * alphabetical order.
+	 */
+	private static final class Collector {
+		final Lexicon lexicon;
+		byte[] word = new byte[16];
+		byte[] letters = new byte[1024];
+		int[] index;
+		int length;
+		int count;
+
+		Collector(Lexicon lexicon) {
+			this.lexicon = lexicon;
+			this.index = new int[Math.max(lexicon.size(), 1) * 2];
+		}
+
+		void collect(int node, int depth, int set) {
+			if (this.lexicon.isWord(node)) {
+				if (this.length + depth > this.letters.length) {
+					this.letters = Arrays.copyOf(this.letters, (this.length + depth) * 2);
+				}
+				System.arraycopy(this.word, 0, this.letters, this.length, depth);
+				this.length += depth;
+				this.index[this.count * 2] = this.length;
+				this.index[this.count * 2 + 1] = set;
+				this.count++;
+			}
+			if (depth == this.word.length) {
+				this.word = Arrays.copyOf(this.word, depth * 2);
+			}
+			for (int e = this.lexicon.firstEdge(node); e != Lexicon.NONE; e = this.lexicon.nextEdge(e)) {
+				char c = this.lexicon.edgeLetter(e);
+				this.word[depth] = (byte) c;
+				this.collect(this.lexicon.edgeTarget(e), depth + 1, set | 1 << (c - 'a'));
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of words in this table.
+	 *
+	 * @return the number of words
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the position just past the last letter of the specified word; the
+	 * word starts where the one before it ends.
+	 *
+	 * @param i the number of a word, in alphabetical order
+	 * @return the end of the word
+	 */
+	int end(int i) {
+		return this.index.get(i * 2);
+	}
+
+	/**
+	 * Returns the first word from the specified one on that has a length in the
+	 * specified range and uses every one of the specified letters, or the size
+	 * of this table if there is none. The other words are skipped without
+	 * reading their letters.
+	 *
+	 * @param i         the number of the first word to look at
+	 * @param minLength the fewest letters
+	 * @param maxLength the most letters
+	 * @param required  the letters the word must use, bit <code>l</code> for
+	 *                  letter <code>'a' + l</code>
+	 * @return the number of the first such word, or the size of this table
+	 */
+	int find(int i, int minLength, int maxLength, int required) {
+		int start = i == 0 ? 0 : this.end(i - 1);
+		for (; i < this.size; i++) {
+			int end = this.index.get(i * 2);
+			int n = end - start;
+			if (n >= minLength && n <= maxLength && (this.index.get(i * 2 + 1) & required) == required) {
+				return i;
+			}
+			start = end;
+		}
+		return this.size;
+	}
+
+	/**
+	 * Returns the specified word.
+	 *
+	 * @param i the number of a word, in alphabetical order
+	 * @return the word, in lower case
+	 */
+	String word(int i) {
+		int start = i == 0 ? 0 : this.end(i - 1);
+		char[] chars = new char[this.end(i) - start];
+		for (int j = 0; j < chars.length; j++) {
+			chars[j] = (char) this.letters.get(start + j);
+		}
+		return new String(chars);
+	}
+}
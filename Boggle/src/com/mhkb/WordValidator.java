@@ -0,0 +1,237 @@
+package com.mhkb;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Checks a batch of submitted words against a board and a lexicon in one pass.
+ *
+ * <p>
+ * Implementation Details: the words are visited in sorted order, so words
+ * that share a prefix are next to each other. For every prefix length the
+ * validator keeps the lexicon node reached by the prefix and the set of
+ * <em>path states</em> in which the prefix can end on the board, where a path
+ * state is the last die used, the dice used so far, and whether only the first
+ * letter of a two letter face (such as <code>QU</code>) has been matched. When
+ * the next word is checked only the levels past the prefix it shares with the
+ * previous word are recomputed, so the lexicon descent and the path search
+ * for a common prefix are done once for the whole batch. The path states of a
+ * level are computed only when a word that reaches that level is in the
+ * lexicon.
+ *
+ * <p>
+ * A path state is packed into a <code>long</code>: the dice used so far, the
+ * last die, and a flag for a partly matched face. That fits boards of up to
+ * 7x7 dice; on a larger board each word that is in the lexicon is traced on
+ * its own with <code>Board.findPath</code> instead.
+ *
+ * <p>
+ * A validator holds only scratch space for a single batch; it is not safe to
+ * use one validator from more than one thread at a time.
+ *
+ */
+public final class WordValidator {
+
+	/**
+	 * The path state before the first letter, from which any die may be used.
+	 */
+	private static final long START = -1L;
+
+	/**
+	 * The largest number of dice whose path states fit in a <code>long</code>.
+	 */
+	static final int MAX_PACKED_SIZE = 49;
+
+	private static final int DIE_SHIFT = MAX_PACKED_SIZE;
+	private static final long DIE_MASK = 0x3F;
+	private static final long PARTIAL = 1L << (DIE_SHIFT + 6);
+	private static final long VISITED_MASK = (1L << MAX_PACKED_SIZE) - 1;
+
+	private final Lexicon lexicon;
+	private final int minLength;
+
+	// scratch space for one batch: nodes[k] and states[k][0..counts[k]) are
+	// the lexicon node and the path states after the first k letters
+	private int[] nodes = new int[Board.SIZE * Board.MAX_FACE_LENGTH + 1];
+	private long[][] states = new long[Board.SIZE * Board.MAX_FACE_LENGTH + 1][];
+	private int[] counts = new int[Board.SIZE * Board.MAX_FACE_LENGTH + 1];
+
+	/**
+	 * Initializes a validator that accepts words of at least the specified length
+	 * in the specified lexicon.
+	 *
+	 * @param lexicon   the legal words
+	 * @param minLength the minimum length of a word
+	 */
+	public WordValidator(Lexicon lexicon, int minLength) {
+		this.lexicon = lexicon;
+		this.minLength = minLength;
+	}
+
+	/**
+	 * Returns the verdict for each of the specified words on the specified board,
+	 * in the same order as the words. The case of the words is not important. A
+	 * word that was submitted earlier in the list is a <code>DUPLICATE</code>;
+	 * otherwise the verdict is the first of <code>TOO_SHORT</code>,
+	 * <code>NOT_IN_DICTIONARY</code> and <code>NOT_ON_BOARD</code> that applies,
+	 * or <code>VALID</code> if none does.
+	 *
+	 * @param board a board
+	 * @param words the submitted words
+	 * @return the verdicts, in the order of the words
+	 */
+	public List<WordVerdict> validate(Board board, List<? extends CharSequence> words) {
+		int n = words.size();
+		String[] keys = new String[n];
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			keys[i] = words.get(i).toString().toLowerCase(Locale.ROOT);
+			order[i] = i;
+		}
+		// a stable sort, so the first of equal words keeps its place
+		Arrays.sort(order, Comparator.comparing(i -> keys[i]));
+
+		WordVerdict[] verdicts = new WordVerdict[n];
+		String previous = "";
+		int nodeDepth = 0;
+		int stateDepth = 0;
+		this.nodes[0] = this.lexicon.root();
+		this.setStart();
+		for (int i = 0; i < n; i++) {
+			int index = order[i];
+			String word = keys[index];
+			if (i > 0 && word.equals(previous)) {
+				verdicts[index] = WordVerdict.DUPLICATE;
+				continue;
+			}
+			int shared = commonPrefix(previous, word);
+			nodeDepth = Math.min(nodeDepth, shared);
+			stateDepth = Math.min(stateDepth, shared);
+			previous = word;
+
+			int length = word.length();
+			if (length < this.minLength) {
+				verdicts[index] = WordVerdict.TOO_SHORT;
+				continue;
+			}
+			this.ensureCapacity(length);
+			for (; nodeDepth < length; nodeDepth++) {
+				int node = this.nodes[nodeDepth];
+				this.nodes[nodeDepth + 1] = node == Lexicon.NONE ? Lexicon.NONE
+						: this.lexicon.child(node, word.charAt(nodeDepth));
+			}
+			int node = this.nodes[length];
+			if (node == Lexicon.NONE || !this.lexicon.isWord(node)) {
+				verdicts[index] = WordVerdict.NOT_IN_DICTIONARY;
+				continue;
+			}
+			if (board.size() > MAX_PACKED_SIZE) {
+				verdicts[index] = board.findPath(word) != null ? WordVerdict.VALID : WordVerdict.NOT_ON_BOARD;
+				continue;
+			}
+			for (; stateDepth < length; stateDepth++) {
+				this.advance(board, stateDepth, word.charAt(stateDepth));
+			}
+			verdicts[index] = this.endsOnDie(length) ? WordVerdict.VALID : WordVerdict.NOT_ON_BOARD;
+		}
+		return Arrays.asList(verdicts);
+	}
+
+	private static int commonPrefix(String a, String b) {
+		int n = Math.min(a.length(), b.length());
+		int i = 0;
+		while (i < n && a.charAt(i) == b.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	private void setStart() {
+		if (this.states[0] == null) {
+			this.states[0] = new long[1];
+		}
+		this.states[0][0] = START;
+		this.counts[0] = 1;
+	}
+
+	private void ensureCapacity(int length) {
+		if (length >= this.nodes.length) {
+			int capacity = Math.max(length + 1, this.nodes.length * 2);
+			this.nodes = Arrays.copyOf(this.nodes, capacity);
+			this.states = Arrays.copyOf(this.states, capacity);
+			this.counts = Arrays.copyOf(this.counts, capacity);
+		}
+	}
+
+	/**
+	 * Computes the path states after <code>level + 1</code> letters from the
+	 * states after <code>level</code> letters and the next letter.
+	 */
+	private void advance(Board board, int level, char c) {
+		c = Character.toLowerCase(c);
+		long[] from = this.states[level];
+		long[] to = this.states[level + 1];
+		if (to == null) {
+			to = new long[16];
+		}
+		int count = 0;
+		for (int j = 0, n = this.counts[level]; j < n; j++) {
+			long state = from[j];
+			long candidates;
+			long visited;
+			if (state == START) {
+				candidates = -1L >>> (Long.SIZE - board.size());
+				visited = 0;
+			} else if ((state & PARTIAL) != 0) {
+				int die = (int) ((state >>> DIE_SHIFT) & DIE_MASK);
+				if (board.letter(die, 1) == c) {
+					if (count == to.length) {
+						to = Arrays.copyOf(to, count * 2);
+					}
+					to[count++] = state & ~PARTIAL;
+				}
+				continue;
+			} else {
+				visited = state & VISITED_MASK;
+				candidates = board.getNeighbors((int) ((state >>> DIE_SHIFT) & DIE_MASK)) & ~visited;
+			}
+			for (long m = candidates; m != 0; m &= m - 1) {
+				int die = Long.numberOfTrailingZeros(m);
+				if (board.letter(die, 0) == c) {
+					if (count == to.length) {
+						to = Arrays.copyOf(to, count * 2);
+					}
+					to[count++] = (visited | 1L << die) | (long) die << DIE_SHIFT
+							| (board.faceLength(die) > 1 ? PARTIAL : 0);
+				}
+			}
+		}
+		// paths that end on the same die having used the same dice have the
+		// same future, so only one of them is kept
+		Arrays.sort(to, 0, count);
+		int unique = 0;
+		for (int j = 0; j < count; j++) {
+			if (unique == 0 || to[j] != to[unique - 1]) {
+				to[unique++] = to[j];
+			}
+		}
+		this.states[level + 1] = to;
+		this.counts[level + 1] = unique;
+	}
+
+	/**
+	 * Returns true if some path state after the specified number of letters ends
+	 * on a whole face.
+	 */
+	private boolean endsOnDie(int level) {
+		long[] s = this.states[level];
+		for (int j = 0, n = this.counts[level]; j < n; j++) {
+			if ((s[j] & PARTIAL) == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
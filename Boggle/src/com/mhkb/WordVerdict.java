@@ -0,0 +1,43 @@
+package com.mhkb;
+
+/**
+ * The result of checking one submitted word against a Boggle board.
+ *
+ */
+public enum WordVerdict {
+
+	/**
+	 * The word is a legal Boggle word that can be traced on the board.
+	 */
+	VALID,
+
+	/**
+	 * The word has fewer letters than the minimum word length.
+	 */
+	TOO_SHORT,
+
+	/**
+	 * The word is not in the dictionary.
+	 */
+	NOT_IN_DICTIONARY,
+
+	/**
+	 * The word is in the dictionary but cannot be traced on the board.
+	 */
+	NOT_ON_BOARD,
+
+	/**
+	 * The word was submitted earlier in the same batch. The case of the word is
+	 * not important.
+	 */
+	DUPLICATE;
+
+	/**
+	 * Returns true if this is the verdict for a word that scores.
+	 *
+	 * @return true if this verdict is <code>VALID</code>, and false otherwise
+	 */
+	public boolean isValid() {
+		return this == VALID;
+	}
+}